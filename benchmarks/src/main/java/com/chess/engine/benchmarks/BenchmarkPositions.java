@@ -0,0 +1,37 @@
+package com.chess.engine.benchmarks;
+
+import com.chess.engine.board.Board;
+import com.chess.pgn.FenUtilities;
+
+/*
+ * The positions every benchmark runs on, referenced by name from the @Param of the benchmark state.
+ */
+final class BenchmarkPositions {
+
+    static final String START = "start";
+    static final String MIDDLEGAME_KIWIPETE = "middlegame-kiwipete";
+    static final String MIDDLEGAME_QUEENS_GAMBIT = "middlegame-queens-gambit";
+    static final String ENDGAME_PAWNS = "endgame-pawns";
+    static final String ENDGAME_ROOKS = "endgame-rooks";
+
+    private BenchmarkPositions(){
+        throw new RuntimeException("Not Instantiable!");
+    }
+
+    static Board create(final String name){
+        switch(name){
+            case START:
+                return Board.createStandardBoard();
+            case MIDDLEGAME_KIWIPETE:
+                return FenUtilities.createGameFromFEN("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+            case MIDDLEGAME_QUEENS_GAMBIT:
+                return FenUtilities.createGameFromFEN("r1bq1rk1/pp2bppp/2n1pn2/3p4/2PP4/2N1PN2/PP2BPPP/R2QKB1R w KQ - 0 8");
+            case ENDGAME_PAWNS:
+                return FenUtilities.createGameFromFEN("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1");
+            case ENDGAME_ROOKS:
+                return FenUtilities.createGameFromFEN("8/5pk1/6p1/3R4/8/1r4P1/5PK1/8 w - - 0 40");
+            default:
+                throw new IllegalArgumentException("Unknown benchmark position " + name);
+        }
+    }
+}
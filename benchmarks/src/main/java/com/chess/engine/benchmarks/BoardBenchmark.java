@@ -0,0 +1,90 @@
+package com.chess.engine.benchmarks;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.BoardUtils;
+import com.chess.engine.board.Move;
+import com.chess.engine.board.MoveGenerator;
+import com.chess.engine.board.MoveList;
+import com.chess.engine.board.Tile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Board construction and whole board move generation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class BoardBenchmark {
+
+    @Param({BenchmarkPositions.START,
+            BenchmarkPositions.MIDDLEGAME_KIWIPETE,
+            BenchmarkPositions.MIDDLEGAME_QUEENS_GAMBIT,
+            BenchmarkPositions.ENDGAME_PAWNS,
+            BenchmarkPositions.ENDGAME_ROOKS})
+    public String position;
+
+    private Board board;
+    private Board.Builder builder;
+    private MoveList moves;
+
+    @Setup
+    public void setup(){
+        this.board = BenchmarkPositions.create(this.position);
+        this.builder = new Board.Builder();
+        for(int i = 0; i < BoardUtils.NUM_TILES; i++){
+            if(this.board.getTile(i).isTileOccupied()){
+                this.builder.setPiece(this.board.getTile(i).getPiece());
+            }
+        }
+        this.builder.setMoveMaker(this.board.getMoveMaker());
+        this.builder.setCastlingRights(this.board.getCastlingRights());
+        this.builder.setEnPassantSquare(this.board.getEnPassantSquare());
+        this.moves = new MoveList();
+    }
+
+    @Benchmark
+    public Board builderBuild(){
+        return this.builder.build();
+    }
+
+    @Benchmark
+    public Board createStandardBoard(){
+        return Board.createStandardBoard();
+    }
+
+    @Benchmark
+    public void createTiles(final Blackhole blackhole){
+        for(int i = 0; i < BoardUtils.NUM_TILES; i++){
+            blackhole.consume(Tile.createTile(i, this.board.getTile(i).getPiece()));
+        }
+    }
+
+    @Benchmark
+    public Collection<Move> calculateLegalMoves(){
+        return this.board.calculateLegalMoves(this.board.getMoveMaker());
+    }
+
+    // the same moves through the packed path into a reused buffer, nothing is allocated
+    @Benchmark
+    public int generatePackedMoves(){
+        this.moves.clear();
+        return MoveGenerator.generateMoves(this.board, this.board.getMoveMaker(), this.moves);
+    }
+}
@@ -0,0 +1,70 @@
+package com.chess.engine.benchmarks;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.SearchBoard;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * FEN import and export. Run with -prof gc, loading into a SearchBoard should not allocate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class FenBenchmark {
+
+    @Param({BenchmarkPositions.START,
+            BenchmarkPositions.MIDDLEGAME_KIWIPETE,
+            BenchmarkPositions.ENDGAME_PAWNS})
+    public String position;
+
+    private String fen;
+    private byte[] fenBytes;
+    private Board board;
+    private SearchBoard searchBoard;
+
+    @Setup
+    public void setup(){
+        this.board = BenchmarkPositions.create(this.position);
+        this.fen = this.board.toFEN();
+        this.fenBytes = this.fen.getBytes(StandardCharsets.US_ASCII);
+        this.searchBoard = new SearchBoard(this.board);
+    }
+
+    @Benchmark
+    public Board boardFromFEN(){
+        return Board.fromFEN(this.fen);
+    }
+
+    @Benchmark
+    public long searchBoardSetFEN(){
+        this.searchBoard.setFEN(this.fen);
+        return this.searchBoard.getZobristKey();
+    }
+
+    @Benchmark
+    public long searchBoardSetFENBytes(){
+        this.searchBoard.setFEN(this.fenBytes, 0, this.fenBytes.length);
+        return this.searchBoard.getZobristKey();
+    }
+
+    @Benchmark
+    public String toFEN(){
+        return this.board.toFEN();
+    }
+}
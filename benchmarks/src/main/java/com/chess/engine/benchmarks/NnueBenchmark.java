@@ -0,0 +1,83 @@
+package com.chess.engine.benchmarks;
+
+import com.chess.engine.board.MoveList;
+import com.chess.engine.board.SearchBoard;
+import com.chess.engine.metrics.EngineMetrics;
+import com.chess.engine.nnue.Network;
+import com.chess.engine.nnue.NnueEvaluator;
+import com.chess.engine.player.ai.BoardEvaluator;
+import com.chess.engine.player.ai.PawnHashTable;
+import com.chess.engine.player.ai.PositionalEvaluator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Cost of one evaluation the way the search asks for it: a move is made, the position evaluated and the
+ * move taken back, cycling through the legal moves. The NNUE network has random weights (Network.random),
+ * its cost only depends on the sizes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class NnueBenchmark {
+
+    private static final String POSITIONAL = "positional";
+    private static final String NNUE = "nnue";
+
+    @Param({POSITIONAL, NNUE})
+    public String evaluator;
+
+    @Param({BenchmarkPositions.START,
+            BenchmarkPositions.MIDDLEGAME_KIWIPETE,
+            BenchmarkPositions.MIDDLEGAME_QUEENS_GAMBIT,
+            BenchmarkPositions.ENDGAME_PAWNS,
+            BenchmarkPositions.ENDGAME_ROOKS})
+    public String position;
+
+    @Param({"128"})
+    public int hiddenSize;
+
+    @Param({"8"})
+    public int denseSize;
+
+    private BoardEvaluator boardEvaluator;
+    private PawnHashTable pawnTable;
+    private SearchBoard board;
+    private MoveList moves;
+    private int index;
+
+    @Setup
+    public void setup(){
+        this.boardEvaluator = this.evaluator.equals(NNUE) ?
+                new NnueEvaluator(Network.random(this.hiddenSize, this.denseSize, 1)) : new PositionalEvaluator();
+        this.pawnTable = new PawnHashTable(PawnHashTable.DEFAULT_ENTRIES, new long[EngineMetrics.NUM_COUNTERS]);
+        this.board = new SearchBoard(BenchmarkPositions.create(this.position));
+        this.moves = new MoveList();
+        this.board.generateMoves(this.moves);
+        // the position itself is evaluated once, as the search would have before its children
+        this.boardEvaluator.evaluate(this.board, this.pawnTable);
+    }
+
+    @Benchmark
+    public int evaluateAfterMove(){
+        this.board.makeMove(this.moves.get(this.index));
+        final int score = this.boardEvaluator.evaluate(this.board, this.pawnTable);
+        this.board.unmakeMove();
+        this.index = this.index + 1 == this.moves.size() ? 0 : this.index + 1;
+        return score;
+    }
+}
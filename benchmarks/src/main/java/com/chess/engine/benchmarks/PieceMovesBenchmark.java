@@ -0,0 +1,66 @@
+package com.chess.engine.benchmarks;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.BoardUtils;
+import com.chess.engine.pieces.Piece;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * calculatedLegalMoves of every piece of one type (both alliances) on the board.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class PieceMovesBenchmark {
+
+    @Param({BenchmarkPositions.START,
+            BenchmarkPositions.MIDDLEGAME_KIWIPETE,
+            BenchmarkPositions.MIDDLEGAME_QUEENS_GAMBIT,
+            BenchmarkPositions.ENDGAME_PAWNS,
+            BenchmarkPositions.ENDGAME_ROOKS})
+    public String position;
+
+    @Param({"PAWN", "KNIGHT", "BISHOP", "ROOK", "QUEEN", "KING"})
+    public Piece.PieceType pieceType;
+
+    private Board board;
+    private Piece[] pieces;
+
+    @Setup
+    public void setup(){
+        this.board = BenchmarkPositions.create(this.position);
+        final List<Piece> found = new ArrayList<>();
+        for(int i = 0; i < BoardUtils.NUM_TILES; i++){
+            final Piece piece = this.board.getTile(i).getPiece();
+            if(piece != null && piece.getPieceType() == this.pieceType){
+                found.add(piece);
+            }
+        }
+        this.pieces = found.toArray(new Piece[0]);
+    }
+
+    @Benchmark
+    public void calculatedLegalMoves(final Blackhole blackhole){
+        for(final Piece piece : this.pieces){
+            blackhole.consume(piece.calculatedLegalMoves(this.board));
+        }
+    }
+}
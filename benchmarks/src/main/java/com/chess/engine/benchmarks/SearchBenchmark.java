@@ -0,0 +1,68 @@
+package com.chess.engine.benchmarks;
+
+import com.chess.engine.board.SearchBoard;
+import com.chess.engine.player.ai.AlphaBetaSearch;
+import com.chess.engine.player.ai.MaterialBoardEvaluator;
+import com.chess.engine.player.ai.SearchLimits;
+import com.chess.engine.player.ai.SearchResult;
+import com.chess.engine.player.ai.TranspositionTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Time to depth of the lazy SMP search by thread count, every search starts from an empty
+ * transposition table. Divide the 1 thread time by the N thread time for the speedup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class SearchBenchmark {
+
+    @Param({"1", "2", "4", "8", "16"})
+    public int threads;
+
+    @Param({BenchmarkPositions.START,
+            BenchmarkPositions.MIDDLEGAME_KIWIPETE,
+            BenchmarkPositions.ENDGAME_ROOKS})
+    public String position;
+
+    @Param({"7"})
+    public int depth;
+
+    private SearchBoard board;
+    private TranspositionTable transpositionTable;
+    private AlphaBetaSearch search;
+
+    @Setup(Level.Trial)
+    public void setup(){
+        this.board = new SearchBoard(BenchmarkPositions.create(this.position));
+        this.transpositionTable = new TranspositionTable(TranspositionTable.DEFAULT_SIZE_MB);
+        this.search = new AlphaBetaSearch(this.transpositionTable, new MaterialBoardEvaluator());
+        this.search.setThreads(this.threads);
+    }
+
+    @Setup(Level.Invocation)
+    public void clearTable(){
+        this.transpositionTable.clear();
+    }
+
+    @Benchmark
+    public SearchResult timeToDepth(){
+        return this.search.search(this.board, SearchLimits.depth(this.depth));
+    }
+}
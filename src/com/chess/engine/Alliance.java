@@ -16,6 +16,11 @@ public enum Alliance {
 		public boolean isBlack() {
 			return false;
 		}
+
+		@Override
+		public Alliance getOpponent() {
+			return BLACK;
+		}
 	},
 	BLACK{
 		@Override
@@ -32,9 +37,15 @@ public enum Alliance {
 		public boolean isBlack() {
 			return true;
 		}
+
+		@Override
+		public Alliance getOpponent() {
+			return WHITE;
+		}
 	};
 
 	public abstract int getDirection();
 	public abstract boolean isWhite();
 	public abstract boolean isBlack();
+	public abstract Alliance getOpponent();
 }
\ No newline at end of file
@@ -1,10 +1,18 @@
 package com.chess.engine;
 
 import com.chess.engine.board.Board;
+import com.chess.engine.uci.UciEngine;
+
+import java.io.IOException;
 
 public class JChess {
-    public static void main(String[] args){
-        Board board = Board.createStandardBoard();
-        System.out.println(board);
+    // speaks UCI on stdin / stdout, with "board" as the argument it only prints the starting board
+    public static void main(String[] args) throws IOException {
+        if(args.length > 0 && args[0].equals("board")){
+            Board board = Board.createStandardBoard();
+            System.out.println(board);
+            return;
+        }
+        UciEngine.main(args);
     }
 }
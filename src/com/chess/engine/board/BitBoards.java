@@ -0,0 +1,286 @@
+package com.chess.engine.board;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.pieces.Piece.PieceType;
+
+/*
+ * Bitboard tables and attack lookups.
+ *
+ * Bit i of a bitboard is tile coordinate i, so bit 0 is the top left tile (a8) and bit 63 the
+ * bottom right tile (h1), exactly like the tile numbering used everywhere else in the board package.
+ *
+ * Sliding attacks use magic bitboards: the relevant blockers of a square are multiplied by a magic
+ * number and the top bits of the product index a precomputed attack table. The magics below were
+ * found once by a random search for this tile numbering, so class loading only fills the tables.
+ */
+public final class BitBoards {
+
+    // layout of the bitboard array held by a board: one bitboard per alliance and piece type, then occupancy
+    public static final int NUM_PIECE_TYPES = 6;
+    public static final int WHITE_PIECES = 12;
+    public static final int BLACK_PIECES = 13;
+    public static final int ALL_PIECES = 14;
+    public static final int NUM_BITBOARDS = 15;
+
+    public static final long[] COLUMNS = initColumns();
+    public static final long[] ROWS = initRows();
+
+    public static final long[] KNIGHT_ATTACKS = initLeaperAttacks(new int[][]{
+            {-2, -1}, {-2, 1}, {-1, -2}, {-1, 2}, {1, -2}, {1, 2}, {2, -1}, {2, 1}});
+    public static final long[] KING_ATTACKS = initLeaperAttacks(new int[][]{
+            {-1, -1}, {-1, 0}, {-1, 1}, {0, -1}, {0, 1}, {1, -1}, {1, 0}, {1, 1}});
+    // indexed by alliance ordinal, then square: the tiles a pawn of that alliance attacks
+    public static final long[][] PAWN_ATTACKS = {
+            initLeaperAttacks(new int[][]{{-1, -1}, {-1, 1}}),
+            initLeaperAttacks(new int[][]{{1, -1}, {1, 1}})};
+
+    // the tiles strictly between two tiles on a common row, column or diagonal, empty otherwise
+    public static final long[][] BETWEEN = new long[BoardUtils.NUM_TILES][BoardUtils.NUM_TILES];
+    // the whole line through two tiles on a common row, column or diagonal (edge to edge), empty otherwise
+    public static final long[][] LINE = new long[BoardUtils.NUM_TILES][BoardUtils.NUM_TILES];
+
+    private static final int[][] ROOK_DIRECTIONS = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{-1, -1}, {-1, 1}, {1, -1}, {1, 1}};
+
+    private static final long[] ROOK_MAGICS = {
+            0x008000908064C000L, 0x0040200040001000L, 0x0180100080A0010AL, 0x8880041000800800L,
+            0x1200100201200804L, 0x0200020004011008L, 0x2180010000800600L, 0x0200005088210204L,
+            0x0400800040008021L, 0x0400400020005000L, 0x8240801000200080L, 0x8611001004200900L,
+            0x008180800C001800L, 0x0100800200800400L, 0x0A02000102000408L, 0x8020802300104280L,
+            0x0080004000402000L, 0xE010104000402000L, 0x0800808010002000L, 0xA280210008100100L,
+            0x0001818014000800L, 0xA002010100080400L, 0x0080240001020870L, 0x0001020004048845L,
+            0x0081826280004004L, 0x2020810900284000L, 0x0200100080802000L, 0x0200080080100080L,
+            0x8083080100100500L, 0x4406000901000400L, 0x0005020080800100L, 0x0090204200008114L,
+            0x0010400094800420L, 0x0900804000802002L, 0x0201001841002000L, 0x4100080080801000L,
+            0x4540040080800800L, 0x0002001004040020L, 0x0281195814001002L, 0x1240800040800100L,
+            0x0880042000524004L, 0x02C080410206002CL, 0x0801200241050010L, 0x8400080010008080L,
+            0x0008000500090010L, 0x0082009084020008L, 0x4012000108020004L, 0x9000104D08860004L,
+            0x2004204114800100L, 0x0148802112400300L, 0x0202842000100880L, 0x001B080080900080L,
+            0x001A002008100600L, 0x0004008004020080L, 0x5181000600040300L, 0x0000044401128A00L,
+            0x8044110480002441L, 0x2008110084402202L, 0x90806005090010C1L, 0x000420310A004A42L,
+            0x0023001004020801L, 0x0882001008040102L, 0x000230088118020CL, 0x0000019025040042L
+    };
+
+    private static final long[] BISHOP_MAGICS = {
+            0x0045010808008680L, 0x2002080204004898L, 0x0210009A10400006L, 0x0824050200810200L,
+            0x0006061105004090L, 0x00010108C0000000L, 0x0814040282104004L, 0x0012012201106800L,
+            0x10823014100C1040L, 0x0080C2088802808CL, 0x0281108410404000L, 0x0101212041826200L,
+            0x0020141028221058L, 0x2201020202200202L, 0x000082A801482000L, 0x0000008401411044L,
+            0x0007103014300404L, 0x0002091110010100L, 0x42140012040C0808L, 0x0800808802004020L,
+            0x90C4004210140000L, 0x0800200900A01000L, 0x00D0400201108810L, 0x80820183814412A0L,
+            0x00A01008202202B4L, 0x01C2021A09500402L, 0x0084440208042400L, 0x800400400C090100L,
+            0xBA10040010802100L, 0xD182009006005000L, 0x5011021001009004L, 0x0020420200510400L,
+            0x0292104000468800L, 0x00043009091C0500L, 0x0280441000020025L, 0x0042820080080080L,
+            0x0440101010010040L, 0x1000900100808080L, 0x0108108120089800L, 0x0044010200012682L,
+            0xC002500420900400L, 0x0040482210710800L, 0x0002060024000200L, 0x0281020A44000800L,
+            0xA0021200A4000200L, 0x0001301000840840L, 0x2868500108444220L, 0x0004111041000200L,
+            0x8044020842080200L, 0x0000220104210200L, 0x0000021201044000L, 0x0000280884040028L,
+            0x4012114010858003L, 0x0000081004082B88L, 0x3892700508208002L, 0x00220A041B060400L,
+            0x0812020284014881L, 0x010434A282103100L, 0x0490400824020800L, 0x4A20002C00208800L,
+            0x000000A011020200L, 0x4002940A02482202L, 0x5100100202140406L, 0x02102000840540C1L
+    };
+
+    private static final long[] ROOK_MASKS = new long[BoardUtils.NUM_TILES];
+    private static final int[] ROOK_SHIFTS = new int[BoardUtils.NUM_TILES];
+    private static final long[][] ROOK_TABLE = new long[BoardUtils.NUM_TILES][];
+
+    private static final long[] BISHOP_MASKS = new long[BoardUtils.NUM_TILES];
+    private static final int[] BISHOP_SHIFTS = new int[BoardUtils.NUM_TILES];
+    private static final long[][] BISHOP_TABLE = new long[BoardUtils.NUM_TILES][];
+
+    static {
+        initMagicTables(ROOK_DIRECTIONS, ROOK_MASKS, ROOK_MAGICS, ROOK_SHIFTS, ROOK_TABLE);
+        initMagicTables(BISHOP_DIRECTIONS, BISHOP_MASKS, BISHOP_MAGICS, BISHOP_SHIFTS, BISHOP_TABLE);
+        initLines();
+    }
+
+    private BitBoards(){
+        throw new RuntimeException("You cannot instantiate me!");
+    }
+
+    public static int index(final Alliance alliance, final PieceType pieceType){
+        return alliance.ordinal() * NUM_PIECE_TYPES + pieceType.ordinal();
+    }
+
+    public static int allianceIndex(final Alliance alliance){
+        return WHITE_PIECES + alliance.ordinal();
+    }
+
+    public static long bit(final int square){
+        return 1L << square;
+    }
+
+    // index of the lowest set bit, the usual way to walk a bitboard is
+    // while(bb != 0){ sq = firstSquare(bb); bb &= bb - 1; }
+    public static int firstSquare(final long bitboard){
+        return Long.numberOfTrailingZeros(bitboard);
+    }
+
+    public static long rookAttacks(final int square, final long occupancy){
+        return ROOK_TABLE[square][(int) (((occupancy & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square])];
+    }
+
+    public static long bishopAttacks(final int square, final long occupancy){
+        return BISHOP_TABLE[square][(int) (((occupancy & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square])];
+    }
+
+    public static long queenAttacks(final int square, final long occupancy){
+        return rookAttacks(square, occupancy) | bishopAttacks(square, occupancy);
+    }
+
+    // update the bitboards of the given side for a packed move: moved, captured, promoted and castling pieces
+    public static void applyMove(final long[] bitboards, final int side, final int move){
+        final int from = PackedMove.getFrom(move);
+        final int to = PackedMove.getTo(move);
+        final int flag = PackedMove.getFlag(move);
+        final int captured = PackedMove.getCaptured(move);
+        final int own = side * NUM_PIECE_TYPES;
+        final long fromTo = bit(from) | bit(to);
+
+        bitboards[own + PackedMove.getPiece(move)] ^= fromTo;
+        bitboards[WHITE_PIECES + side] ^= fromTo;
+        if(captured != PackedMove.NO_PIECE){
+            final long capturedBit = bit(flag == PackedMove.EN_PASSANT ? enPassantVictim(side, to) : to);
+            bitboards[(side ^ 1) * NUM_PIECE_TYPES + captured] ^= capturedBit;
+            bitboards[WHITE_PIECES + (side ^ 1)] ^= capturedBit;
+        }
+        if(flag == PackedMove.PROMOTION){
+            bitboards[own + PieceType.PAWN.ordinal()] ^= bit(to);
+            bitboards[own + PackedMove.getPromotion(move)] ^= bit(to);
+        }else if(flag == PackedMove.KING_SIDE_CASTLE || flag == PackedMove.QUEEN_SIDE_CASTLE){
+            final long rookFromTo = bit(castlingRookFrom(flag, to)) | bit(castlingRookTo(flag, to));
+            bitboards[own + PieceType.ROOK.ordinal()] ^= rookFromTo;
+            bitboards[WHITE_PIECES + side] ^= rookFromTo;
+        }
+        bitboards[ALL_PIECES] = bitboards[WHITE_PIECES] | bitboards[BLACK_PIECES];
+    }
+
+    // the tile of the pawn taken en passant by a pawn of the given side landing on the tile
+    public static int enPassantVictim(final int side, final int to){
+        return side == 0 ? to + BoardUtils.NUM_TILES_PER_ROW : to - BoardUtils.NUM_TILES_PER_ROW;
+    }
+
+    // the castling king lands on g1/g8 or c1/c8, its rook comes from the corner next to it
+    public static int castlingRookFrom(final int flag, final int kingTo){
+        return flag == PackedMove.KING_SIDE_CASTLE ? kingTo + 1 : kingTo - 2;
+    }
+
+    public static int castlingRookTo(final int flag, final int kingTo){
+        return flag == PackedMove.KING_SIDE_CASTLE ? kingTo - 1 : kingTo + 1;
+    }
+
+    private static long[] initColumns(){
+        final long[] columns = new long[BoardUtils.NUM_TILES_PER_ROW];
+        for(int i = 0; i < BoardUtils.NUM_TILES; i++){
+            columns[i % BoardUtils.NUM_TILES_PER_ROW] |= bit(i);
+        }
+        return columns;
+    }
+
+    private static long[] initRows(){
+        final long[] rows = new long[BoardUtils.NUM_TILES_PER_ROW];
+        for(int i = 0; i < BoardUtils.NUM_TILES; i++){
+            rows[i / BoardUtils.NUM_TILES_PER_ROW] |= bit(i);
+        }
+        return rows;
+    }
+
+    private static boolean onBoard(final int row, final int column){
+        return row >= 0 && row < BoardUtils.NUM_TILES_PER_ROW && column >= 0 && column < BoardUtils.NUM_TILES_PER_ROW;
+    }
+
+    // {row, column} offsets make the edge handling trivial, no column exclusion checks required
+    private static long[] initLeaperAttacks(final int[][] offsets){
+        final long[] attacks = new long[BoardUtils.NUM_TILES];
+        for(int square = 0; square < BoardUtils.NUM_TILES; square++){
+            final int row = square / BoardUtils.NUM_TILES_PER_ROW;
+            final int column = square % BoardUtils.NUM_TILES_PER_ROW;
+            for(final int[] offset : offsets){
+                if(onBoard(row + offset[0], column + offset[1])){
+                    attacks[square] |= bit((row + offset[0]) * BoardUtils.NUM_TILES_PER_ROW + column + offset[1]);
+                }
+            }
+        }
+        return attacks;
+    }
+
+    // slow ray walk, only used to fill the magic tables
+    private static long slidingAttacks(final int square, final long occupancy, final int[][] directions){
+        long attacks = 0L;
+        for(final int[] direction : directions){
+            int row = square / BoardUtils.NUM_TILES_PER_ROW + direction[0];
+            int column = square % BoardUtils.NUM_TILES_PER_ROW + direction[1];
+            while(onBoard(row, column)){
+                final long target = bit(row * BoardUtils.NUM_TILES_PER_ROW + column);
+                attacks |= target;
+                if((occupancy & target) != 0){
+                    break;
+                }
+                row += direction[0];
+                column += direction[1];
+            }
+        }
+        return attacks;
+    }
+
+    // a slider on either tile attacks the other one on an empty board exactly when they share a line
+    private static void initLines(){
+        for(int from = 0; from < BoardUtils.NUM_TILES; from++){
+            for(int to = 0; to < BoardUtils.NUM_TILES; to++){
+                if(from == to){
+                    continue;
+                }
+                if((rookAttacks(from, 0L) & bit(to)) != 0){
+                    BETWEEN[from][to] = rookAttacks(from, bit(to)) & rookAttacks(to, bit(from));
+                    LINE[from][to] = (rookAttacks(from, 0L) & rookAttacks(to, 0L)) | bit(from) | bit(to);
+                }else if((bishopAttacks(from, 0L) & bit(to)) != 0){
+                    BETWEEN[from][to] = bishopAttacks(from, bit(to)) & bishopAttacks(to, bit(from));
+                    LINE[from][to] = (bishopAttacks(from, 0L) & bishopAttacks(to, 0L)) | bit(from) | bit(to);
+                }
+            }
+        }
+    }
+
+    // the blockers that matter: every ray square except the last one before the edge
+    private static long relevantBlockers(final int square, final int[][] directions){
+        long mask = 0L;
+        for(final int[] direction : directions){
+            int row = square / BoardUtils.NUM_TILES_PER_ROW + direction[0];
+            int column = square % BoardUtils.NUM_TILES_PER_ROW + direction[1];
+            while(onBoard(row + direction[0], column + direction[1])){
+                mask |= bit(row * BoardUtils.NUM_TILES_PER_ROW + column);
+                row += direction[0];
+                column += direction[1];
+            }
+        }
+        return mask;
+    }
+
+    private static void initMagicTables(final int[][] directions,
+                                        final long[] masks,
+                                        final long[] magics,
+                                        final int[] shifts,
+                                        final long[][] table){
+        for(int square = 0; square < BoardUtils.NUM_TILES; square++){
+            final long mask = relevantBlockers(square, directions);
+            final int bits = Long.bitCount(mask);
+            final long[] attackTable = new long[1 << bits];
+
+            //visit every subset of the mask (carry rippler) and store its attacks at the magic index
+            long subset = 0L;
+            do{
+                final int index = (int) ((subset * magics[square]) >>> (64 - bits));
+                final long attacks = slidingAttacks(square, subset, directions);
+                if(attackTable[index] != 0 && attackTable[index] != attacks){
+                    throw new IllegalStateException("Bad magic for tile " + square);
+                }
+                attackTable[index] = attacks;
+                subset = (subset - mask) & mask;
+            }while(subset != 0);
+
+            masks[square] = mask;
+            shifts[square] = 64 - bits;
+            table[square] = attackTable;
+        }
+    }
+}
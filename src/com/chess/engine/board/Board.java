@@ -1,14 +1,16 @@
 package com.chess.engine.board;
 
 import com.chess.engine.Alliance;
+import com.chess.engine.metrics.EngineMetrics;
 import com.chess.engine.pieces.*;
 import com.google.common.collect.ImmutableList;
-import javafx.util.Builder;
 
 import java.util.*;
 
 public class Board {
 
+    private static final Piece.PieceType[] PIECE_TYPES = Piece.PieceType.values();
+
     // all the tiles on the board
     private final List<Tile> gameBoard;
 
@@ -16,6 +18,21 @@ public class Board {
     private final Collection<Piece> whitePieces; //the white pieces
     private final Collection<Piece> blackPieces; //the black pieces
 
+    // one bitboard per alliance and piece type plus the occupancy, laid out as described in BitBoards
+    private final long[] bitboards;
+
+    // the state that is not visible on the tiles
+    private final Alliance nextMoveMaker;
+    private final int castlingRights; // BoardUtils castling bits
+    private final int enPassantSquare; // the tile jumped over by the last pawn jump, or NO_EN_PASSANT
+    private final int halfMoveClock;
+    private final int fullMoveNumber;
+
+    // Zobrist hash of the position, see Zobrist
+    private final long zobristKey;
+    // Zobrist hash of the pawns alone
+    private final long pawnKey;
+
     //This cunstructor build our chess board
     /*
     * 1. It takes an instance of the builder class
@@ -26,10 +43,16 @@ public class Board {
         this.gameBoard = createGameBoard(builder); //create the game board
         this.whitePieces = calculateActivePieces(this.gameBoard, Alliance.WHITE);
         this.blackPieces = calculateActivePieces(this.gameBoard, Alliance.BLACK);
-
-        //calculating the leagal moves
-        final Collection<Move> whiteStandardLegalMoves = calculateLegalMoves(this.whitePieces);
-        final Collection<Move> blackStandardLegalMoves = calculateLegalMoves(this.blackPieces);
+        this.bitboards = builder.bitboards != null ? builder.bitboards : createBitBoards(this.gameBoard);
+        this.nextMoveMaker = builder.nextMoveMaker != null ? builder.nextMoveMaker : Alliance.WHITE;
+        this.castlingRights = builder.castlingRights;
+        this.enPassantSquare = builder.enPassantSquare;
+        this.halfMoveClock = builder.halfMoveClock;
+        this.fullMoveNumber = builder.fullMoveNumber;
+        this.zobristKey = Zobrist.computeKey(this.bitboards, this.nextMoveMaker.ordinal(), this.castlingRights,
+                this.enPassantSquare);
+        this.pawnKey = Zobrist.computePawnKey(this.bitboards);
+        EngineMetrics.countBoard();
     }
 
     @Override
@@ -45,13 +68,119 @@ public class Board {
         return builder.toString();
     }
 
-    //method for calculating the legal moves
-    private Collection<Move> calculateLegalMoves(final Collection<Piece> pieces) {
-        final List<Move> legalMoves = new ArrayList<>();
-        for(final Piece piece : pieces){
-            legalMoves.addAll(piece.calculatedLegalMoves(this));
-        }
-        return ImmutableList.copyOf(legalMoves);
+    //method for calculating the legal moves, generated packed and turned into Move objects only once
+    public Collection<Move> calculateLegalMoves(final Alliance alliance) {
+        final MoveList legalMoves = new MoveList();
+        MoveGenerator.generateMoves(this, alliance, legalMoves);
+        EngineMetrics.countBoardMoves(legalMoves.size());
+        return Move.createMoves(this, legalMoves);
+    }
+
+    // the alliance to move next
+    public Alliance getMoveMaker(){
+        return this.nextMoveMaker;
+    }
+
+    public int getCastlingRights(){
+        return this.castlingRights;
+    }
+
+    public int getEnPassantSquare(){
+        return this.enPassantSquare;
+    }
+
+    public int getHalfMoveClock(){
+        return this.halfMoveClock;
+    }
+
+    public int getFullMoveNumber(){
+        return this.fullMoveNumber;
+    }
+
+    // equal positions (pieces, move maker, castling rights and en passant) have equal keys
+    public long getZobristKey(){
+        return this.zobristKey;
+    }
+
+    // equal pawn structures have equal keys, whatever the other pieces
+    public long getPawnKey(){
+        return this.pawnKey;
+    }
+
+    // is the king of the given alliance attacked
+    public boolean isInCheck(final Alliance alliance){
+        final long king = getPieceBitboard(alliance, Piece.PieceType.KING);
+        return king != 0 && MoveGenerator.isSquareAttacked(this.bitboards, BitBoards.firstSquare(king),
+                alliance.getOpponent().ordinal());
+    }
+
+    // play a packed move generated on this board, the result is a brand new board
+    /*
+    * 1. The bitboards are copied and updated for the moved, captured, promoted and castling pieces
+    * 2. Castling rights, en passant tile, clocks and the move maker are carried over
+    * 3. The new board is then created the usual way through a Builder
+    */
+    public Board makeMove(final int move){
+        final long[] next = this.bitboards.clone();
+        final Alliance enemy = this.nextMoveMaker.getOpponent();
+        final int from = PackedMove.getFrom(move);
+        final int to = PackedMove.getTo(move);
+        final int piece = PackedMove.getPiece(move);
+        final int captured = PackedMove.getCaptured(move);
+        final int flag = PackedMove.getFlag(move);
+        BitBoards.applyMove(next, this.nextMoveMaker.ordinal(), move);
+
+        final Builder builder = createBuilder(next);
+        builder.setMoveMaker(enemy);
+        builder.setCastlingRights(this.castlingRights & BoardUtils.CASTLING_RIGHTS_MASK[from] &
+                BoardUtils.CASTLING_RIGHTS_MASK[to]);
+        builder.setEnPassantSquare(flag == PackedMove.DOUBLE_PAWN_PUSH ? (from + to) / 2 : BoardUtils.NO_EN_PASSANT);
+        builder.setHalfMoveClock(piece == Piece.PieceType.PAWN.ordinal() || captured != PackedMove.NO_PIECE ?
+                0 : this.halfMoveClock + 1);
+        builder.setFullMoveNumber(this.nextMoveMaker.isBlack() ? this.fullMoveNumber + 1 : this.fullMoveNumber);
+        return builder.build();
+    }
+
+    // a builder taking its pieces straight from the bitboards, which it then owns
+    static Builder createBuilder(final long[] bitboards){
+        final Builder builder = new Builder();
+        builder.bitboards = bitboards;
+        return builder;
+    }
+
+    // parse a position in Forsyth-Edwards Notation
+    public static Board fromFEN(final CharSequence fen){
+        return fromFEN(fen, 0, fen.length());
+    }
+
+    // parse the FEN in fen[start, end), no substring needed
+    public static Board fromFEN(final CharSequence fen, final int start, final int end){
+        final long[] bitboards = new long[BitBoards.NUM_BITBOARDS];
+        return createBoard(bitboards, Fen.parse(fen, start, end, bitboards));
+    }
+
+    // parse a FEN of ASCII bytes, e.g. a line of a file read without decoding it
+    public static Board fromFEN(final byte[] fen, final int offset, final int length){
+        final long[] bitboards = new long[BitBoards.NUM_BITBOARDS];
+        return createBoard(bitboards, Fen.parse(fen, offset, length, bitboards));
+    }
+
+    private static Board createBoard(final long[] bitboards, final long fenState){
+        final Builder builder = createBuilder(bitboards);
+        builder.setMoveMaker(Fen.getSide(fenState) == 0 ? Alliance.WHITE : Alliance.BLACK);
+        builder.setCastlingRights(Fen.getCastlingRights(fenState));
+        builder.setEnPassantSquare(Fen.getEnPassantSquare(fenState));
+        builder.setHalfMoveClock(Fen.getHalfMoveClock(fenState));
+        builder.setFullMoveNumber(Fen.getFullMoveNumber(fenState));
+        return builder.build();
+    }
+
+    // the position in Forsyth-Edwards Notation
+    public String toFEN(){
+        final StringBuilder builder = new StringBuilder(90);
+        Fen.append(builder, this.bitboards, this.nextMoveMaker.ordinal(), this.castlingRights, this.enPassantSquare,
+                this.halfMoveClock, this.fullMoveNumber);
+        return builder.toString();
     }
 
     //function to track all the pieces of given alliance
@@ -72,6 +201,41 @@ public class Board {
         return gameBoard.get(tileCoordinate);
     }
 
+    // the raw bitboard array for the generators of this package, never to be modified
+    long[] getBitboards(){
+        return this.bitboards;
+    }
+
+    // the tiles holding the given kind of piece
+    public long getPieceBitboard(final Alliance alliance, final Piece.PieceType pieceType){
+        return this.bitboards[BitBoards.index(alliance, pieceType)];
+    }
+
+    // the tiles holding any piece of the given alliance
+    public long getAllianceBitboard(final Alliance alliance){
+        return this.bitboards[BitBoards.allianceIndex(alliance)];
+    }
+
+    // the tiles holding any piece at all
+    public long getOccupancyBitboard(){
+        return this.bitboards[BitBoards.ALL_PIECES];
+    }
+
+    //set one bit per occupied tile in the bitboard of its piece and in the occupancy bitboards
+    private static long[] createBitBoards(final List<Tile> gameBoard){
+        final long[] bitboards = new long[BitBoards.NUM_BITBOARDS];
+        for(int i=0; i<BoardUtils.NUM_TILES; i++){
+            final Tile tile = gameBoard.get(i);
+            if(tile.isTileOccupied()){
+                final Piece piece = tile.getPiece();
+                bitboards[BitBoards.index(piece.getPieceAlliance(), piece.getPieceType())] |= BitBoards.bit(i);
+                bitboards[BitBoards.allianceIndex(piece.getPieceAlliance())] |= BitBoards.bit(i);
+                bitboards[BitBoards.ALL_PIECES] |= BitBoards.bit(i);
+            }
+        }
+        return bitboards;
+    }
+
     //create a list of tiles numbered 0-63 which would be altogether be our game board
     /*
     * 1. It would return the list of tiles for the game board
@@ -79,6 +243,25 @@ public class Board {
     */
     private static List<Tile> createGameBoard(final Builder builder){
         final Tile[] tiles = new Tile[BoardUtils.NUM_TILES]; //array of tiles
+        if(builder.bitboards != null){
+            // no piece objects yet, take the shared one for every bit set in the piece bitboards
+            for(int index = 0; index < BitBoards.WHITE_PIECES; index++){
+                final Alliance alliance = index < BitBoards.NUM_PIECE_TYPES ? Alliance.WHITE : Alliance.BLACK;
+                final Piece.PieceType pieceType = PIECE_TYPES[index % BitBoards.NUM_PIECE_TYPES];
+                long pieces = builder.bitboards[index];
+                while(pieces != 0){
+                    final int square = BitBoards.firstSquare(pieces);
+                    tiles[square] = Tile.createTile(square, Piece.createPiece(pieceType, alliance, square));
+                    pieces &= pieces - 1;
+                }
+            }
+            for(int i=0; i<BoardUtils.NUM_TILES; i++){
+                if(tiles[i] == null){
+                    tiles[i] = Tile.createTile(i, null);
+                }
+            }
+            return ImmutableList.copyOf(tiles);
+        }
         for(int i=0; i<BoardUtils.NUM_TILES; i++){ //loop through all the tiles
             // create the tile
             /*
@@ -90,47 +273,48 @@ public class Board {
         return ImmutableList.copyOf(tiles);
     }
 
-    //create the intial standard chess board at the start of the game
+    //create the intial standard chess board at the start of the game, from the shared pieces
     public static Board createStandardBoard(){
         final Builder builder = new Builder();
 
         //WHITE Layout
-        builder.setPiece(new Rook(Alliance.BLACK, 0));
-        builder.setPiece(new Knight(Alliance.BLACK, 1));
-        builder.setPiece(new Bishop(Alliance.BLACK, 2));
-        builder.setPiece(new Queen(Alliance.BLACK, 3));
-        builder.setPiece(new King(Alliance.BLACK, 4));
-        builder.setPiece(new Bishop(Alliance.BLACK, 5));
-        builder.setPiece(new Knight(Alliance.BLACK, 6));
-        builder.setPiece(new Rook(Alliance.BLACK, 7));
-        builder.setPiece(new Pawn(Alliance.BLACK, 8));
-        builder.setPiece(new Pawn(Alliance.BLACK, 9));
-        builder.setPiece(new Pawn(Alliance.BLACK, 10));
-        builder.setPiece(new Pawn(Alliance.BLACK, 11));
-        builder.setPiece(new Pawn(Alliance.BLACK, 12));
-        builder.setPiece(new Pawn(Alliance.BLACK, 13));
-        builder.setPiece(new Pawn(Alliance.BLACK, 14));
-        builder.setPiece(new Pawn(Alliance.BLACK, 15));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.ROOK, Alliance.BLACK, 0));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.KNIGHT, Alliance.BLACK, 1));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.BISHOP, Alliance.BLACK, 2));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.QUEEN, Alliance.BLACK, 3));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.KING, Alliance.BLACK, 4));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.BISHOP, Alliance.BLACK, 5));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.KNIGHT, Alliance.BLACK, 6));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.ROOK, Alliance.BLACK, 7));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.PAWN, Alliance.BLACK, 8));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.PAWN, Alliance.BLACK, 9));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.PAWN, Alliance.BLACK, 10));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.PAWN, Alliance.BLACK, 11));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.PAWN, Alliance.BLACK, 12));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.PAWN, Alliance.BLACK, 13));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.PAWN, Alliance.BLACK, 14));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.PAWN, Alliance.BLACK, 15));
 
         //White layout
-        builder.setPiece(new Pawn(Alliance.WHITE, 48));
-        builder.setPiece(new Pawn(Alliance.WHITE, 49));
-        builder.setPiece(new Pawn(Alliance.WHITE, 50));
-        builder.setPiece(new Pawn(Alliance.WHITE, 51));
-        builder.setPiece(new Pawn(Alliance.WHITE, 52));
-        builder.setPiece(new Pawn(Alliance.WHITE, 53));
-        builder.setPiece(new Pawn(Alliance.WHITE, 54));
-        builder.setPiece(new Pawn(Alliance.WHITE, 55));
-        builder.setPiece(new Rook(Alliance.WHITE, 56));
-        builder.setPiece(new Knight(Alliance.WHITE, 57));
-        builder.setPiece(new Bishop(Alliance.WHITE, 58));
-        builder.setPiece(new Queen(Alliance.WHITE, 59));
-        builder.setPiece(new King(Alliance.WHITE, 60));
-        builder.setPiece(new Bishop(Alliance.WHITE, 61));
-        builder.setPiece(new Knight(Alliance.WHITE, 62));
-        builder.setPiece(new Rook(Alliance.WHITE, 63));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.PAWN, Alliance.WHITE, 48));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.PAWN, Alliance.WHITE, 49));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.PAWN, Alliance.WHITE, 50));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.PAWN, Alliance.WHITE, 51));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.PAWN, Alliance.WHITE, 52));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.PAWN, Alliance.WHITE, 53));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.PAWN, Alliance.WHITE, 54));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.PAWN, Alliance.WHITE, 55));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.ROOK, Alliance.WHITE, 56));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.KNIGHT, Alliance.WHITE, 57));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.BISHOP, Alliance.WHITE, 58));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.QUEEN, Alliance.WHITE, 59));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.KING, Alliance.WHITE, 60));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.BISHOP, Alliance.WHITE, 61));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.KNIGHT, Alliance.WHITE, 62));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.ROOK, Alliance.WHITE, 63));
 
         builder.setMoveMaker(Alliance.WHITE);
+        builder.setCastlingRights(BoardUtils.ALL_CASTLING_RIGHTS);
         return builder.build();
     }
 
@@ -139,11 +323,19 @@ public class Board {
 
         //Map the position of the pieces in the board config
         Map<Integer, Piece> boardConfig;
+        //or the pieces as bitboards, when the board is created from bitboards (moves, FEN)
+        long[] bitboards;
         Alliance nextMoveMaker;
+        int castlingRights;
+        int enPassantSquare;
+        int halfMoveClock;
+        int fullMoveNumber;
 
         public Builder(){
             // The map is a hash map - which maps the integral position of the piece on the board to the piece
             this.boardConfig = new HashMap<>();
+            this.enPassantSquare = BoardUtils.NO_EN_PASSANT;
+            this.fullMoveNumber = 1;
         }
 
         // Function to set the piece on the board
@@ -161,6 +353,28 @@ public class Board {
             return this;
         }
 
+        // BoardUtils castling bits of the sides that may still castle
+        public Builder setCastlingRights(final int castlingRights){
+            this.castlingRights = castlingRights;
+            return this;
+        }
+
+        // the tile a pawn jumped over on the previous move
+        public Builder setEnPassantSquare(final int enPassantSquare){
+            this.enPassantSquare = enPassantSquare;
+            return this;
+        }
+
+        public Builder setHalfMoveClock(final int halfMoveClock){
+            this.halfMoveClock = halfMoveClock;
+            return this;
+        }
+
+        public Builder setFullMoveNumber(final int fullMoveNumber){
+            this.fullMoveNumber = fullMoveNumber;
+            return this;
+        }
+
         // Function to build the board
         /*
         * call the creates and return a new Board instance
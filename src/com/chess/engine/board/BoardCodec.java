@@ -0,0 +1,136 @@
+package com.chess.engine.board;
+
+import com.chess.engine.Alliance;
+
+import java.nio.ByteBuffer;
+
+import static com.chess.engine.board.BitBoards.*;
+
+/*
+ * A fixed width 32 byte binary encoding of a position, for position files that are read by offset.
+ *
+ *   bytes  0-7   occupancy, bit i set when tile i holds a piece
+ *   bytes  8-23  one 4 bit code per occupied tile (its bitboard index, alliance * 6 + piece type) in tile
+ *                order, the first tile in the low nibble of bytes 8-15, the seventeenth in bytes 16-23
+ *   bytes 24-31  state, packed as Fen packs it: side to move (bit 0), castling rights (1-4), en passant
+ *                tile + 1 (5-11), half move clock (12-27), full move number (28-59)
+ *
+ * The longs are read and written with the byte order of the buffer handed in. A position can have
+ * at most 32 pieces.
+ */
+public final class BoardCodec {
+
+    public static final int ENCODED_BYTES = 32;
+    public static final int MAX_PIECES = 32;
+
+    private static final int PIECES_PER_LONG = 16;
+
+    private BoardCodec(){
+        throw new RuntimeException("Not Instantiable!");
+    }
+
+    // write the board to buffer[offset, offset + ENCODED_BYTES)
+    public static void encode(final Board board, final ByteBuffer buffer, final int offset){
+        encode(board.getBitboards(), board.getMoveMaker().ordinal(), board.getCastlingRights(),
+                board.getEnPassantSquare(), board.getHalfMoveClock(), board.getFullMoveNumber(), buffer, offset);
+    }
+
+    public static void encode(final SearchBoard board, final ByteBuffer buffer, final int offset){
+        encode(board.getBitboards(), board.getSideToMove(), board.getCastlingRights(),
+                board.getEnPassantSquare(), board.getHalfMoveClock(), board.getFullMoveNumber(), buffer, offset);
+    }
+
+    // read the board at buffer[offset, offset + ENCODED_BYTES)
+    public static Board decode(final ByteBuffer buffer, final int offset){
+        final long[] bitboards = new long[NUM_BITBOARDS];
+        final long state = decodePieces(buffer, offset, bitboards);
+        final Board.Builder builder = Board.createBuilder(bitboards);
+        builder.setMoveMaker(Fen.getSide(state) == 0 ? Alliance.WHITE : Alliance.BLACK);
+        builder.setCastlingRights(Fen.getCastlingRights(state));
+        builder.setEnPassantSquare(Fen.getEnPassantSquare(state));
+        builder.setHalfMoveClock(Fen.getHalfMoveClock(state));
+        builder.setFullMoveNumber(Fen.getFullMoveNumber(state));
+        return builder.build();
+    }
+
+    // read the board into an existing SearchBoard, without allocating anything
+    public static void decode(final ByteBuffer buffer, final int offset, final SearchBoard board){
+        final long state = decodePieces(buffer, offset, board.getBitboards());
+        board.setPosition(Fen.getSide(state), Fen.getCastlingRights(state), Fen.getEnPassantSquare(state),
+                Fen.getHalfMoveClock(state), Fen.getFullMoveNumber(state));
+    }
+
+    private static void encode(final long[] bitboards,
+                               final int side,
+                               final int castlingRights,
+                               final int enPassantSquare,
+                               final int halfMoveClock,
+                               final int fullMoveNumber,
+                               final ByteBuffer buffer,
+                               final int offset){
+        final long occupancy = bitboards[ALL_PIECES];
+        if(Long.bitCount(occupancy) > MAX_PIECES){
+            throw new IllegalArgumentException("Cannot encode a position with more than " + MAX_PIECES + " pieces");
+        }
+        long lowCodes = 0L;
+        long highCodes = 0L;
+        long pieces = occupancy;
+        int count = 0;
+        while(pieces != 0){
+            final long code = pieceAt(bitboards, firstSquare(pieces));
+            pieces &= pieces - 1;
+            if(count < PIECES_PER_LONG){
+                lowCodes |= code << (4 * count);
+            }else{
+                highCodes |= code << (4 * (count - PIECES_PER_LONG));
+            }
+            count++;
+        }
+        buffer.putLong(offset, occupancy);
+        buffer.putLong(offset + Long.BYTES, lowCodes);
+        buffer.putLong(offset + 2 * Long.BYTES, highCodes);
+        buffer.putLong(offset + 3 * Long.BYTES,
+                Fen.packState(side, castlingRights, enPassantSquare, halfMoveClock, fullMoveNumber));
+    }
+
+    // fill the bitboards, returns the state long without the castling rights and en passant tile they contradict
+    private static long decodePieces(final ByteBuffer buffer, final int offset, final long[] bitboards){
+        for(int index = 0; index < NUM_BITBOARDS; index++){
+            bitboards[index] = 0L;
+        }
+        final long occupancy = buffer.getLong(offset);
+        if(Long.bitCount(occupancy) > MAX_PIECES){
+            throw new IllegalArgumentException("Corrupt position at offset " + offset);
+        }
+        long codes = buffer.getLong(offset + Long.BYTES);
+        long pieces = occupancy;
+        int count = 0;
+        while(pieces != 0){
+            if(count == PIECES_PER_LONG){
+                codes = buffer.getLong(offset + 2 * Long.BYTES);
+            }
+            final int piece = (int) (codes & 0xF);
+            if(piece >= WHITE_PIECES){
+                throw new IllegalArgumentException("Corrupt position at offset " + offset);
+            }
+            bitboards[piece] |= pieces & -pieces;
+            pieces &= pieces - 1;
+            codes >>>= 4;
+            count++;
+        }
+        for(int piece = 0; piece < WHITE_PIECES; piece++){
+            bitboards[WHITE_PIECES + piece / NUM_PIECE_TYPES] |= bitboards[piece];
+        }
+        bitboards[ALL_PIECES] = occupancy;
+        return Fen.checkState(buffer.getLong(offset + 3 * Long.BYTES), bitboards);
+    }
+
+    private static int pieceAt(final long[] bitboards, final int square){
+        for(int piece = 0; piece < WHITE_PIECES; piece++){
+            if((bitboards[piece] & bit(square)) != 0){
+                return piece;
+            }
+        }
+        throw new IllegalStateException("No piece on occupied tile " + square);
+    }
+}
@@ -1,5 +1,7 @@
 package com.chess.engine.board;
 
+import java.util.Arrays;
+
 public class BoardUtils {
 
     public static final boolean[] FIRST_COLUMN = initColumn(0);
@@ -13,6 +15,21 @@ public class BoardUtils {
     public static final int NUM_TILES = 64;
     public static final int NUM_TILES_PER_ROW = 8;
 
+    // tile 0 is a8 and tile 63 is h1
+    public static final String[] ALGEBRAIC_NOTATION = initAlgebraicNotation();
+
+    // castling rights, one bit per alliance and side of the board
+    public static final int WHITE_KING_SIDE_CASTLE = 1;
+    public static final int WHITE_QUEEN_SIDE_CASTLE = 2;
+    public static final int BLACK_KING_SIDE_CASTLE = 4;
+    public static final int BLACK_QUEEN_SIDE_CASTLE = 8;
+    public static final int ALL_CASTLING_RIGHTS = 15;
+
+    // the rights that survive a move touching the tile, moving a king or rook (or capturing a rook) loses them
+    public static final int[] CASTLING_RIGHTS_MASK = initCastlingRightsMask();
+
+    public static final int NO_EN_PASSANT = -1;
+
     private BoardUtils(){
         // and life just got awesome
         throw new RuntimeException("You cannot instantiate no!");
@@ -36,6 +53,35 @@ public class BoardUtils {
         return row;
     }
 
+    private static int[] initCastlingRightsMask() {
+        final int[] mask = new int[NUM_TILES];
+        Arrays.fill(mask, ALL_CASTLING_RIGHTS);
+        mask[0] &= ~BLACK_QUEEN_SIDE_CASTLE;
+        mask[4] &= ~(BLACK_KING_SIDE_CASTLE | BLACK_QUEEN_SIDE_CASTLE);
+        mask[7] &= ~BLACK_KING_SIDE_CASTLE;
+        mask[56] &= ~WHITE_QUEEN_SIDE_CASTLE;
+        mask[60] &= ~(WHITE_KING_SIDE_CASTLE | WHITE_QUEEN_SIDE_CASTLE);
+        mask[63] &= ~WHITE_KING_SIDE_CASTLE;
+        return mask;
+    }
+
+    private static String[] initAlgebraicNotation() {
+        final String[] notation = new String[NUM_TILES];
+        for(int i=0; i<NUM_TILES; i++){
+            notation[i] = "" + (char) ('a' + i % NUM_TILES_PER_ROW) + (char) ('8' - i / NUM_TILES_PER_ROW);
+        }
+        return notation;
+    }
+
+    public static String getPositionAtCoordinate(final int coordinate){
+        return ALGEBRAIC_NOTATION[coordinate];
+    }
+
+    // e.g. "e4" -> 36
+    public static int getCoordinateAtPosition(final String position){
+        return ('8' - position.charAt(1)) * NUM_TILES_PER_ROW + (position.charAt(0) - 'a');
+    }
+
     // a valid tile coordinate lies inside the board
     public static boolean isvalidTileCoordinate(final int coordinate){
         return coordinate >= 0 && coordinate < NUM_TILES;
@@ -0,0 +1,328 @@
+package com.chess.engine.board;
+
+import java.nio.charset.StandardCharsets;
+
+/*
+ * Forsyth-Edwards Notation, e.g. "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1".
+ *
+ * The parser walks the characters once, straight into a bitboard array supplied by the caller, and
+ * hands the rest of the position back packed into a single long, so reading a position allocates
+ * nothing. The clocks may be left out (as in EPD), anything after them is ignored. Positions without
+ * exactly one king per side are rejected, like every other malformed FEN, with an IllegalArgumentException.
+ * Castling rights without the king and rook on their tiles, and an en passant tile no pawn can have
+ * jumped over, are dropped (see checkState): the move generator trusts both.
+ */
+final class Fen {
+
+    // the piece letters by bitboard index, white upper case
+    private static final String PIECE_LETTERS = "PNBRQKpnbrqk";
+
+    // layout of the packed state: side to move, castling rights, en passant tile + 1, half move clock, full move number
+    private static final int CASTLING_SHIFT = 1;
+    private static final int EN_PASSANT_SHIFT = 5;
+    private static final int HALF_MOVE_SHIFT = 12;
+    private static final int FULL_MOVE_SHIFT = 28;
+    private static final int MAX_HALF_MOVE_CLOCK = 0xFFFF;
+
+    private static final int PAWN = 0;
+    private static final int ROOK = 3;
+    private static final int KING = 5;
+
+    // the tiles of the king and the rook every castling right (bits 0-3 of BoardUtils) needs
+    private static final int[] CASTLING_KING_TILES = {60, 60, 4, 4};
+    private static final int[] CASTLING_ROOK_TILES = {63, 56, 7, 0};
+    // the row of the en passant tile by side to move, the jumped pawn stands one row further on
+    private static final int[] EN_PASSANT_ROWS = {2, 5};
+
+    private Fen(){
+        throw new RuntimeException("Not Instantiable!");
+    }
+
+    // parse fen[start, end) into the bitboards, returns the packed state
+    static long parse(final CharSequence fen, final int start, final int end, final long[] bitboards){
+        int i = skipSpaces(fen, start, end);
+        for(int index = 0; index < BitBoards.NUM_BITBOARDS; index++){
+            bitboards[index] = 0L;
+        }
+
+        // the tiles, starting at a8 (tile 0) and ending at h1 (tile 63)
+        int square = 0;
+        int column = 0;
+        for(; i < end && fen.charAt(i) != ' '; i++){
+            final char c = fen.charAt(i);
+            if(c == '/'){
+                if(column != BoardUtils.NUM_TILES_PER_ROW){
+                    throw invalid("row", fen, start, end);
+                }
+                column = 0;
+            }else if(c >= '1' && c <= '8'){
+                square += c - '0';
+                column += c - '0';
+                if(column > BoardUtils.NUM_TILES_PER_ROW){
+                    throw invalid("row", fen, start, end);
+                }
+            }else{
+                final int piece = PIECE_LETTERS.indexOf(c);
+                if(piece < 0 || square >= BoardUtils.NUM_TILES || column >= BoardUtils.NUM_TILES_PER_ROW){
+                    throw invalid("piece", fen, start, end);
+                }
+                bitboards[piece] |= BitBoards.bit(square++);
+                column++;
+            }
+        }
+        if(square != BoardUtils.NUM_TILES){
+            throw invalid("board", fen, start, end);
+        }
+        // the search and the evaluation take the king square of both sides for granted
+        if(Long.bitCount(bitboards[KING]) != 1 || Long.bitCount(bitboards[BitBoards.NUM_PIECE_TYPES + KING]) != 1){
+            throw invalid("kings", fen, start, end);
+        }
+        for(int piece = 0; piece < BitBoards.WHITE_PIECES; piece++){
+            bitboards[BitBoards.WHITE_PIECES + piece / BitBoards.NUM_PIECE_TYPES] |= bitboards[piece];
+        }
+        bitboards[BitBoards.ALL_PIECES] = bitboards[BitBoards.WHITE_PIECES] | bitboards[BitBoards.BLACK_PIECES];
+
+        i = skipSpaces(fen, i, end);
+        if(i >= end || (fen.charAt(i) != 'w' && fen.charAt(i) != 'b')){
+            throw invalid("move maker", fen, start, end);
+        }
+        final int side = fen.charAt(i++) == 'w' ? 0 : 1;
+
+        i = skipSpaces(fen, i, end);
+        int castlingRights = 0;
+        for(; i < end && fen.charAt(i) != ' '; i++){
+            switch(fen.charAt(i)){
+                case 'K':
+                    castlingRights |= BoardUtils.WHITE_KING_SIDE_CASTLE;
+                    break;
+                case 'Q':
+                    castlingRights |= BoardUtils.WHITE_QUEEN_SIDE_CASTLE;
+                    break;
+                case 'k':
+                    castlingRights |= BoardUtils.BLACK_KING_SIDE_CASTLE;
+                    break;
+                case 'q':
+                    castlingRights |= BoardUtils.BLACK_QUEEN_SIDE_CASTLE;
+                    break;
+                case '-':
+                    break;
+                default:
+                    throw invalid("castling rights", fen, start, end);
+            }
+        }
+
+        i = skipSpaces(fen, i, end);
+        int enPassantSquare = BoardUtils.NO_EN_PASSANT;
+        if(i < end && fen.charAt(i) == '-'){
+            i++;
+        }else if(i + 1 < end && fen.charAt(i) >= 'a' && fen.charAt(i) <= 'h' &&
+                (fen.charAt(i + 1) == '3' || fen.charAt(i + 1) == '6')){
+            enPassantSquare = ('8' - fen.charAt(i + 1)) * BoardUtils.NUM_TILES_PER_ROW + (fen.charAt(i) - 'a');
+            i += 2;
+        }else{
+            throw invalid("en passant tile", fen, start, end);
+        }
+
+        // optional clocks
+        int halfMoveClock = 0;
+        int fullMoveNumber = 1;
+        i = skipSpaces(fen, i, end);
+        if(i < end && isDigit(fen.charAt(i))){
+            for(; i < end && isDigit(fen.charAt(i)); i++){
+                halfMoveClock = halfMoveClock * 10 + (fen.charAt(i) - '0');
+                if(halfMoveClock > MAX_HALF_MOVE_CLOCK){
+                    throw invalid("clocks", fen, start, end);
+                }
+            }
+            i = skipSpaces(fen, i, end);
+            if(i < end && isDigit(fen.charAt(i))){
+                fullMoveNumber = 0;
+                for(; i < end && isDigit(fen.charAt(i)); i++){
+                    final int digit = fen.charAt(i) - '0';
+                    if(fullMoveNumber > (Integer.MAX_VALUE - digit) / 10){
+                        throw invalid("clocks", fen, start, end);
+                    }
+                    fullMoveNumber = fullMoveNumber * 10 + digit;
+                }
+            }
+        }
+        if(fullMoveNumber < 1){
+            throw invalid("clocks", fen, start, end);
+        }
+
+        return checkState(packState(side, castlingRights, enPassantSquare, halfMoveClock, fullMoveNumber), bitboards);
+    }
+
+    // the state without the castling rights and en passant tile the pieces contradict
+    static long checkState(final long state, final long[] bitboards){
+        final int side = getSide(state);
+        int castlingRights = getCastlingRights(state);
+        for(int right = 0; right < CASTLING_KING_TILES.length; right++){
+            final int owner = right / 2;
+            if((bitboards[owner * BitBoards.NUM_PIECE_TYPES + KING] & BitBoards.bit(CASTLING_KING_TILES[right])) == 0 ||
+                    (bitboards[owner * BitBoards.NUM_PIECE_TYPES + ROOK] & BitBoards.bit(CASTLING_ROOK_TILES[right])) == 0){
+                castlingRights &= ~(1 << right);
+            }
+        }
+        int enPassantSquare = getEnPassantSquare(state);
+        if(enPassantSquare != BoardUtils.NO_EN_PASSANT){
+            final int jumpedPawn = side == 0 ? enPassantSquare + BoardUtils.NUM_TILES_PER_ROW :
+                    enPassantSquare - BoardUtils.NUM_TILES_PER_ROW;
+            if(enPassantSquare / BoardUtils.NUM_TILES_PER_ROW != EN_PASSANT_ROWS[side] ||
+                    (bitboards[BitBoards.ALL_PIECES] & BitBoards.bit(enPassantSquare)) != 0 ||
+                    (bitboards[(side ^ 1) * BitBoards.NUM_PIECE_TYPES + PAWN] & BitBoards.bit(jumpedPawn)) == 0){
+                enPassantSquare = BoardUtils.NO_EN_PASSANT;
+            }
+        }
+        return packState(side, castlingRights, enPassantSquare, getHalfMoveClock(state), getFullMoveNumber(state));
+    }
+
+    // parse ASCII bytes, e.g. a line of a memory mapped file
+    static long parse(final byte[] fen, final int offset, final int length, final long[] bitboards){
+        return parse(new AsciiSequence(fen, offset, length), 0, length, bitboards);
+    }
+
+    // the packed state, also the state long of BoardCodec; a longer half move clock is cut to the largest that fits
+    static long packState(final int side,
+                          final int castlingRights,
+                          final int enPassantSquare,
+                          final int halfMoveClock,
+                          final int fullMoveNumber){
+        return side |
+                (long) castlingRights << CASTLING_SHIFT |
+                (long) (enPassantSquare + 1) << EN_PASSANT_SHIFT |
+                (long) Math.min(halfMoveClock, MAX_HALF_MOVE_CLOCK) << HALF_MOVE_SHIFT |
+                (long) fullMoveNumber << FULL_MOVE_SHIFT;
+    }
+
+    static int getSide(final long state){
+        return (int) (state & 1);
+    }
+
+    static int getCastlingRights(final long state){
+        return (int) ((state >>> CASTLING_SHIFT) & BoardUtils.ALL_CASTLING_RIGHTS);
+    }
+
+    static int getEnPassantSquare(final long state){
+        return (int) ((state >>> EN_PASSANT_SHIFT) & 0x7F) - 1;
+    }
+
+    static int getHalfMoveClock(final long state){
+        return (int) ((state >>> HALF_MOVE_SHIFT) & MAX_HALF_MOVE_CLOCK);
+    }
+
+    static int getFullMoveNumber(final long state){
+        return (int) (state >>> FULL_MOVE_SHIFT);
+    }
+
+    static void append(final StringBuilder builder,
+                       final long[] bitboards,
+                       final int side,
+                       final int castlingRights,
+                       final int enPassantSquare,
+                       final int halfMoveClock,
+                       final int fullMoveNumber){
+        int empty = 0;
+        for(int square = 0; square < BoardUtils.NUM_TILES; square++){
+            final int piece = pieceAt(bitboards, square);
+            if(piece < 0){
+                empty++;
+            }else{
+                if(empty > 0){
+                    builder.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                builder.append(PIECE_LETTERS.charAt(piece));
+            }
+            if(square % BoardUtils.NUM_TILES_PER_ROW == BoardUtils.NUM_TILES_PER_ROW - 1){
+                if(empty > 0){
+                    builder.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                if(square != BoardUtils.NUM_TILES - 1){
+                    builder.append('/');
+                }
+            }
+        }
+        builder.append(side == 0 ? " w " : " b ");
+        if(castlingRights == 0){
+            builder.append('-');
+        }else{
+            if((castlingRights & BoardUtils.WHITE_KING_SIDE_CASTLE) != 0){
+                builder.append('K');
+            }
+            if((castlingRights & BoardUtils.WHITE_QUEEN_SIDE_CASTLE) != 0){
+                builder.append('Q');
+            }
+            if((castlingRights & BoardUtils.BLACK_KING_SIDE_CASTLE) != 0){
+                builder.append('k');
+            }
+            if((castlingRights & BoardUtils.BLACK_QUEEN_SIDE_CASTLE) != 0){
+                builder.append('q');
+            }
+        }
+        builder.append(' ');
+        builder.append(enPassantSquare == BoardUtils.NO_EN_PASSANT ? "-" : BoardUtils.getPositionAtCoordinate(enPassantSquare));
+        builder.append(' ').append(halfMoveClock).append(' ').append(fullMoveNumber);
+    }
+
+    private static int pieceAt(final long[] bitboards, final int square){
+        if((bitboards[BitBoards.ALL_PIECES] & BitBoards.bit(square)) != 0){
+            for(int piece = 0; piece < BitBoards.WHITE_PIECES; piece++){
+                if((bitboards[piece] & BitBoards.bit(square)) != 0){
+                    return piece;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static int skipSpaces(final CharSequence fen, int i, final int end){
+        while(i < end && (fen.charAt(i) == ' ' || fen.charAt(i) == '\t')){
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isDigit(final char c){
+        return c >= '0' && c <= '9';
+    }
+
+    private static IllegalArgumentException invalid(final String part, final CharSequence fen, final int start, final int end){
+        return new IllegalArgumentException("Invalid FEN " + part + " in " + fen.subSequence(start, end));
+    }
+
+    // a view of ASCII bytes as characters, no copy
+    private static final class AsciiSequence implements CharSequence {
+
+        private final byte[] bytes;
+        private final int offset;
+        private final int length;
+
+        AsciiSequence(final byte[] bytes, final int offset, final int length){
+            this.bytes = bytes;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public int length(){
+            return this.length;
+        }
+
+        @Override
+        public char charAt(final int index){
+            return (char) (this.bytes[this.offset + index] & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(final int start, final int end){
+            return new String(this.bytes, this.offset + start, end - start, StandardCharsets.US_ASCII);
+        }
+
+        @Override
+        public String toString(){
+            return subSequence(0, this.length).toString();
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.chess.engine.board;
+
+import com.chess.engine.pieces.Piece.PieceType;
+
+import static com.chess.engine.board.BitBoards.*;
+
+/*
+ * Everything move generation needs to know about the safety of the king of the side to move, computed
+ * once per position:
+ *
+ *   checkers   the enemy pieces giving check
+ *   pinned     own pieces that are the only piece between the king and an enemy slider
+ *   attacked   every tile the enemy attacks, looking through our king so it cannot step back along a check
+ *   checkMask  the tiles a non king move must land on: anywhere when not in check, the checker or a tile
+ *              between it and the king in single check, nowhere in double check
+ *
+ * With these a move is legal when a king move avoids the attacked tiles, any other move lands in the
+ * check mask and a pinned piece stays on the line through its king and pinner. Only en passant, which
+ * removes two pieces from a row at once, needs an extra look (see isEnPassantLegal).
+ */
+public final class KingSafety {
+
+    private static final int PAWN = PieceType.PAWN.ordinal();
+    private static final int KNIGHT = PieceType.KNIGHT.ordinal();
+    private static final int BISHOP = PieceType.BISHOP.ordinal();
+    private static final int ROOK = PieceType.ROOK.ordinal();
+    private static final int QUEEN = PieceType.QUEEN.ordinal();
+    private static final int KING = PieceType.KING.ordinal();
+
+    private int side;
+    private int kingSquare;
+    private long checkers;
+    private long pinned;
+    private long attacked;
+    private long checkMask;
+
+    public KingSafety(){
+    }
+
+    // compute the masks for the given side (alliance ordinal) of the given bitboards
+    void update(final long[] bitboards, final int side){
+        final int own = side * NUM_PIECE_TYPES;
+        final int enemy = (side ^ 1) * NUM_PIECE_TYPES;
+        final long occupancy = bitboards[ALL_PIECES];
+        final long king = bitboards[own + KING];
+        this.side = side;
+        this.kingSquare = firstSquare(king);
+        this.checkers = 0L;
+        this.pinned = 0L;
+        if(king == 0){
+            // only in hand built test positions, nothing to protect
+            this.attacked = 0L;
+            this.checkMask = ~0L;
+            return;
+        }
+
+        this.checkers = (KNIGHT_ATTACKS[this.kingSquare] & bitboards[enemy + KNIGHT]) |
+                (PAWN_ATTACKS[side][this.kingSquare] & bitboards[enemy + PAWN]);
+
+        // every enemy slider that would see the king on an empty board either checks or pins
+        final long queens = bitboards[enemy + QUEEN];
+        long snipers = (rookAttacks(this.kingSquare, 0L) & (bitboards[enemy + ROOK] | queens)) |
+                (bishopAttacks(this.kingSquare, 0L) & (bitboards[enemy + BISHOP] | queens));
+        while(snipers != 0){
+            final int sniper = firstSquare(snipers);
+            snipers &= snipers - 1;
+            final long blockers = BETWEEN[this.kingSquare][sniper] & occupancy;
+            if(blockers == 0){
+                this.checkers |= bit(sniper);
+            }else if((blockers & (blockers - 1)) == 0 && (blockers & bitboards[WHITE_PIECES + side]) != 0){
+                this.pinned |= blockers;
+            }
+        }
+
+        if(this.checkers == 0){
+            this.checkMask = ~0L;
+        }else if((this.checkers & (this.checkers - 1)) == 0){
+            this.checkMask = this.checkers | BETWEEN[this.kingSquare][firstSquare(this.checkers)];
+        }else{
+            this.checkMask = 0L;
+        }
+
+        this.attacked = attacks(bitboards, side ^ 1, occupancy ^ king);
+    }
+
+    // every tile attacked by the given side with the given occupancy
+    private static long attacks(final long[] bitboards, final int bySide, final long occupancy){
+        final int first = bySide * NUM_PIECE_TYPES;
+        final long king = bitboards[first + KING];
+        long attacks = king == 0 ? 0L : KING_ATTACKS[firstSquare(king)];
+        long pieces = bitboards[first + PAWN];
+        while(pieces != 0){
+            attacks |= PAWN_ATTACKS[bySide][firstSquare(pieces)];
+            pieces &= pieces - 1;
+        }
+        pieces = bitboards[first + KNIGHT];
+        while(pieces != 0){
+            attacks |= KNIGHT_ATTACKS[firstSquare(pieces)];
+            pieces &= pieces - 1;
+        }
+        pieces = bitboards[first + BISHOP] | bitboards[first + QUEEN];
+        while(pieces != 0){
+            attacks |= bishopAttacks(firstSquare(pieces), occupancy);
+            pieces &= pieces - 1;
+        }
+        pieces = bitboards[first + ROOK] | bitboards[first + QUEEN];
+        while(pieces != 0){
+            attacks |= rookAttacks(firstSquare(pieces), occupancy);
+            pieces &= pieces - 1;
+        }
+        return attacks;
+    }
+
+    /*
+     * En passant takes our pawn off its tile and the enemy pawn off the tile next to it, so it can open a
+     * line to the king that no pin mask covers (both pawns on the king's row between it and a rook).
+     * The answer is simply the slider attacks on the king with the occupancy after the capture.
+     */
+    boolean isEnPassantLegal(final long[] bitboards, final int from, final int to){
+        final int victim = enPassantVictim(this.side, to);
+        if((this.checkMask & bit(to)) == 0 && (this.checkers & bit(victim)) == 0){
+            return false;
+        }
+        final int enemy = (this.side ^ 1) * NUM_PIECE_TYPES;
+        final long occupancy = (bitboards[ALL_PIECES] ^ bit(from) ^ bit(victim)) | bit(to);
+        final long queens = bitboards[enemy + QUEEN];
+        return (rookAttacks(this.kingSquare, occupancy) & (bitboards[enemy + ROOK] | queens)) == 0 &&
+                (bishopAttacks(this.kingSquare, occupancy) & (bitboards[enemy + BISHOP] | queens)) == 0;
+    }
+
+    // the tiles a piece on the given tile may move to without exposing its king
+    long pinMask(final int square){
+        return (this.pinned & bit(square)) == 0 ? ~0L : LINE[this.kingSquare][square];
+    }
+
+    public int getKingSquare(){
+        return this.kingSquare;
+    }
+
+    public long getCheckers(){
+        return this.checkers;
+    }
+
+    public long getPinned(){
+        return this.pinned;
+    }
+
+    public long getAttacked(){
+        return this.attacked;
+    }
+
+    public long getCheckMask(){
+        return this.checkMask;
+    }
+
+    public boolean isInCheck(){
+        return this.checkers != 0;
+    }
+
+    public boolean isDoubleCheck(){
+        return (this.checkers & (this.checkers - 1)) != 0;
+    }
+}
@@ -1,22 +1,111 @@
 package com.chess.engine.board;
 
 import com.chess.engine.pieces.Piece;
+import com.google.common.collect.ImmutableList;
+
+import java.util.Collection;
 
 public abstract class Move {
     final Board board;
     final Piece movedPiece;
     final int destinationCoordinate;
 
-    private Move(final Board board, final Piece movedPiece, final int destinationCoordinate){
+    // the same move packed into an int, see PackedMove
+    final int encodedMove;
+
+    private Move(final Board board, final Piece movedPiece, final int destinationCoordinate, final int encodedMove){
         this.board = board;
         this.movedPiece = movedPiece;
         this.destinationCoordinate = destinationCoordinate;
+        this.encodedMove = encodedMove;
+    }
+
+    public int getCurrentCoordinate(){
+        return this.movedPiece.getPiecePosition();
+    }
+
+    public int getDestinationCoordinate(){
+        return this.destinationCoordinate;
+    }
+
+    public Piece getMovedPiece(){
+        return this.movedPiece;
+    }
+
+    public Board getBoard(){
+        return this.board;
+    }
+
+    public int getEncodedMove(){
+        return this.encodedMove;
+    }
+
+    public boolean isAttack(){
+        return false;
+    }
+
+    public Piece getAttackedPiece(){
+        return null;
+    }
+
+    public boolean isPromotion(){
+        return PackedMove.isPromotion(this.encodedMove);
+    }
+
+    public boolean isCastlingMove(){
+        final int flag = PackedMove.getFlag(this.encodedMove);
+        return flag == PackedMove.KING_SIDE_CASTLE || flag == PackedMove.QUEEN_SIDE_CASTLE;
+    }
+
+    public boolean isEnPassant(){
+        return PackedMove.getFlag(this.encodedMove) == PackedMove.EN_PASSANT;
+    }
+
+    // play this move on its board
+    public Board execute(){
+        return this.board.makeMove(this.encodedMove);
+    }
+
+    public Piece.PieceType getPromotionPieceType(){
+        return PackedMove.toPieceType(PackedMove.getPromotion(this.encodedMove));
+    }
+
+    @Override
+    public String toString(){
+        return PackedMove.toString(this.encodedMove);
+    }
+
+    // Move objects only exist at the API boundary, turn a packed move generated on this board into one
+    public static Move createMove(final Board board, final int encodedMove){
+        final Piece movedPiece = board.getTile(PackedMove.getFrom(encodedMove)).getPiece();
+        final int destinationCoordinate = PackedMove.getTo(encodedMove);
+        if(PackedMove.isCapture(encodedMove)){
+            final int attackedCoordinate = PackedMove.getFlag(encodedMove) == PackedMove.EN_PASSANT ?
+                    BitBoards.enPassantVictim(movedPiece.getPieceAlliance().ordinal(), destinationCoordinate) :
+                    destinationCoordinate;
+            return new AttackMove(board, movedPiece, destinationCoordinate,
+                    board.getTile(attackedCoordinate).getPiece(), encodedMove);
+        }
+        return new MajorMove(board, movedPiece, destinationCoordinate, encodedMove);
+    }
+
+    public static Collection<Move> createMoves(final Board board, final MoveList moves){
+        final Move[] created = new Move[moves.size()];
+        for(int i = 0; i < moves.size(); i++){
+            created[i] = createMove(board, moves.get(i));
+        }
+        return ImmutableList.copyOf(created);
     }
 
     public static final class MajorMove extends Move{
 
         public MajorMove(final Board board, final Piece movedPiece, final int destinationCoordinate) {
-            super(board, movedPiece, destinationCoordinate);
+            this(board, movedPiece, destinationCoordinate, PackedMove.create(movedPiece.getPiecePosition(),
+                    destinationCoordinate, movedPiece.getPieceType().ordinal(), PackedMove.NO_PIECE, PackedMove.QUIET));
+        }
+
+        MajorMove(final Board board, final Piece movedPiece, final int destinationCoordinate, final int encodedMove) {
+            super(board, movedPiece, destinationCoordinate, encodedMove);
         }
     }
 
@@ -26,8 +115,25 @@ public abstract class Move {
 
         public AttackMove(final Board board, final Piece movedPiece,
                    int destinationCoordinate, final Piece attackedPiece) {
-            super(board, movedPiece, destinationCoordinate);
+            this(board, movedPiece, destinationCoordinate, attackedPiece, PackedMove.create(movedPiece.getPiecePosition(),
+                    destinationCoordinate, movedPiece.getPieceType().ordinal(), attackedPiece.getPieceType().ordinal(),
+                    PackedMove.QUIET));
+        }
+
+        AttackMove(final Board board, final Piece movedPiece,
+                   int destinationCoordinate, final Piece attackedPiece, final int encodedMove) {
+            super(board, movedPiece, destinationCoordinate, encodedMove);
             this.attackedPiece = attackedPiece;
         }
+
+        @Override
+        public boolean isAttack(){
+            return true;
+        }
+
+        @Override
+        public Piece getAttackedPiece(){
+            return this.attackedPiece;
+        }
     }
 }
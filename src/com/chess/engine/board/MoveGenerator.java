@@ -0,0 +1,289 @@
+package com.chess.engine.board;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.pieces.Piece;
+import com.chess.engine.pieces.Piece.PieceType;
+
+import static com.chess.engine.board.BitBoards.*;
+
+/*
+ * Allocation free, strictly legal move generation.
+ *
+ * Moves are written as packed ints (see PackedMove) into a MoveList handed in by the caller, so a
+ * search can reuse one buffer per ply. The Board methods are the usual entry point, the others work
+ * on the raw bitboard array so every board representation (SearchBoard, the tablebase generator) can
+ * share them.
+ *
+ * Legality comes from the check and pin masks of KingSafety, computed once per position before any
+ * piece is looked at, so no move has to be played to find out whether it leaves the king in check.
+ *
+ * The moves can also be generated by kind, CAPTURES (captures and promotions) or QUIETS (everything
+ * else), so a search can stop before generating the quiet moves it never gets to.
+ */
+public final class MoveGenerator {
+
+    private static final int PAWN = PieceType.PAWN.ordinal();
+    private static final int KNIGHT = PieceType.KNIGHT.ordinal();
+    private static final int BISHOP = PieceType.BISHOP.ordinal();
+    private static final int ROOK = PieceType.ROOK.ordinal();
+    private static final int QUEEN = PieceType.QUEEN.ordinal();
+    private static final int KING = PieceType.KING.ordinal();
+
+    // the row a pawn promotes on and the row it may jump from, indexed by alliance ordinal
+    private static final long[] PROMOTION_ROWS = {ROWS[0], ROWS[7]};
+    private static final long[] PAWN_START_ROWS = {ROWS[6], ROWS[1]};
+    private static final int[] PAWN_PUSH_OFFSETS = {-BoardUtils.NUM_TILES_PER_ROW, BoardUtils.NUM_TILES_PER_ROW};
+    // the tile the king castles from, indexed by alliance ordinal
+    private static final int[] KING_START_TILES = {60, 4};
+
+    // the kinds of moves to generate, to be combined with |
+    public static final int CAPTURES = 1;
+    public static final int QUIETS = 2;
+    public static final int ALL_MOVES = CAPTURES | QUIETS;
+
+    private MoveGenerator(){
+        throw new RuntimeException("You cannot instantiate me!");
+    }
+
+    // all legal moves of the given alliance, returns the number of moves added
+    public static int generateMoves(final Board board, final Alliance alliance, final MoveList moves){
+        return generateMoves(board.getBitboards(), alliance.ordinal(), board.getCastlingRights(),
+                enPassantSquare(board, alliance), new KingSafety(), moves);
+    }
+
+    // the legal moves of a single piece, returns the number of moves added
+    public static int generatePieceMoves(final Board board, final Piece piece, final MoveList moves){
+        final int sizeBefore = moves.size();
+        final int side = piece.getPieceAlliance().ordinal();
+        final KingSafety safety = new KingSafety();
+        safety.update(board.getBitboards(), side);
+        if(piece.getPieceType() == PieceType.KING || !safety.isDoubleCheck()){
+            generatePieceMoves(board.getBitboards(), side, piece.getPieceType().ordinal(), piece.getPiecePosition(),
+                    board.getCastlingRights(), enPassantSquare(board, piece.getPieceAlliance()), safety, ALL_MOVES, moves);
+        }
+        return moves.size() - sizeBefore;
+    }
+
+    // the en passant tile only belongs to the side to move
+    private static int enPassantSquare(final Board board, final Alliance alliance){
+        return alliance == board.getMoveMaker() ? board.getEnPassantSquare() : BoardUtils.NO_EN_PASSANT;
+    }
+
+    /*
+     * All legal moves of the given side. The king safety masks are computed into the given
+     * KingSafety first and stay there for the caller to use (is the side in check, ...).
+     */
+    public static int generateMoves(final long[] bitboards,
+                                    final int side,
+                                    final int castlingRights,
+                                    final int enPassantSquare,
+                                    final KingSafety safety,
+                                    final MoveList moves){
+        safety.update(bitboards, side);
+        return generateMoves(bitboards, side, castlingRights, enPassantSquare, safety, ALL_MOVES, moves);
+    }
+
+    // the legal moves of the given kinds, the KingSafety must be up to date for the side
+    public static int generateMoves(final long[] bitboards,
+                                    final int side,
+                                    final int castlingRights,
+                                    final int enPassantSquare,
+                                    final KingSafety safety,
+                                    final int kinds,
+                                    final MoveList moves){
+        final int sizeBefore = moves.size();
+        final int firstIndex = side * NUM_PIECE_TYPES;
+        // in double check only the king can move
+        final int firstPieceType = safety.isDoubleCheck() ? KING : PAWN;
+        for(int pieceType = firstPieceType; pieceType <= KING; pieceType++){
+            long pieces = bitboards[firstIndex + pieceType];
+            while(pieces != 0){
+                generatePieceMoves(bitboards, side, pieceType, firstSquare(pieces), castlingRights, enPassantSquare,
+                        safety, kinds, moves);
+                pieces &= pieces - 1;
+            }
+        }
+        return moves.size() - sizeBefore;
+    }
+
+    // the legal moves of one piece, the KingSafety must be up to date for the side
+    static void generatePieceMoves(final long[] bitboards,
+                                   final int side,
+                                   final int pieceType,
+                                   final int from,
+                                   final int castlingRights,
+                                   final int enPassantSquare,
+                                   final KingSafety safety,
+                                   final int kinds,
+                                   final MoveList moves){
+        final long occupancy = bitboards[ALL_PIECES];
+        final long targets = targets(bitboards, side, kinds);
+        final long legal = pieceType == KING ? ~safety.getAttacked() : safety.getCheckMask() & safety.pinMask(from);
+        switch(pieceType){
+            case 0:
+                generatePawnMoves(bitboards, side, from, enPassantSquare, legal, safety, kinds, moves);
+                break;
+            case 1:
+                addMoves(bitboards, side, from, KNIGHT, KNIGHT_ATTACKS[from] & targets & legal, moves);
+                break;
+            case 2:
+                addMoves(bitboards, side, from, BISHOP, bishopAttacks(from, occupancy) & targets & legal, moves);
+                break;
+            case 3:
+                addMoves(bitboards, side, from, ROOK, rookAttacks(from, occupancy) & targets & legal, moves);
+                break;
+            case 4:
+                addMoves(bitboards, side, from, QUEEN, queenAttacks(from, occupancy) & targets & legal, moves);
+                break;
+            case 5:
+                addMoves(bitboards, side, from, KING, KING_ATTACKS[from] & targets & legal, moves);
+                if((kinds & QUIETS) != 0){
+                    generateCastlingMoves(bitboards, side, from, castlingRights, safety, moves);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown piece type " + pieceType);
+        }
+    }
+
+    // the tiles a piece may move to for the given kinds of moves: enemy pieces, empty tiles or both
+    private static long targets(final long[] bitboards, final int side, final int kinds){
+        switch(kinds){
+            case CAPTURES:
+                return bitboards[WHITE_PIECES + (side ^ 1)];
+            case QUIETS:
+                return ~bitboards[ALL_PIECES];
+            default:
+                return ~bitboards[WHITE_PIECES + side];
+        }
+    }
+
+    private static void generatePawnMoves(final long[] bitboards,
+                                          final int side,
+                                          final int from,
+                                          final int enPassantSquare,
+                                          final long legal,
+                                          final KingSafety safety,
+                                          final int kinds,
+                                          final MoveList moves){
+        final long occupancy = bitboards[ALL_PIECES];
+        final int pushOffset = PAWN_PUSH_OFFSETS[side];
+
+        // one step forward onto an empty tile, two steps from the starting row, promotions count as captures
+        final int to = from + pushOffset;
+        if((occupancy & bit(to)) == 0){
+            final boolean promotion = (PROMOTION_ROWS[side] & bit(to)) != 0;
+            if((legal & bit(to)) != 0){
+                if(promotion){
+                    if((kinds & CAPTURES) != 0){
+                        addPromotions(from, to, PackedMove.NO_PIECE, moves);
+                    }
+                }else if((kinds & QUIETS) != 0){
+                    moves.add(PackedMove.create(from, to, PAWN, PackedMove.NO_PIECE, PackedMove.QUIET));
+                }
+            }
+            final int jumpTo = to + pushOffset;
+            if((kinds & QUIETS) != 0 && (PAWN_START_ROWS[side] & bit(from)) != 0 && (occupancy & bit(jumpTo)) == 0 &&
+                    (legal & bit(jumpTo)) != 0){
+                moves.add(PackedMove.create(from, jumpTo, PAWN, PackedMove.NO_PIECE, PackedMove.DOUBLE_PAWN_PUSH));
+            }
+        }
+        if((kinds & CAPTURES) == 0){
+            return;
+        }
+
+        // diagonal captures of enemy pieces
+        long attacks = PAWN_ATTACKS[side][from] & bitboards[WHITE_PIECES + (side ^ 1)] & legal;
+        while(attacks != 0){
+            final int attackTo = firstSquare(attacks);
+            attacks &= attacks - 1;
+            final int captured = pieceTypeAt(bitboards, side ^ 1, attackTo);
+            if((PROMOTION_ROWS[side] & bit(attackTo)) != 0){
+                addPromotions(from, attackTo, captured, moves);
+            }else{
+                moves.add(PackedMove.create(from, attackTo, PAWN, captured, PackedMove.QUIET));
+            }
+        }
+
+        // taking the pawn that just jumped past us
+        if(enPassantSquare != BoardUtils.NO_EN_PASSANT && (PAWN_ATTACKS[side][from] & bit(enPassantSquare)) != 0 &&
+                safety.isEnPassantLegal(bitboards, from, enPassantSquare)){
+            moves.add(PackedMove.create(from, enPassantSquare, PAWN, PAWN, PackedMove.EN_PASSANT));
+        }
+    }
+
+    // the king and rook must be unmoved (castling rights) and still on their tiles, the tiles between them
+    // empty and the king may not start on, pass through or land on an attacked tile
+    private static void generateCastlingMoves(final long[] bitboards,
+                                              final int side,
+                                              final int from,
+                                              final int castlingRights,
+                                              final KingSafety safety,
+                                              final MoveList moves){
+        final int kingSide = side == 0 ? BoardUtils.WHITE_KING_SIDE_CASTLE : BoardUtils.BLACK_KING_SIDE_CASTLE;
+        final int queenSide = side == 0 ? BoardUtils.WHITE_QUEEN_SIDE_CASTLE : BoardUtils.BLACK_QUEEN_SIDE_CASTLE;
+        if((castlingRights & (kingSide | queenSide)) == 0 || from != KING_START_TILES[side] || safety.isInCheck()){
+            return;
+        }
+        final long occupancy = bitboards[ALL_PIECES];
+        final long attacked = safety.getAttacked();
+        final long rooks = bitboards[side * NUM_PIECE_TYPES + ROOK];
+        if((castlingRights & kingSide) != 0 && (rooks & bit(from + 3)) != 0 &&
+                (occupancy & (bit(from + 1) | bit(from + 2))) == 0 &&
+                (attacked & (bit(from + 1) | bit(from + 2))) == 0){
+            moves.add(PackedMove.create(from, from + 2, KING, PackedMove.NO_PIECE, PackedMove.KING_SIDE_CASTLE));
+        }
+        if((castlingRights & queenSide) != 0 && (rooks & bit(from - 4)) != 0 &&
+                (occupancy & (bit(from - 1) | bit(from - 2) | bit(from - 3))) == 0 &&
+                (attacked & (bit(from - 1) | bit(from - 2))) == 0){
+            moves.add(PackedMove.create(from, from - 2, KING, PackedMove.NO_PIECE, PackedMove.QUEEN_SIDE_CASTLE));
+        }
+    }
+
+    // is the tile attacked by any piece of the given side
+    public static boolean isSquareAttacked(final long[] bitboards, final int square, final int bySide){
+        final int attackers = bySide * NUM_PIECE_TYPES;
+        final long occupancy = bitboards[ALL_PIECES];
+        final long queens = bitboards[attackers + QUEEN];
+        // a pawn of the other side standing on the tile would attack exactly the tiles our pawns attack it from
+        return (PAWN_ATTACKS[bySide ^ 1][square] & bitboards[attackers + PAWN]) != 0 ||
+                (KNIGHT_ATTACKS[square] & bitboards[attackers + KNIGHT]) != 0 ||
+                (KING_ATTACKS[square] & bitboards[attackers + KING]) != 0 ||
+                (bishopAttacks(square, occupancy) & (bitboards[attackers + BISHOP] | queens)) != 0 ||
+                (rookAttacks(square, occupancy) & (bitboards[attackers + ROOK] | queens)) != 0;
+    }
+
+    private static void addPromotions(final int from, final int to, final int captured, final MoveList moves){
+        moves.add(PackedMove.createPromotion(from, to, captured, QUEEN));
+        moves.add(PackedMove.createPromotion(from, to, captured, ROOK));
+        moves.add(PackedMove.createPromotion(from, to, captured, BISHOP));
+        moves.add(PackedMove.createPromotion(from, to, captured, KNIGHT));
+    }
+
+    private static void addMoves(final long[] bitboards,
+                                 final int side,
+                                 final int from,
+                                 final int pieceType,
+                                 long targets,
+                                 final MoveList moves){
+        final long enemies = bitboards[WHITE_PIECES + (side ^ 1)];
+        while(targets != 0){
+            final int to = firstSquare(targets);
+            targets &= targets - 1;
+            final int captured = (enemies & bit(to)) != 0 ? pieceTypeAt(bitboards, side ^ 1, to) : PackedMove.NO_PIECE;
+            moves.add(PackedMove.create(from, to, pieceType, captured, PackedMove.QUIET));
+        }
+    }
+
+    // the type of the piece of the given side on a tile, NO_PIECE if there is none
+    static int pieceTypeAt(final long[] bitboards, final int side, final int square){
+        final long target = bit(square);
+        final int firstIndex = side * NUM_PIECE_TYPES;
+        for(int pieceType = PAWN; pieceType <= KING; pieceType++){
+            if((bitboards[firstIndex + pieceType] & target) != 0){
+                return pieceType;
+            }
+        }
+        return PackedMove.NO_PIECE;
+    }
+}
@@ -0,0 +1,74 @@
+package com.chess.engine.board;
+
+/*
+ * A reusable buffer of packed moves.
+ *
+ * Search and perft keep one MoveList per ply and clear it instead of allocating a new collection at
+ * every node, so generating moves creates no garbage at all.
+ */
+public final class MoveList {
+
+    // no legal chess position has more than 218 moves
+    public static final int MAX_MOVES = 256;
+
+    private final int[] moves;
+    private int size;
+
+    public MoveList(){
+        this.moves = new int[MAX_MOVES];
+        this.size = 0;
+    }
+
+    // one buffer per ply, to be allocated once up front by a search or perft thread
+    public static MoveList[] createPlyBuffers(final int maxPly){
+        final MoveList[] buffers = new MoveList[maxPly];
+        for(int i = 0; i < maxPly; i++){
+            buffers[i] = new MoveList();
+        }
+        return buffers;
+    }
+
+    public void add(final int move){
+        this.moves[this.size++] = move;
+    }
+
+    public int get(final int index){
+        return this.moves[index];
+    }
+
+    public void set(final int index, final int move){
+        this.moves[index] = move;
+    }
+
+    public int size(){
+        return this.size;
+    }
+
+    public boolean isEmpty(){
+        return this.size == 0;
+    }
+
+    public void clear(){
+        this.size = 0;
+    }
+
+    // drop every move from the given index on
+    public void truncate(final int size){
+        this.size = size;
+    }
+
+    public boolean contains(final int move){
+        for(int i = 0; i < this.size; i++){
+            if(this.moves[i] == move){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void swap(final int i, final int j){
+        final int move = this.moves[i];
+        this.moves[i] = this.moves[j];
+        this.moves[j] = move;
+    }
+}
@@ -0,0 +1,88 @@
+package com.chess.engine.board;
+
+import com.chess.engine.pieces.Piece.PieceType;
+
+/*
+ * A move packed into a single int, so move generation does not have to allocate anything.
+ *
+ *  bits  0- 5  from tile
+ *  bits  6-11  to tile
+ *  bits 12-14  moved piece type (PieceType ordinal)
+ *  bits 15-17  captured piece type (PieceType ordinal or NO_PIECE)
+ *  bits 18-20  flag (QUIET, DOUBLE_PAWN_PUSH, ...)
+ *  bits 21-23  promotion piece type (PieceType ordinal or NO_PIECE)
+ *
+ * A real move always has a captured and a promotion field, so 0 can never be a move and is used as NULL_MOVE.
+ */
+public final class PackedMove {
+
+    public static final int NULL_MOVE = 0;
+    public static final int NO_PIECE = 7;
+
+    public static final int QUIET = 0;
+    public static final int DOUBLE_PAWN_PUSH = 1;
+    public static final int KING_SIDE_CASTLE = 2;
+    public static final int QUEEN_SIDE_CASTLE = 3;
+    public static final int EN_PASSANT = 4;
+    public static final int PROMOTION = 5;
+
+    private static final PieceType[] PIECE_TYPES = PieceType.values();
+
+    private PackedMove(){
+        throw new RuntimeException("You cannot instantiate me!");
+    }
+
+    public static int create(final int from, final int to, final int piece, final int captured, final int flag){
+        return from | (to << 6) | (piece << 12) | (captured << 15) | (flag << 18) | (NO_PIECE << 21);
+    }
+
+    public static int createPromotion(final int from, final int to, final int captured, final int promotion){
+        return from | (to << 6) | (PieceType.PAWN.ordinal() << 12) | (captured << 15) | (PROMOTION << 18) | (promotion << 21);
+    }
+
+    public static int getFrom(final int move){
+        return move & 0x3F;
+    }
+
+    public static int getTo(final int move){
+        return (move >>> 6) & 0x3F;
+    }
+
+    public static int getPiece(final int move){
+        return (move >>> 12) & 0x7;
+    }
+
+    public static int getCaptured(final int move){
+        return (move >>> 15) & 0x7;
+    }
+
+    public static int getFlag(final int move){
+        return (move >>> 18) & 0x7;
+    }
+
+    public static int getPromotion(final int move){
+        return (move >>> 21) & 0x7;
+    }
+
+    public static boolean isCapture(final int move){
+        return getCaptured(move) != NO_PIECE;
+    }
+
+    public static boolean isPromotion(final int move){
+        return getFlag(move) == PROMOTION;
+    }
+
+    // piece type codes back to the enum, null for NO_PIECE
+    public static PieceType toPieceType(final int code){
+        return code == NO_PIECE ? null : PIECE_TYPES[code];
+    }
+
+    // long algebraic notation on the tile numbering of the board, e.g. e2e4 or e7e8q
+    public static String toString(final int move){
+        if(move == NULL_MOVE){
+            return "0000";
+        }
+        final String text = BoardUtils.getPositionAtCoordinate(getFrom(move)) + BoardUtils.getPositionAtCoordinate(getTo(move));
+        return isPromotion(move) ? text + PIECE_TYPES[getPromotion(move)].toString().toLowerCase() : text;
+    }
+}
@@ -0,0 +1,484 @@
+package com.chess.engine.board;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.pieces.Piece;
+
+import java.util.Arrays;
+
+import static com.chess.engine.board.BitBoards.*;
+
+/*
+ * The mutable board used by search and perft.
+ *
+ * Board is an immutable value, every move builds a new one. A SearchBoard is created once from a Board
+ * and then moves are played and taken back in place: makeMove only touches the tiles of the move, the
+ * castling rights, en passant tile and side to move, and pushes what it needs to restore them on an
+ * undo stack so unmakeMove can go back exactly one move.
+ *
+ * The Zobrist key and the pawn key are updated along with the pieces, and so are the material plus
+ * piece-square score and the game phase the evaluation starts from, so they never need a scan of the
+ * board. Every key played through is kept on the undo stack and counted in a small table indexed by its
+ * low bits, so the usual "no repetition" answer costs a single array lookup and only a possible
+ * repetition scans back to the last irreversible move.
+ *
+ * A SearchBoard is not thread safe, every search thread works on its own copy().
+ */
+public final class SearchBoard {
+
+    // longest game plus search line the undo stack can hold
+    public static final int MAX_HISTORY = 2048;
+
+    public static final int EMPTY = -1;
+
+    private static final int REPETITION_TABLE_SIZE = 1 << 14;
+
+    private static final int PAWN = Piece.PieceType.PAWN.ordinal();
+    private static final int ROOK = Piece.PieceType.ROOK.ordinal();
+    private static final int KING = Piece.PieceType.KING.ordinal();
+
+    private final long[] bitboards;
+    // the piece on every tile as its bitboard index (alliance * 6 + piece type) or EMPTY
+    private final int[] mailbox;
+
+    private int sideToMove;
+    private int castlingRights;
+    private int enPassantSquare;
+    private int halfMoveClock;
+    private int fullMoveNumber;
+    private long zobristKey;
+    private long pawnKey;
+    // material and piece-square values of both sides, packed (see PieceSquareTable), white minus black
+    private int pieceSquareScore;
+    private int gamePhase;
+
+    // undo stack, indexed by the number of moves played
+    private int historySize;
+    private final int[] moveHistory;
+    private final int[] castlingHistory;
+    private final int[] enPassantHistory;
+    private final int[] halfMoveHistory;
+    private final long[] keyHistory;
+
+    // how many positions played through (including the current one) share the low bits of a key
+    private final short[] repetitionCounts;
+
+    // the check and pin masks of the last position moves were generated for
+    private final KingSafety kingSafety;
+    // do the masks still belong to the current position, every move played or taken back outdates them
+    private boolean kingSafetyCurrent;
+    // the moves of one piece, for isLegal
+    private final MoveList pieceMoves = new MoveList();
+
+    public SearchBoard(final Board board){
+        this.bitboards = board.getBitboards().clone();
+        this.mailbox = new int[BoardUtils.NUM_TILES];
+        this.moveHistory = new int[MAX_HISTORY];
+        this.castlingHistory = new int[MAX_HISTORY];
+        this.enPassantHistory = new int[MAX_HISTORY];
+        this.halfMoveHistory = new int[MAX_HISTORY];
+        this.keyHistory = new long[MAX_HISTORY];
+        this.repetitionCounts = new short[REPETITION_TABLE_SIZE];
+        this.kingSafety = new KingSafety();
+        initPosition(board.getMoveMaker().ordinal(), board.getCastlingRights(), board.getEnPassantSquare(),
+                board.getHalfMoveClock(), board.getFullMoveNumber());
+    }
+
+    // a board of the position in Forsyth-Edwards Notation
+    public SearchBoard(final CharSequence fen){
+        this(Board.fromFEN(fen));
+    }
+
+    /*
+     * Replace the position with the one in fen[start, end), forgetting the moves played so far.
+     * Everything is parsed into the arrays this board already has, so loading millions of positions
+     * into one SearchBoard allocates nothing. After an IllegalArgumentException for an invalid FEN
+     * the board has to be set again before it can be used.
+     */
+    public void setFEN(final CharSequence fen, final int start, final int end){
+        final long state = Fen.parse(fen, start, end, this.bitboards);
+        setPosition(Fen.getSide(state), Fen.getCastlingRights(state), Fen.getEnPassantSquare(state),
+                Fen.getHalfMoveClock(state), Fen.getFullMoveNumber(state));
+    }
+
+    public void setFEN(final CharSequence fen){
+        setFEN(fen, 0, fen.length());
+    }
+
+    // the same from ASCII bytes
+    public void setFEN(final byte[] fen, final int offset, final int length){
+        final long state = Fen.parse(fen, offset, length, this.bitboards);
+        setPosition(Fen.getSide(state), Fen.getCastlingRights(state), Fen.getEnPassantSquare(state),
+                Fen.getHalfMoveClock(state), Fen.getFullMoveNumber(state));
+    }
+
+    public String toFEN(){
+        final StringBuilder builder = new StringBuilder(90);
+        Fen.append(builder, this.bitboards, this.sideToMove, this.castlingRights, this.enPassantSquare,
+                this.halfMoveClock, this.fullMoveNumber);
+        return builder.toString();
+    }
+
+    // only the keys played through are counted, so taking them out again empties the repetition table
+    private void clearHistory(){
+        for(int i = 0; i < this.historySize; i++){
+            this.repetitionCounts[repetitionIndex(this.keyHistory[i])]--;
+        }
+        this.repetitionCounts[repetitionIndex(this.zobristKey)]--;
+        this.historySize = 0;
+    }
+
+    /*
+     * Start over from the position the bitboards have just been filled with (see BoardCodec),
+     * everything else is given here and the history is emptied.
+     */
+    void setPosition(final int sideToMove,
+                     final int castlingRights,
+                     final int enPassantSquare,
+                     final int halfMoveClock,
+                     final int fullMoveNumber){
+        clearHistory();
+        initPosition(sideToMove, castlingRights, enPassantSquare, halfMoveClock, fullMoveNumber);
+    }
+
+    private void initPosition(final int sideToMove,
+                              final int castlingRights,
+                              final int enPassantSquare,
+                              final int halfMoveClock,
+                              final int fullMoveNumber){
+        // the evaluation and the check detection take the king square of both sides for granted
+        if(Long.bitCount(this.bitboards[KING]) != 1 || Long.bitCount(this.bitboards[NUM_PIECE_TYPES + KING]) != 1){
+            throw new IllegalArgumentException("A position needs exactly one king per side");
+        }
+        Arrays.fill(this.mailbox, EMPTY);
+        this.pieceSquareScore = 0;
+        this.gamePhase = 0;
+        for(int index = 0; index < WHITE_PIECES; index++){
+            long pieces = this.bitboards[index];
+            while(pieces != 0){
+                final int square = firstSquare(pieces);
+                this.mailbox[square] = index;
+                this.pieceSquareScore += PieceSquareTable.score(index, square);
+                this.gamePhase += PieceSquareTable.phase(index % NUM_PIECE_TYPES);
+                pieces &= pieces - 1;
+            }
+        }
+        this.sideToMove = sideToMove;
+        this.castlingRights = castlingRights;
+        this.enPassantSquare = enPassantSquare;
+        this.halfMoveClock = halfMoveClock;
+        this.fullMoveNumber = fullMoveNumber;
+        this.historySize = 0;
+        this.zobristKey = Zobrist.computeKey(this.bitboards, sideToMove, castlingRights, enPassantSquare);
+        this.pawnKey = Zobrist.computePawnKey(this.bitboards);
+        this.repetitionCounts[repetitionIndex(this.zobristKey)]++;
+        this.kingSafetyCurrent = false;
+    }
+
+    private SearchBoard(final SearchBoard other){
+        this.bitboards = other.bitboards.clone();
+        this.mailbox = other.mailbox.clone();
+        this.sideToMove = other.sideToMove;
+        this.castlingRights = other.castlingRights;
+        this.enPassantSquare = other.enPassantSquare;
+        this.halfMoveClock = other.halfMoveClock;
+        this.fullMoveNumber = other.fullMoveNumber;
+        this.historySize = other.historySize;
+        this.moveHistory = other.moveHistory.clone();
+        this.castlingHistory = other.castlingHistory.clone();
+        this.enPassantHistory = other.enPassantHistory.clone();
+        this.halfMoveHistory = other.halfMoveHistory.clone();
+        this.keyHistory = other.keyHistory.clone();
+        this.zobristKey = other.zobristKey;
+        this.pawnKey = other.pawnKey;
+        this.pieceSquareScore = other.pieceSquareScore;
+        this.gamePhase = other.gamePhase;
+        this.repetitionCounts = other.repetitionCounts.clone();
+        this.kingSafety = new KingSafety();
+        this.kingSafetyCurrent = false;
+    }
+
+    // an independent copy, including the moves played so far
+    public SearchBoard copy(){
+        return new SearchBoard(this);
+    }
+
+    // back to an immutable Board at the API boundary
+    public Board toBoard(){
+        final Board.Builder builder = Board.createBuilder(this.bitboards);
+        builder.setMoveMaker(getMoveMaker());
+        builder.setCastlingRights(this.castlingRights);
+        builder.setEnPassantSquare(this.enPassantSquare);
+        builder.setHalfMoveClock(this.halfMoveClock);
+        builder.setFullMoveNumber(this.fullMoveNumber);
+        return builder.build();
+    }
+
+    // all legal moves of the side to move, returns the number of moves added
+    public int generateMoves(final MoveList moves){
+        this.kingSafetyCurrent = true;
+        return MoveGenerator.generateMoves(this.bitboards, this.sideToMove, this.castlingRights,
+                this.enPassantSquare, this.kingSafety, moves);
+    }
+
+    // only the legal moves of the given MoveGenerator kinds (CAPTURES, QUIETS), returns the number of moves added
+    public int generateMoves(final MoveList moves, final int kinds){
+        updateKingSafety();
+        return MoveGenerator.generateMoves(this.bitboards, this.sideToMove, this.castlingRights,
+                this.enPassantSquare, this.kingSafety, kinds, moves);
+    }
+
+    /*
+     * Is a packed move from elsewhere (the transposition table, a killer move of a sibling node) legal
+     * here. Only the moves of the piece on its from tile are generated to find out.
+     */
+    public boolean isLegal(final int move){
+        if(move == PackedMove.NULL_MOVE){
+            return false;
+        }
+        final int from = PackedMove.getFrom(move);
+        final int pieceType = PackedMove.getPiece(move);
+        if(this.mailbox[from] != this.sideToMove * NUM_PIECE_TYPES + pieceType){
+            return false;
+        }
+        updateKingSafety();
+        if(this.kingSafety.isDoubleCheck() && pieceType != Piece.PieceType.KING.ordinal()){
+            return false;
+        }
+        final int kinds = PackedMove.isCapture(move) || PackedMove.isPromotion(move) ?
+                MoveGenerator.CAPTURES : MoveGenerator.QUIETS;
+        this.pieceMoves.clear();
+        MoveGenerator.generatePieceMoves(this.bitboards, this.sideToMove, pieceType, from, this.castlingRights,
+                this.enPassantSquare, this.kingSafety, kinds, this.pieceMoves);
+        return this.pieceMoves.contains(move);
+    }
+
+    private void updateKingSafety(){
+        if(!this.kingSafetyCurrent){
+            this.kingSafety.update(this.bitboards, this.sideToMove);
+            this.kingSafetyCurrent = true;
+        }
+    }
+
+    // the king safety masks of the position the last generateMoves ran on
+    public KingSafety getKingSafety(){
+        return this.kingSafety;
+    }
+
+    // play a legal packed move generated on this board, take it back with unmakeMove
+    public void makeMove(final int move){
+        final int side = this.sideToMove;
+        this.kingSafetyCurrent = false;
+        this.moveHistory[this.historySize] = move;
+        this.castlingHistory[this.historySize] = this.castlingRights;
+        this.enPassantHistory[this.historySize] = this.enPassantSquare;
+        this.halfMoveHistory[this.historySize] = this.halfMoveClock;
+        this.keyHistory[this.historySize] = this.zobristKey;
+        this.historySize++;
+        this.zobristKey ^= Zobrist.castlingKey(this.castlingRights) ^
+                Zobrist.enPassantKey(this.bitboards, side, this.enPassantSquare);
+
+        final int from = PackedMove.getFrom(move);
+        final int to = PackedMove.getTo(move);
+        final int flag = PackedMove.getFlag(move);
+        final int captured = PackedMove.getCaptured(move);
+        final int piece = side * NUM_PIECE_TYPES + PackedMove.getPiece(move);
+
+        if(captured != PackedMove.NO_PIECE){
+            removePiece((side ^ 1) * NUM_PIECE_TYPES + captured,
+                    flag == PackedMove.EN_PASSANT ? enPassantVictim(side, to) : to);
+        }
+        movePiece(piece, from, to);
+        if(flag == PackedMove.PROMOTION){
+            removePiece(piece, to);
+            addPiece(side * NUM_PIECE_TYPES + PackedMove.getPromotion(move), to);
+        }else if(flag == PackedMove.KING_SIDE_CASTLE || flag == PackedMove.QUEEN_SIDE_CASTLE){
+            movePiece(side * NUM_PIECE_TYPES + ROOK, castlingRookFrom(flag, to), castlingRookTo(flag, to));
+        }
+        this.bitboards[ALL_PIECES] = this.bitboards[WHITE_PIECES] | this.bitboards[BLACK_PIECES];
+
+        this.castlingRights &= BoardUtils.CASTLING_RIGHTS_MASK[from] & BoardUtils.CASTLING_RIGHTS_MASK[to];
+        this.enPassantSquare = flag == PackedMove.DOUBLE_PAWN_PUSH ? (from + to) / 2 : BoardUtils.NO_EN_PASSANT;
+        this.halfMoveClock = PackedMove.getPiece(move) == PAWN || captured != PackedMove.NO_PIECE ? 0 : this.halfMoveClock + 1;
+        if(side == 1){
+            this.fullMoveNumber++;
+        }
+        this.sideToMove = side ^ 1;
+        this.zobristKey ^= Zobrist.SIDE_KEY ^ Zobrist.castlingKey(this.castlingRights) ^
+                Zobrist.enPassantKey(this.bitboards, this.sideToMove, this.enPassantSquare);
+        this.repetitionCounts[repetitionIndex(this.zobristKey)]++;
+    }
+
+    // take back the last move played with makeMove
+    public void unmakeMove(){
+        this.kingSafetyCurrent = false;
+        this.repetitionCounts[repetitionIndex(this.zobristKey)]--;
+        this.historySize--;
+        final int move = this.moveHistory[this.historySize];
+        final int side = this.sideToMove ^ 1;
+
+        final int from = PackedMove.getFrom(move);
+        final int to = PackedMove.getTo(move);
+        final int flag = PackedMove.getFlag(move);
+        final int captured = PackedMove.getCaptured(move);
+        final int piece = side * NUM_PIECE_TYPES + PackedMove.getPiece(move);
+
+        if(flag == PackedMove.PROMOTION){
+            removePiece(side * NUM_PIECE_TYPES + PackedMove.getPromotion(move), to);
+            addPiece(piece, to);
+        }else if(flag == PackedMove.KING_SIDE_CASTLE || flag == PackedMove.QUEEN_SIDE_CASTLE){
+            movePiece(side * NUM_PIECE_TYPES + ROOK, castlingRookTo(flag, to), castlingRookFrom(flag, to));
+        }
+        movePiece(piece, to, from);
+        if(captured != PackedMove.NO_PIECE){
+            addPiece((side ^ 1) * NUM_PIECE_TYPES + captured,
+                    flag == PackedMove.EN_PASSANT ? enPassantVictim(side, to) : to);
+        }
+        this.bitboards[ALL_PIECES] = this.bitboards[WHITE_PIECES] | this.bitboards[BLACK_PIECES];
+
+        this.castlingRights = this.castlingHistory[this.historySize];
+        this.enPassantSquare = this.enPassantHistory[this.historySize];
+        this.halfMoveClock = this.halfMoveHistory[this.historySize];
+        this.zobristKey = this.keyHistory[this.historySize];
+        if(side == 1){
+            this.fullMoveNumber--;
+        }
+        this.sideToMove = side;
+    }
+
+    private void addPiece(final int piece, final int square){
+        final long target = bit(square);
+        this.bitboards[piece] |= target;
+        this.bitboards[WHITE_PIECES + piece / NUM_PIECE_TYPES] |= target;
+        this.mailbox[square] = piece;
+        this.zobristKey ^= Zobrist.pieceKey(piece, square);
+        this.pawnKey ^= Zobrist.pawnKey(piece, square);
+        this.pieceSquareScore += PieceSquareTable.score(piece, square);
+        this.gamePhase += PieceSquareTable.phase(piece % NUM_PIECE_TYPES);
+    }
+
+    private void removePiece(final int piece, final int square){
+        final long target = bit(square);
+        this.bitboards[piece] &= ~target;
+        this.bitboards[WHITE_PIECES + piece / NUM_PIECE_TYPES] &= ~target;
+        this.mailbox[square] = EMPTY;
+        this.zobristKey ^= Zobrist.pieceKey(piece, square);
+        this.pawnKey ^= Zobrist.pawnKey(piece, square);
+        this.pieceSquareScore -= PieceSquareTable.score(piece, square);
+        this.gamePhase -= PieceSquareTable.phase(piece % NUM_PIECE_TYPES);
+    }
+
+    private void movePiece(final int piece, final int from, final int to){
+        final long fromTo = bit(from) | bit(to);
+        this.bitboards[piece] ^= fromTo;
+        this.bitboards[WHITE_PIECES + piece / NUM_PIECE_TYPES] ^= fromTo;
+        this.mailbox[from] = EMPTY;
+        this.mailbox[to] = piece;
+        this.zobristKey ^= Zobrist.pieceKey(piece, from) ^ Zobrist.pieceKey(piece, to);
+        this.pawnKey ^= Zobrist.pawnKey(piece, from) ^ Zobrist.pawnKey(piece, to);
+        this.pieceSquareScore += PieceSquareTable.score(piece, to) - PieceSquareTable.score(piece, from);
+    }
+
+    private static int repetitionIndex(final long key){
+        return (int) key & (REPETITION_TABLE_SIZE - 1);
+    }
+
+    // has the current position been on the board before since the last capture or pawn move
+    public boolean isRepetition(){
+        if(this.repetitionCounts[repetitionIndex(this.zobristKey)] < 2){
+            return false;
+        }
+        final int oldest = Math.max(0, this.historySize - this.halfMoveClock);
+        for(int i = this.historySize - 2; i >= oldest; i -= 2){
+            if(this.keyHistory[i] == this.zobristKey){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public long getZobristKey(){
+        return this.zobristKey;
+    }
+
+    // the Zobrist key of the pawns alone, see Zobrist.computePawnKey
+    public long getPawnKey(){
+        return this.pawnKey;
+    }
+
+    // the running material plus piece-square score, packed middlegame and endgame, from white's point of view
+    public int getPieceSquareScore(){
+        return this.pieceSquareScore;
+    }
+
+    // the sum of PieceSquareTable.phase over the pieces on the board, MAX_PHASE in the starting position
+    public int getGamePhase(){
+        return this.gamePhase;
+    }
+
+    // is the king of the given side (alliance ordinal) attacked
+    public boolean isInCheck(final int side){
+        final long king = this.bitboards[side * NUM_PIECE_TYPES + Piece.PieceType.KING.ordinal()];
+        return king != 0 && MoveGenerator.isSquareAttacked(this.bitboards, firstSquare(king), side ^ 1);
+    }
+
+    public boolean isInCheck(){
+        return isInCheck(this.sideToMove);
+    }
+
+    // the piece on the tile as its bitboard index (alliance * 6 + piece type), or EMPTY
+    public int getPiece(final int square){
+        return this.mailbox[square];
+    }
+
+    public long getBitboard(final int index){
+        return this.bitboards[index];
+    }
+
+    long[] getBitboards(){
+        return this.bitboards;
+    }
+
+    // alliance ordinal of the side to move
+    public int getSideToMove(){
+        return this.sideToMove;
+    }
+
+    public Alliance getMoveMaker(){
+        return this.sideToMove == 0 ? Alliance.WHITE : Alliance.BLACK;
+    }
+
+    public int getCastlingRights(){
+        return this.castlingRights;
+    }
+
+    public int getEnPassantSquare(){
+        return this.enPassantSquare;
+    }
+
+    public int getHalfMoveClock(){
+        return this.halfMoveClock;
+    }
+
+    public int getFullMoveNumber(){
+        return this.fullMoveNumber;
+    }
+
+    // the number of moves played on this board since it was created
+    public int getHistorySize(){
+        return this.historySize;
+    }
+
+    public int getLastMove(){
+        return this.historySize == 0 ? PackedMove.NULL_MOVE : this.moveHistory[this.historySize - 1];
+    }
+
+    // the index-th move played on this board, 0 <= index < getHistorySize()
+    public int getMove(final int index){
+        return this.moveHistory[index];
+    }
+
+    // the Zobrist key of the position before the index-th move, the current key for index getHistorySize()
+    public long getKey(final int index){
+        return index == this.historySize ? this.zobristKey : this.keyHistory[index];
+    }
+}
@@ -1,10 +1,7 @@
 package com.chess.engine.board;
 
-import java.util.HashMap;
-import java.util.Map;
-
+import com.chess.engine.Alliance;
 import com.chess.engine.pieces.Piece;
-import com.google.common.collect.ImmutableMap;
 
 public abstract class Tile {
 	
@@ -12,29 +9,44 @@ public abstract class Tile {
     protected final int tileCoordinate; //0-64 tile identifier
     
     //taking advantage of caching
-    private static final Map<Integer, EmptyTile> EMPTY_TILES_CACHE = createAllPossibleEmptyTiles();
+    private static final EmptyTile[] EMPTY_TILES_CACHE = createAllPossibleEmptyTiles();
+
+    //one occupied tile per shared piece (see Piece.createPiece), indexed by bitboard index and then tile
+    private static final OccupiedTile[][] OCCUPIED_TILES_CACHE = createAllPossibleOccupiedTiles();
     
-    private static Map<Integer, EmptyTile> createAllPossibleEmptyTiles(){
+    private static EmptyTile[] createAllPossibleEmptyTiles(){
     	
-    	final Map<Integer, EmptyTile> emptyTileMap = new HashMap<>();
+    	final EmptyTile[] emptyTiles = new EmptyTile[BoardUtils.NUM_TILES];
     	
     	for(int i=0; i<BoardUtils.NUM_TILES; i++) {
-    		emptyTileMap.put(i,  new EmptyTile(i));
+    		emptyTiles[i] = new EmptyTile(i);
     	}
     	
-    	//return emptyTileMap;
-    	//a new library - the guava library by google
-    	return ImmutableMap.copyOf(emptyTileMap);
-    	
-    	/*
-    	 * --Another approach
-    	 * Collections.unmodifiableMap(emptyTileMap);
-    	 */
+    	//a plain array, no boxing of the coordinate on every lookup
+    	return emptyTiles;
+    }
+
+    private static OccupiedTile[][] createAllPossibleOccupiedTiles(){
+    	final OccupiedTile[][] occupiedTiles = new OccupiedTile[BitBoards.WHITE_PIECES][BoardUtils.NUM_TILES];
+    	for(final Alliance alliance : Alliance.values()){
+    		for(final Piece.PieceType pieceType : Piece.PieceType.values()){
+    			for(int i=0; i<BoardUtils.NUM_TILES; i++){
+    				occupiedTiles[BitBoards.index(alliance, pieceType)][i] =
+    						new OccupiedTile(i, Piece.createPiece(pieceType, alliance, i));
+    			}
+    		}
+    	}
+    	return occupiedTiles;
     }
     
     //the only way to create a tile
     public static Tile createTile(final int tileCoordinate, final Piece piece) {
-    	return piece != null ? new OccupiedTile(tileCoordinate, piece) : EMPTY_TILES_CACHE.get(tileCoordinate);
+    	if(piece == null){
+    		return EMPTY_TILES_CACHE[tileCoordinate];
+    	}
+    	//the shared pieces standing on their own tile come with a shared tile
+    	final OccupiedTile cached = OCCUPIED_TILES_CACHE[BitBoards.index(piece.getPieceAlliance(), piece.getPieceType())][tileCoordinate];
+    	return cached.getPiece() == piece ? cached : new OccupiedTile(tileCoordinate, piece);
     }
     
     //create tiles
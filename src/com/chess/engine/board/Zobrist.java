@@ -0,0 +1,109 @@
+package com.chess.engine.board;
+
+import static com.chess.engine.board.BitBoards.*;
+
+/*
+ * Zobrist keys: a 64 bit hash of a position built by xor-ing one random number per piece on a tile,
+ * one for the side to move, one per castling rights combination and one per en passant column.
+ *
+ * Because xor is its own inverse a move only has to xor out what it removes and xor in what it adds,
+ * so a board can keep its key up to date incrementally.
+ *
+ * The pawn key hashes nothing but the pawns, with the same numbers, for tables of pawn structure terms.
+ */
+public final class Zobrist {
+
+    // indexed by bitboard index (alliance * 6 + piece type), then tile
+    private static final long[][] PIECE_KEYS = new long[WHITE_PIECES][BoardUtils.NUM_TILES];
+    // the same keys for pawns, 0 for all other pieces
+    private static final long[][] PAWN_KEYS = new long[WHITE_PIECES][];
+    private static final long[] CASTLING_KEYS = new long[BoardUtils.ALL_CASTLING_RIGHTS + 1];
+    private static final long[] EN_PASSANT_KEYS = new long[BoardUtils.NUM_TILES_PER_ROW];
+    public static final long SIDE_KEY;
+
+    static {
+        // fixed seed, keys must be the same on every run so they can be stored
+        final long[] seed = {0x9E3779B97F4A7C15L};
+        for(final long[] keys : PIECE_KEYS){
+            for(int i = 0; i < keys.length; i++){
+                keys[i] = nextRandom(seed);
+            }
+        }
+        // no rights hashes to 0
+        for(int i = 1; i < CASTLING_KEYS.length; i++){
+            CASTLING_KEYS[i] = nextRandom(seed);
+        }
+        for(int i = 0; i < EN_PASSANT_KEYS.length; i++){
+            EN_PASSANT_KEYS[i] = nextRandom(seed);
+        }
+        SIDE_KEY = nextRandom(seed);
+        for(int piece = 0; piece < WHITE_PIECES; piece++){
+            PAWN_KEYS[piece] = piece % NUM_PIECE_TYPES == 0 ? PIECE_KEYS[piece] : new long[BoardUtils.NUM_TILES];
+        }
+    }
+
+    private Zobrist(){
+        throw new RuntimeException("You cannot instantiate me!");
+    }
+
+    public static long pieceKey(final int piece, final int square){
+        return PIECE_KEYS[piece][square];
+    }
+
+    // the piece key of a pawn, 0 for every other piece so boards can update the pawn key without a branch
+    public static long pawnKey(final int piece, final int square){
+        return PAWN_KEYS[piece][square];
+    }
+
+    public static long castlingKey(final int castlingRights){
+        return CASTLING_KEYS[castlingRights];
+    }
+
+    /*
+     * The en passant column only counts when a pawn of the side to move can actually take en passant,
+     * otherwise the same position would hash differently after a pawn jump and repetitions would be missed.
+     */
+    public static long enPassantKey(final long[] bitboards, final int sideToMove, final int enPassantSquare){
+        if(enPassantSquare == BoardUtils.NO_EN_PASSANT ||
+                (PAWN_ATTACKS[sideToMove ^ 1][enPassantSquare] & bitboards[sideToMove * NUM_PIECE_TYPES]) == 0){
+            return 0L;
+        }
+        return EN_PASSANT_KEYS[enPassantSquare % BoardUtils.NUM_TILES_PER_ROW];
+    }
+
+    // the key computed from scratch
+    public static long computeKey(final long[] bitboards, final int sideToMove, final int castlingRights,
+                                  final int enPassantSquare){
+        long key = 0L;
+        for(int piece = 0; piece < WHITE_PIECES; piece++){
+            long pieces = bitboards[piece];
+            while(pieces != 0){
+                key ^= PIECE_KEYS[piece][firstSquare(pieces)];
+                pieces &= pieces - 1;
+            }
+        }
+        if(sideToMove == 1){
+            key ^= SIDE_KEY;
+        }
+        return key ^ CASTLING_KEYS[castlingRights] ^ enPassantKey(bitboards, sideToMove, enPassantSquare);
+    }
+
+    // the pawn key computed from scratch
+    public static long computePawnKey(final long[] bitboards){
+        long key = 0L;
+        for(int piece = 0; piece < WHITE_PIECES; piece += NUM_PIECE_TYPES){
+            for(long pawns = bitboards[piece]; pawns != 0; pawns &= pawns - 1){
+                key ^= PIECE_KEYS[piece][firstSquare(pawns)];
+            }
+        }
+        return key;
+    }
+
+    private static long nextRandom(final long[] seed){
+        // splitmix64
+        long z = (seed[0] += 0x9E3779B97F4A7C15L);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
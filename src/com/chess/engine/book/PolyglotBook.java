@@ -0,0 +1,184 @@
+package com.chess.engine.book;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.MoveList;
+import com.chess.engine.board.PackedMove;
+import com.chess.engine.board.SearchBoard;
+import com.chess.engine.pieces.Piece.PieceType;
+
+import com.chess.io.MappedFile;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+ * A Polyglot opening book (.bin).
+ *
+ * The file is a sorted array of 16 byte big endian entries:
+ *
+ *   key     8 bytes  PolyglotKey of the position
+ *   move    2 bytes  to file (bits 0-2), to row (3-5), from file (6-8), from row (9-11), promotion (12-14)
+ *   weight  2 bytes  how often (or how well) the move was played
+ *   learn   4 bytes  unused here
+ *
+ * The book is memory mapped (see MappedFile) and searched in place with a binary search on the key,
+ * nothing is copied onto the heap. Every engine process that opens the same book shares one copy of it,
+ * and within a process one PolyglotBook can be probed by any number of threads.
+ */
+public final class PolyglotBook implements Closeable {
+
+    private static final int ENTRY_BYTES = 16;
+    private static final int ENTRY_SHIFT = Integer.numberOfTrailingZeros(ENTRY_BYTES);
+
+    // Polyglot promotion codes to piece types, 0 means no promotion
+    private static final PieceType[] PROMOTIONS = {null, PieceType.KNIGHT, PieceType.BISHOP, PieceType.ROOK, PieceType.QUEEN};
+
+    private final MappedFile file;
+    private final long size;
+
+    public PolyglotBook(final Path path) throws IOException {
+        this.file = new MappedFile(path, 0, ByteOrder.BIG_ENDIAN);
+        if(this.file.size() % ENTRY_BYTES != 0){
+            this.file.close();
+            throw new IOException("Not a polyglot book " + path);
+        }
+        this.size = this.file.size() >> ENTRY_SHIFT;
+    }
+
+    // the number of entries in the book
+    public long size(){
+        return this.size;
+    }
+
+    // the number of book moves for the position
+    public int countMoves(final SearchBoard board){
+        final long key = PolyglotKey.compute(board);
+        int count = 0;
+        for(long i = firstEntry(key); i < this.size && getKey(i) == key; i++){
+            count++;
+        }
+        return count;
+    }
+
+    // the book move with the highest weight, or NULL_MOVE when the position is not in the book
+    public int getBestMove(final SearchBoard board){
+        final long key = PolyglotKey.compute(board);
+        final MoveList legalMoves = new MoveList();
+        board.generateMoves(legalMoves);
+        int bestMove = PackedMove.NULL_MOVE;
+        int bestWeight = -1;
+        for(long i = firstEntry(key); i < this.size && getKey(i) == key; i++){
+            final int move = toPackedMove(getMove(i), legalMoves);
+            if(move != PackedMove.NULL_MOVE && getWeight(i) > bestWeight){
+                bestMove = move;
+                bestWeight = getWeight(i);
+            }
+        }
+        return bestMove;
+    }
+
+    /*
+     * A book move picked at random with probability proportional to its weight, or NULL_MOVE. Only entries
+     * that match a legal move take part in the draw, so an illegal entry never swallows a pick.
+     */
+    public int getWeightedMove(final SearchBoard board){
+        final long key = PolyglotKey.compute(board);
+        final long first = firstEntry(key);
+        final MoveList legalMoves = new MoveList();
+        board.generateMoves(legalMoves);
+        int totalWeight = 0;
+        for(long i = first; i < this.size && getKey(i) == key; i++){
+            if(toPackedMove(getMove(i), legalMoves) != PackedMove.NULL_MOVE){
+                totalWeight += getWeight(i);
+            }
+        }
+        if(totalWeight == 0){
+            // all legal weights zero (or no entries): the best move rule still finds a legal move, if there is one
+            return getBestMove(board);
+        }
+        int pick = ThreadLocalRandom.current().nextInt(totalWeight);
+        for(long i = first; i < this.size && getKey(i) == key; i++){
+            final int move = toPackedMove(getMove(i), legalMoves);
+            if(move != PackedMove.NULL_MOVE){
+                pick -= getWeight(i);
+                if(pick < 0){
+                    return move;
+                }
+            }
+        }
+        return PackedMove.NULL_MOVE;
+    }
+
+    public int getBestMove(final Board board){
+        return getBestMove(new SearchBoard(board));
+    }
+
+    public int getWeightedMove(final Board board){
+        return getWeightedMove(new SearchBoard(board));
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.file.close();
+    }
+
+    // index of the first entry with a key not below the given one (unsigned order, as Polyglot sorts)
+    private long firstEntry(final long key){
+        long low = 0;
+        long high = this.size;
+        while(low < high){
+            final long middle = (low + high) >>> 1;
+            if(Long.compareUnsigned(getKey(middle), key) < 0){
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private long getKey(final long index){
+        return this.file.getLong(index << ENTRY_SHIFT);
+    }
+
+    private int getMove(final long index){
+        return this.file.getShort((index << ENTRY_SHIFT) + Long.BYTES) & 0xFFFF;
+    }
+
+    private int getWeight(final long index){
+        return this.file.getShort((index << ENTRY_SHIFT) + Long.BYTES + Short.BYTES) & 0xFFFF;
+    }
+
+    /*
+     * Match a Polyglot move against the legal moves of the board. Books written by other programs
+     * can hold moves that are illegal here (hash collisions, broken books), those come back as NULL_MOVE.
+     * Castling is stored as the king taking its own rook, e1h1 for white short castling.
+     */
+    static int toPackedMove(final int bookMove, final MoveList legalMoves){
+        final int from = PolyglotKey.toTile((bookMove >>> 6) & 0x3F);
+        final int to = PolyglotKey.toTile(bookMove & 0x3F);
+        final int promotionCode = (bookMove >>> 12) & 0x7;
+        final PieceType promotion = promotionCode < PROMOTIONS.length ? PROMOTIONS[promotionCode] : null;
+        for(int i = 0; i < legalMoves.size(); i++){
+            final int move = legalMoves.get(i);
+            if(PackedMove.getFrom(move) != from){
+                continue;
+            }
+            final int flag = PackedMove.getFlag(move);
+            if(flag == PackedMove.KING_SIDE_CASTLE || flag == PackedMove.QUEEN_SIDE_CASTLE){
+                // the rook stands on the file beyond the king's target square
+                final int rookTile = flag == PackedMove.KING_SIDE_CASTLE ? PackedMove.getTo(move) + 1 : PackedMove.getTo(move) - 2;
+                if(rookTile == to){
+                    return move;
+                }
+            } else if(PackedMove.getTo(move) == to &&
+                    PackedMove.toPieceType(PackedMove.getPromotion(move)) == promotion){
+                return move;
+            }
+        }
+        return PackedMove.NULL_MOVE;
+    }
+}
@@ -0,0 +1,72 @@
+package com.chess.engine.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Percentage;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+
+// the EngineMetrics totals, recorded periodically
+@Name("com.chess.engine.EngineCounters")
+@Label("Engine Counters")
+@Category({"Chess Engine", "Search"})
+@Description("Cumulative search and move generation counters of the engine")
+@Period("1 s")
+@StackTrace(false)
+public final class EngineCountersEvent extends Event {
+
+    @Label("Nodes")
+    long nodes;
+
+    @Label("Nodes per Second")
+    long nodesPerSecond;
+
+    @Label("Quiescence Share")
+    @Percentage
+    double quiescenceShare;
+
+    @Label("TT Probes")
+    long transpositionProbes;
+
+    @Label("TT Hit Rate")
+    @Percentage
+    double transpositionHitRate;
+
+    @Label("TT Cutoff Rate")
+    @Percentage
+    double transpositionCutoffRate;
+
+    @Label("First Move Cutoff Rate")
+    @Percentage
+    double firstMoveCutoffRate;
+
+    @Label("Pawn Hash Hit Rate")
+    @Percentage
+    double pawnHitRate;
+
+    @Label("Effective Branching Factor")
+    double effectiveBranchingFactor;
+
+    @Label("Average Iteration Time (ms)")
+    double averageIterationMillis;
+
+    @Label("Moves per Board")
+    double movesPerBoard;
+
+    void set(final MetricsSnapshot snapshot){
+        this.nodes = snapshot.getNodes();
+        this.nodesPerSecond = snapshot.getNodesPerSecond();
+        this.quiescenceShare = snapshot.getQuiescenceShare();
+        this.transpositionProbes = snapshot.getTranspositionProbes();
+        this.transpositionHitRate = snapshot.getTranspositionHitRate();
+        this.transpositionCutoffRate = snapshot.getTranspositionCutoffRate();
+        this.firstMoveCutoffRate = snapshot.getFirstMoveCutoffRate();
+        this.pawnHitRate = snapshot.getPawnHitRate();
+        this.effectiveBranchingFactor = snapshot.getEffectiveBranchingFactor();
+        this.averageIterationMillis = snapshot.getAverageIterationMillis();
+        this.movesPerBoard = snapshot.getMovesPerBoard();
+    }
+}
@@ -0,0 +1,131 @@
+package com.chess.engine.metrics;
+
+import jdk.jfr.FlightRecorder;
+
+import java.lang.ref.Cleaner;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Counters of the search and the move generation, cheap enough to be always on.
+ *
+ * Every search and search worker owns a stripe: a plain long[] only its own thread writes to, indexed by
+ * the counter constants below, so counting is a single increment without any synchronization. Once the
+ * owner is garbage collected its counts are folded into a retired total and the stripe is dropped, so
+ * recreating searches does not grow the list. Board has no long-lived owner and counts into LongAdders
+ * instead. snapshot() adds up all of it; the stripe reads are not synchronized, so a snapshot taken
+ * during a search may lag a little.
+ *
+ * The counters are cumulative for the life of the JVM, subtract two snapshots for an interval. The same
+ * totals are recorded as the JFR event EngineCountersEvent once a second while a recording is running.
+ *
+ * Loading JFR takes a few hundred milliseconds, so the search only creates its events (SearchEvent,
+ * SearchIterationEvent) once a recording has been started, see isRecorderInitialized.
+ */
+public final class EngineMetrics {
+
+    public static final int NODES = 0;
+    public static final int QUIESCENCE_NODES = 1;
+    public static final int TT_PROBES = 2;
+    public static final int TT_HITS = 3;
+    public static final int TT_CUTOFFS = 4;
+    public static final int BETA_CUTOFFS = 5;
+    public static final int FIRST_MOVE_CUTOFFS = 6;
+    public static final int SEARCHES = 7;
+    public static final int SEARCH_NANOS = 8;
+    public static final int ITERATIONS = 9;
+    public static final int ITERATION_NANOS = 10;
+    // nodes of every iteration after the first, and of the iteration before it, for the branching factor
+    public static final int ITERATION_NODES = 11;
+    public static final int PREVIOUS_ITERATION_NODES = 12;
+    public static final int BOARDS = 13;
+    public static final int BOARD_MOVES = 14;
+    public static final int PAWN_PROBES = 15;
+    public static final int PAWN_HITS = 16;
+    public static final int NUM_COUNTERS = 17;
+
+    // unused longs after the counters, so two stripes never share a cache line
+    private static final int PADDING = 8;
+
+    // live stripes and the counts of the retired ones, both guarded by STRIPES
+    private static final List<long[]> STRIPES = new ArrayList<>();
+    private static final long[] RETIRED = new long[NUM_COUNTERS];
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private static final LongAdder BOARDS_CREATED = new LongAdder();
+    private static final LongAdder BOARD_MOVES_GENERATED = new LongAdder();
+
+    private static volatile boolean periodicEventAdded;
+
+    private EngineMetrics(){
+        throw new RuntimeException("You cannot instantiate me!");
+    }
+
+    // a stripe for a single writer thread, counted by every snapshot until the owner is collected and after
+    public static long[] newStripe(final Object owner){
+        final long[] stripe = new long[NUM_COUNTERS + PADDING];
+        synchronized(STRIPES){
+            STRIPES.add(stripe);
+        }
+        // the cleaning action must not reach the owner, or it would never become unreachable
+        CLEANER.register(owner, () -> retire(stripe));
+        return stripe;
+    }
+
+    private static void retire(final long[] stripe){
+        synchronized(STRIPES){
+            for(int i = 0; i < NUM_COUNTERS; i++){
+                RETIRED[i] += stripe[i];
+            }
+            STRIPES.remove(stripe);
+        }
+    }
+
+    // a Board was created
+    public static void countBoard(){
+        BOARDS_CREATED.increment();
+    }
+
+    // a Board generated its legal moves
+    public static void countBoardMoves(final int moves){
+        BOARD_MOVES_GENERATED.add(moves);
+    }
+
+    // true once a JFR recording has been started in this JVM, the engine events are worth creating from then on
+    public static boolean isRecorderInitialized(){
+        if(!FlightRecorder.isInitialized()){
+            return false;
+        }
+        if(!periodicEventAdded){
+            addPeriodicEvent();
+        }
+        return true;
+    }
+
+    private static synchronized void addPeriodicEvent(){
+        if(!periodicEventAdded){
+            FlightRecorder.addPeriodicEvent(EngineCountersEvent.class, () -> {
+                final EngineCountersEvent event = new EngineCountersEvent();
+                event.set(snapshot());
+                event.commit();
+            });
+            periodicEventAdded = true;
+        }
+    }
+
+    public static MetricsSnapshot snapshot(){
+        final long[] totals;
+        synchronized(STRIPES){
+            totals = RETIRED.clone();
+            for(final long[] stripe : STRIPES){
+                for(int i = 0; i < NUM_COUNTERS; i++){
+                    totals[i] += stripe[i];
+                }
+            }
+        }
+        totals[BOARDS] += BOARDS_CREATED.sum();
+        totals[BOARD_MOVES] += BOARD_MOVES_GENERATED.sum();
+        return new MetricsSnapshot(totals);
+    }
+}
@@ -0,0 +1,97 @@
+package com.chess.engine.metrics;
+
+import static com.chess.engine.metrics.EngineMetrics.*;
+
+/*
+ * The engine counters at one moment, with the rates derived from them. Rates with nothing to divide by are 0.
+ */
+public final class MetricsSnapshot {
+
+    private final long[] counters;
+
+    MetricsSnapshot(final long[] counters){
+        this.counters = counters;
+    }
+
+    // the raw value of one of the EngineMetrics counters
+    public long get(final int counter){
+        return this.counters[counter];
+    }
+
+    // what happened between the earlier snapshot and this one
+    public MetricsSnapshot since(final MetricsSnapshot earlier){
+        final long[] difference = new long[NUM_COUNTERS];
+        for(int i = 0; i < NUM_COUNTERS; i++){
+            difference[i] = this.counters[i] - earlier.counters[i];
+        }
+        return new MetricsSnapshot(difference);
+    }
+
+    public long getNodes(){
+        return get(NODES);
+    }
+
+    public long getSearches(){
+        return get(SEARCHES);
+    }
+
+    // nodes of all threads per second of search time
+    public long getNodesPerSecond(){
+        return (long) ratio(get(NODES) * 1e9, get(SEARCH_NANOS));
+    }
+
+    // the part of all nodes spent in the quiescence search
+    public double getQuiescenceShare(){
+        return ratio(get(QUIESCENCE_NODES), get(NODES));
+    }
+
+    public long getTranspositionProbes(){
+        return get(TT_PROBES);
+    }
+
+    public double getTranspositionHitRate(){
+        return ratio(get(TT_HITS), get(TT_PROBES));
+    }
+
+    // probes that ended the node right away
+    public double getTranspositionCutoffRate(){
+        return ratio(get(TT_CUTOFFS), get(TT_PROBES));
+    }
+
+    // beta cutoffs caused by the first move searched, a measure of the move ordering
+    public double getFirstMoveCutoffRate(){
+        return ratio(get(FIRST_MOVE_CUTOFFS), get(BETA_CUTOFFS));
+    }
+
+    // how many times more nodes an iteration takes than the one before
+    public double getEffectiveBranchingFactor(){
+        return ratio(get(ITERATION_NODES), get(PREVIOUS_ITERATION_NODES));
+    }
+
+    // evaluations that found their pawn structure terms in the pawn hash table
+    public double getPawnHitRate(){
+        return ratio(get(PAWN_HITS), get(PAWN_PROBES));
+    }
+
+    public double getAverageIterationMillis(){
+        return ratio(get(ITERATION_NANOS) / 1e6, get(ITERATIONS));
+    }
+
+    // legal moves generated per Board created
+    public double getMovesPerBoard(){
+        return ratio(get(BOARD_MOVES), get(BOARDS));
+    }
+
+    private static double ratio(final double value, final long total){
+        return total == 0 ? 0 : value / total;
+    }
+
+    @Override
+    public String toString(){
+        return String.format("nodes %d nps %d qsearch %.1f%% tt hits %.1f%% tt cutoffs %.1f%% first move cutoffs %.1f%% " +
+                        "pawn hits %.1f%% ebf %.2f iteration %.2f ms moves/board %.1f", getNodes(), getNodesPerSecond(),
+                getQuiescenceShare() * 100, getTranspositionHitRate() * 100, getTranspositionCutoffRate() * 100,
+                getFirstMoveCutoffRate() * 100, getPawnHitRate() * 100, getEffectiveBranchingFactor(),
+                getAverageIterationMillis(), getMovesPerBoard());
+    }
+}
@@ -0,0 +1,36 @@
+package com.chess.engine.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// a whole search, from the start until the best move is known
+@Name("com.chess.engine.Search")
+@Label("Search")
+@Category({"Chess Engine", "Search"})
+@Description("A search of one position")
+public final class SearchEvent extends Event {
+
+    @Label("Position")
+    public String fen;
+
+    @Label("Threads")
+    public int threads;
+
+    @Label("Depth")
+    public int depth;
+
+    @Label("Score")
+    public int score;
+
+    @Label("Best Move")
+    public String bestMove;
+
+    @Label("Nodes")
+    public long nodes;
+
+    @Label("Nodes per Second")
+    public long nodesPerSecond;
+}
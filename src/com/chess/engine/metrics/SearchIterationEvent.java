@@ -0,0 +1,34 @@
+package com.chess.engine.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// one completed iteration of the main search thread, the event duration is the time of the iteration
+@Name("com.chess.engine.SearchIteration")
+@Label("Search Iteration")
+@Category({"Chess Engine", "Search"})
+@Description("An iteration of the iterative deepening search")
+@StackTrace(false)
+public final class SearchIterationEvent extends Event {
+
+    @Label("Depth")
+    public int depth;
+
+    @Label("Score")
+    public int score;
+
+    @Label("Best Move")
+    public String bestMove;
+
+    @Label("Nodes")
+    @Description("Nodes of all threads during this iteration")
+    public long nodes;
+
+    @Label("Branching Factor")
+    @Description("Nodes of this iteration divided by the nodes of the iteration before")
+    public double branchingFactor;
+}
@@ -0,0 +1,40 @@
+package com.chess.engine.nnue;
+
+/*
+ * The loops of the network evaluation, written once with the Vector API (VectorKernels) and once in
+ * plain Java (ScalarKernels).
+ *
+ * The Vector API is an incubator module and only there when the JVM runs with
+ * --add-modules jdk.incubator.vector, so the vector kernels are loaded by name and the scalar ones
+ * take over whenever they cannot be.
+ */
+abstract class Kernels {
+
+    static final Kernels INSTANCE = create();
+
+    private static Kernels create(){
+        if(ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()){
+            try {
+                return (Kernels) Class.forName("com.chess.engine.nnue.VectorKernels").getDeclaredConstructor().newInstance();
+            } catch (final ReflectiveOperationException | LinkageError e) {
+                // fall back to the scalar kernels
+            }
+        }
+        return new ScalarKernels();
+    }
+
+    // accumulator[offset, offset + length) += weights[weightOffset, ...)
+    abstract void add(short[] accumulator, int offset, short[] weights, int weightOffset, int length);
+
+    // accumulator[offset, offset + length) -= weights[weightOffset, ...)
+    abstract void subtract(short[] accumulator, int offset, short[] weights, int weightOffset, int length);
+
+    // activations[activationOffset, ...) = the accumulator values clipped to [0, max]
+    abstract void clippedRelu(short[] accumulator, int offset, int[] activations, int activationOffset, int length, int max);
+
+    // outputs[r] = the dot product of inputs[0, columns) and the row r of weights, for rows rows
+    abstract void multiply(int[] weights, int rows, int columns, int[] inputs, int[] outputs);
+
+    // a name for the info output
+    abstract String getName();
+}
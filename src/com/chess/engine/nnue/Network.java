@@ -0,0 +1,198 @@
+package com.chess.engine.nnue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/*
+ * The weights of an efficiently updatable neural network (NNUE) evaluation, see NnueEvaluator.
+ *
+ *   feature transformer  FEATURES -> hidden, int16, one accumulator per perspective
+ *   dense layer          2 * hidden -> dense, clipped ReLU inputs, int32 sums
+ *   output               dense -> 1
+ *
+ * A feature is a piece of either alliance on a tile, seen from one side (its own pieces first, the board
+ * flipped for black) in one of KING_BUCKETS buckets of that side's king square, so every weight knows
+ * where the own king stands.
+ *
+ * Weights are quantized: activations are clipped to [0, QA], weights scaled by QB, so the output divided
+ * by QA * QB is the float network's output, in units of OUTPUT_SCALE centipawns. The file is little
+ * endian: magic, version, hidden and dense size, then the arrays below in the order they are declared.
+ * Loading an invalid file throws an IllegalArgumentException.
+ */
+public final class Network {
+
+    public static final int KING_BUCKETS = 4;
+    public static final int FEATURES = KING_BUCKETS * 12 * 64;
+
+    static final int QA = 255;
+    static final int QB_SHIFT = 6;
+    static final int QB = 1 << QB_SHIFT;
+    static final int OUTPUT_SCALE = 400;
+
+    private static final int MAGIC = 0x4E4E434A; // "JCNN"
+    private static final int VERSION = 1;
+    private static final int MAX_HIDDEN = 2048;
+    private static final int MAX_DENSE = 256;
+
+    private final int hiddenSize;
+    private final int denseSize;
+    // FEATURES rows of hiddenSize
+    final short[] featureWeights;
+    final short[] featureBiases;
+    // denseSize rows of 2 * hiddenSize: side to move first, then the other side
+    final short[] denseWeights;
+    final int[] denseBiases;
+    final short[] outputWeights;
+    final int outputBias;
+    // the dense weights widened once, the kernels multiply ints
+    final int[] denseWeightsWide;
+
+    Network(final int hiddenSize,
+            final int denseSize,
+            final short[] featureWeights,
+            final short[] featureBiases,
+            final short[] denseWeights,
+            final int[] denseBiases,
+            final short[] outputWeights,
+            final int outputBias){
+        if(hiddenSize < 1 || hiddenSize > MAX_HIDDEN || denseSize < 1 || denseSize > MAX_DENSE){
+            throw new IllegalArgumentException("Unsupported network size " + hiddenSize + "x" + denseSize);
+        }
+        this.hiddenSize = hiddenSize;
+        this.denseSize = denseSize;
+        this.featureWeights = checkLength(featureWeights, FEATURES * hiddenSize);
+        this.featureBiases = checkLength(featureBiases, hiddenSize);
+        this.denseWeights = checkLength(denseWeights, 2 * hiddenSize * denseSize);
+        this.denseBiases = denseBiases;
+        this.outputWeights = checkLength(outputWeights, denseSize);
+        this.outputBias = outputBias;
+        if(denseBiases.length != denseSize){
+            throw new IllegalArgumentException("Expected " + denseSize + " dense biases, got " + denseBiases.length);
+        }
+        this.denseWeightsWide = new int[denseWeights.length];
+        for(int i = 0; i < denseWeights.length; i++){
+            this.denseWeightsWide[i] = denseWeights[i];
+        }
+    }
+
+    // small random weights of the given sizes, a network that evaluates nothing useful but costs what a trained one does
+    public static Network random(final int hiddenSize, final int denseSize, final long seed){
+        final Random random = new Random(seed);
+        final int[] denseBiases = new int[denseSize];
+        for(int i = 0; i < denseSize; i++){
+            denseBiases[i] = random.nextInt(1024) - 512;
+        }
+        return new Network(hiddenSize, denseSize,
+                randomShorts(random, FEATURES * hiddenSize, 32),
+                randomShorts(random, hiddenSize, 64),
+                randomShorts(random, 2 * hiddenSize * denseSize, 32),
+                denseBiases,
+                randomShorts(random, denseSize, 64),
+                0);
+    }
+
+    public static Network load(final Path path) throws IOException {
+        try(final InputStream in = Files.newInputStream(path)){
+            return load(in);
+        }
+    }
+
+    public static Network load(final InputStream in) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.wrap(in.readAllBytes()).order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            if(buffer.getInt() != MAGIC){
+                throw new IllegalArgumentException("Not a network file");
+            }
+            final int version = buffer.getInt();
+            if(version != VERSION){
+                throw new IllegalArgumentException("Unsupported network version " + version);
+            }
+            final int hiddenSize = buffer.getInt();
+            final int denseSize = buffer.getInt();
+            if(hiddenSize < 1 || hiddenSize > MAX_HIDDEN || denseSize < 1 || denseSize > MAX_DENSE){
+                throw new IllegalArgumentException("Unsupported network size " + hiddenSize + "x" + denseSize);
+            }
+            final Network network = new Network(hiddenSize, denseSize,
+                    readShorts(buffer, FEATURES * hiddenSize),
+                    readShorts(buffer, hiddenSize),
+                    readShorts(buffer, 2 * hiddenSize * denseSize),
+                    readInts(buffer, denseSize),
+                    readShorts(buffer, denseSize),
+                    buffer.getInt());
+            if(buffer.hasRemaining()){
+                throw new IllegalArgumentException(buffer.remaining() + " bytes left over after the network");
+            }
+            return network;
+        } catch (final BufferUnderflowException e) {
+            throw new IllegalArgumentException("Network file is truncated", e);
+        }
+    }
+
+    // in the format load reads
+    public void write(final OutputStream out) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(4 * Integer.BYTES +
+                (this.featureWeights.length + this.featureBiases.length + this.denseWeights.length +
+                        this.outputWeights.length) * Short.BYTES +
+                (this.denseBiases.length + 1) * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(this.hiddenSize).putInt(this.denseSize);
+        writeShorts(buffer, this.featureWeights);
+        writeShorts(buffer, this.featureBiases);
+        writeShorts(buffer, this.denseWeights);
+        for(final int bias : this.denseBiases){
+            buffer.putInt(bias);
+        }
+        writeShorts(buffer, this.outputWeights);
+        buffer.putInt(this.outputBias);
+        out.write(buffer.array());
+    }
+
+    public int getHiddenSize(){
+        return this.hiddenSize;
+    }
+
+    public int getDenseSize(){
+        return this.denseSize;
+    }
+
+    // uniform in [-range, range]
+    private static short[] randomShorts(final Random random, final int length, final int range){
+        final short[] values = new short[length];
+        for(int i = 0; i < length; i++){
+            values[i] = (short) (random.nextInt(2 * range + 1) - range);
+        }
+        return values;
+    }
+
+    private static short[] readShorts(final ByteBuffer buffer, final int length){
+        final short[] values = new short[length];
+        buffer.asShortBuffer().get(values);
+        buffer.position(buffer.position() + length * Short.BYTES);
+        return values;
+    }
+
+    private static void writeShorts(final ByteBuffer buffer, final short[] values){
+        buffer.asShortBuffer().put(values);
+        buffer.position(buffer.position() + values.length * Short.BYTES);
+    }
+
+    private static int[] readInts(final ByteBuffer buffer, final int length){
+        final int[] values = new int[length];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + length * Integer.BYTES);
+        return values;
+    }
+
+    private static short[] checkLength(final short[] values, final int length){
+        if(values.length != length){
+            throw new IllegalArgumentException("Expected " + length + " weights, got " + values.length);
+        }
+        return values;
+    }
+}
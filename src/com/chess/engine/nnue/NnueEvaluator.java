@@ -0,0 +1,208 @@
+package com.chess.engine.nnue;
+
+import com.chess.engine.board.PackedMove;
+import com.chess.engine.board.SearchBoard;
+import com.chess.engine.player.ai.AlphaBetaSearch;
+import com.chess.engine.player.ai.BoardEvaluator;
+
+import static com.chess.engine.board.BitBoards.*;
+
+/*
+ * The evaluation of a Network.
+ *
+ * The first layer is by far the biggest, but a move only changes two to four of its features, so its
+ * output (the accumulator, one per perspective) is not computed per position but updated: the columns of
+ * the features a move removes are subtracted and those it adds are added. The accumulators of the
+ * positions along the current line are kept on a stack indexed by the number of moves played, each
+ * tagged with the Zobrist key of its position. An evaluation finds the nearest position back up the
+ * line whose accumulator is there, and plays the moves since then onto it; only when there is none, or
+ * the king moved into another bucket, is the accumulator built from scratch, and then the moves are
+ * also taken back to fill in the accumulators of the positions before it.
+ *
+ * The state makes an NnueEvaluator usable by one thread only, the search gives each worker its own
+ * through forThread.
+ */
+public final class NnueEvaluator implements BoardEvaluator {
+
+    // positions of the stack, more than the deepest search line
+    private static final int STACK_SIZE = 256;
+    private static final int ROOK = 3;
+    private static final int KING = 5;
+    private static final int MAX_SCORE = AlphaBetaSearch.MATE_BOUND - 1;
+
+    private final Network network;
+    private final int hiddenSize;
+    private final Kernels kernels = Kernels.INSTANCE;
+
+    // STACK_SIZE entries of two accumulators, white's perspective then black's
+    private final short[] accumulators;
+    private final long[] keys = new long[STACK_SIZE];
+    // is the accumulator of the entry and perspective (entry * 2 + side) up to date for the key
+    private final boolean[] computed = new boolean[STACK_SIZE * 2];
+    private final int[] activations;
+    private final int[] denseSums;
+
+    public NnueEvaluator(final Network network){
+        this.network = network;
+        this.hiddenSize = network.getHiddenSize();
+        this.accumulators = new short[STACK_SIZE * 2 * this.hiddenSize];
+        this.activations = new int[2 * this.hiddenSize];
+        this.denseSums = new int[network.getDenseSize()];
+    }
+
+    @Override
+    public BoardEvaluator forThread(){
+        return new NnueEvaluator(this.network);
+    }
+
+    // the kernels in use, "scalar" unless the JVM runs with the Vector API
+    public static String getKernelName(){
+        return Kernels.INSTANCE.getName();
+    }
+
+    @Override
+    public int evaluate(final SearchBoard board){
+        updateAccumulator(board, 0);
+        updateAccumulator(board, 1);
+        final int side = board.getSideToMove();
+        final int entry = board.getHistorySize() & (STACK_SIZE - 1);
+        final int hidden = this.hiddenSize;
+        this.kernels.clippedRelu(this.accumulators, offset(entry, side), this.activations, 0, hidden, Network.QA);
+        this.kernels.clippedRelu(this.accumulators, offset(entry, side ^ 1), this.activations, hidden, hidden, Network.QA);
+
+        final Network network = this.network;
+        this.kernels.multiply(network.denseWeightsWide, network.getDenseSize(), 2 * hidden, this.activations, this.denseSums);
+        long output = network.outputBias;
+        for(int i = 0; i < network.getDenseSize(); i++){
+            final int sum = network.denseBiases[i] + this.denseSums[i];
+            output += (long) Math.max(0, Math.min(sum >> Network.QB_SHIFT, Network.QA)) * network.outputWeights[i];
+        }
+        final long score = output * Network.OUTPUT_SCALE / (Network.QA * Network.QB);
+        return (int) Math.max(-MAX_SCORE, Math.min(score, MAX_SCORE));
+    }
+
+    // bring the accumulator of the side's perspective for the current position up to date
+    private void updateAccumulator(final SearchBoard board, final int side){
+        final int historySize = board.getHistorySize();
+        final int entry = historySize & (STACK_SIZE - 1);
+        if(this.keys[entry] == board.getZobristKey() && this.computed[entry * 2 + side]){
+            return;
+        }
+        final int bucket = kingBucket(side, firstSquare(board.getBitboard(side * NUM_PIECE_TYPES + KING)));
+
+        // back up the line to the last position with its accumulator, as long as the king stays in its bucket
+        int start = -1;
+        int oldest = historySize;
+        final int sideToMove = board.getSideToMove();
+        for(int i = historySize - 1; i >= Math.max(0, historySize - STACK_SIZE + 1); i--){
+            final int move = board.getMove(i);
+            final int mover = sideToMove ^ ((historySize - i) & 1);
+            if(mover == side && PackedMove.getPiece(move) == KING &&
+                    kingBucket(side, PackedMove.getFrom(move)) != kingBucket(side, PackedMove.getTo(move))){
+                break;
+            }
+            final int previous = i & (STACK_SIZE - 1);
+            if(this.keys[previous] == board.getKey(i) && this.computed[previous * 2 + side]){
+                start = i;
+                break;
+            }
+            oldest = i;
+        }
+        if(start >= 0){
+            for(int i = start; i < historySize; i++){
+                final int from = i & (STACK_SIZE - 1);
+                final int to = (i + 1) & (STACK_SIZE - 1);
+                System.arraycopy(this.accumulators, offset(from, side), this.accumulators, offset(to, side), this.hiddenSize);
+                playMove(board.getMove(i), sideToMove ^ ((historySize - i) & 1), side, bucket, offset(to, side), true);
+                markComputed(to, board.getKey(i + 1), side);
+            }
+            return;
+        }
+        // the search mostly evaluates leaves only, so after a refresh the moves are taken back up the line:
+        // then the next leaves near this one find an accumulator to start from
+        refresh(board, side, bucket, entry);
+        for(int i = historySize - 1; i >= oldest; i--){
+            final int from = (i + 1) & (STACK_SIZE - 1);
+            final int to = i & (STACK_SIZE - 1);
+            System.arraycopy(this.accumulators, offset(from, side), this.accumulators, offset(to, side), this.hiddenSize);
+            playMove(board.getMove(i), sideToMove ^ ((historySize - i) & 1), side, bucket, offset(to, side), false);
+            markComputed(to, board.getKey(i), side);
+        }
+    }
+
+    // the accumulator from scratch: the biases plus the column of every piece on the board
+    private void refresh(final SearchBoard board, final int side, final int bucket, final int entry){
+        final int offset = offset(entry, side);
+        System.arraycopy(this.network.featureBiases, 0, this.accumulators, offset, this.hiddenSize);
+        for(int piece = 0; piece < WHITE_PIECES; piece++){
+            for(long pieces = board.getBitboard(piece); pieces != 0; pieces &= pieces - 1){
+                this.kernels.add(this.accumulators, offset, this.network.featureWeights,
+                        weightOffset(side, bucket, piece, firstSquare(pieces)), this.hiddenSize);
+            }
+        }
+        markComputed(entry, board.getZobristKey(), side);
+    }
+
+    // the features a move of the mover removes and adds, seen from the side, or the other way round to take it back
+    private void playMove(final int move, final int mover, final int side, final int bucket, final int offset,
+                          final boolean forward){
+        final int from = PackedMove.getFrom(move);
+        final int to = PackedMove.getTo(move);
+        final int flag = PackedMove.getFlag(move);
+        final int piece = mover * NUM_PIECE_TYPES + PackedMove.getPiece(move);
+        update(offset, side, bucket, piece, from, !forward);
+        update(offset, side, bucket, flag == PackedMove.PROMOTION ? mover * NUM_PIECE_TYPES + PackedMove.getPromotion(move) :
+                piece, to, forward);
+        if(PackedMove.isCapture(move)){
+            update(offset, side, bucket, (mover ^ 1) * NUM_PIECE_TYPES + PackedMove.getCaptured(move),
+                    flag == PackedMove.EN_PASSANT ? enPassantVictim(mover, to) : to, !forward);
+        }
+        if(flag == PackedMove.KING_SIDE_CASTLE || flag == PackedMove.QUEEN_SIDE_CASTLE){
+            final int rook = mover * NUM_PIECE_TYPES + ROOK;
+            update(offset, side, bucket, rook, castlingRookFrom(flag, to), !forward);
+            update(offset, side, bucket, rook, castlingRookTo(flag, to), forward);
+        }
+    }
+
+    // add or subtract the feature of a piece on a tile
+    private void update(final int offset, final int side, final int bucket, final int piece, final int square,
+                        final boolean add){
+        if(add){
+            this.kernels.add(this.accumulators, offset, this.network.featureWeights,
+                    weightOffset(side, bucket, piece, square), this.hiddenSize);
+        }else{
+            this.kernels.subtract(this.accumulators, offset, this.network.featureWeights,
+                    weightOffset(side, bucket, piece, square), this.hiddenSize);
+        }
+    }
+
+    // an entry holds the accumulators of one position, those of an older position there are outdated
+    private void markComputed(final int entry, final long key, final int side){
+        if(this.keys[entry] != key){
+            this.keys[entry] = key;
+            this.computed[entry * 2] = false;
+            this.computed[entry * 2 + 1] = false;
+        }
+        this.computed[entry * 2 + side] = true;
+    }
+
+    private int offset(final int entry, final int side){
+        return (entry * 2 + side) * this.hiddenSize;
+    }
+
+    /*
+     * The first weight of a feature: a piece (bitboard index) on a tile, seen from the side with its
+     * king in the bucket. Black sees the board flipped and its own pieces as the first six.
+     */
+    private int weightOffset(final int side, final int bucket, final int piece, final int square){
+        final int relativePiece = ((piece / NUM_PIECE_TYPES) ^ side) * NUM_PIECE_TYPES + piece % NUM_PIECE_TYPES;
+        final int relativeSquare = side == 0 ? square : square ^ 56;
+        return ((bucket * 12 + relativePiece) * 64 + relativeSquare) * this.hiddenSize;
+    }
+
+    // the own two back ranks or further up, on the queen or the king side
+    static int kingBucket(final int side, final int kingSquare){
+        final int relativeSquare = side == 0 ? kingSquare : kingSquare ^ 56;
+        return ((relativeSquare >>> 3) >= 6 ? 0 : 2) + ((relativeSquare & 7) >= 4 ? 1 : 0);
+    }
+}
@@ -0,0 +1,44 @@
+package com.chess.engine.nnue;
+
+// the kernels in plain Java, for JVMs without the Vector API
+final class ScalarKernels extends Kernels {
+
+    @Override
+    void add(final short[] accumulator, final int offset, final short[] weights, final int weightOffset, final int length){
+        for(int i = 0; i < length; i++){
+            accumulator[offset + i] += weights[weightOffset + i];
+        }
+    }
+
+    @Override
+    void subtract(final short[] accumulator, final int offset, final short[] weights, final int weightOffset, final int length){
+        for(int i = 0; i < length; i++){
+            accumulator[offset + i] -= weights[weightOffset + i];
+        }
+    }
+
+    @Override
+    void clippedRelu(final short[] accumulator, final int offset, final int[] activations, final int activationOffset,
+                     final int length, final int max){
+        for(int i = 0; i < length; i++){
+            activations[activationOffset + i] = Math.max(0, Math.min(accumulator[offset + i], max));
+        }
+    }
+
+    @Override
+    void multiply(final int[] weights, final int rows, final int columns, final int[] inputs, final int[] outputs){
+        for(int row = 0; row < rows; row++){
+            final int offset = row * columns;
+            int sum = 0;
+            for(int i = 0; i < columns; i++){
+                sum += weights[offset + i] * inputs[i];
+            }
+            outputs[row] = sum;
+        }
+    }
+
+    @Override
+    String getName(){
+        return "scalar";
+    }
+}
@@ -0,0 +1,123 @@
+package com.chess.engine.nnue;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/*
+ * The kernels with the Vector API, in the widest vectors the CPU has. Both species have the same bit
+ * size, so a vector of shorts widens into exactly two vectors of ints. The elements left over after the
+ * last full vector are done one by one.
+ */
+final class VectorKernels extends Kernels {
+
+    private static final VectorSpecies<Short> SHORTS = ShortVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+
+    @Override
+    void add(final short[] accumulator, final int offset, final short[] weights, final int weightOffset, final int length){
+        final int bound = SHORTS.loopBound(length);
+        int i = 0;
+        for(; i < bound; i += SHORTS.length()){
+            ShortVector.fromArray(SHORTS, accumulator, offset + i)
+                    .add(ShortVector.fromArray(SHORTS, weights, weightOffset + i))
+                    .intoArray(accumulator, offset + i);
+        }
+        for(; i < length; i++){
+            accumulator[offset + i] += weights[weightOffset + i];
+        }
+    }
+
+    @Override
+    void subtract(final short[] accumulator, final int offset, final short[] weights, final int weightOffset, final int length){
+        final int bound = SHORTS.loopBound(length);
+        int i = 0;
+        for(; i < bound; i += SHORTS.length()){
+            ShortVector.fromArray(SHORTS, accumulator, offset + i)
+                    .sub(ShortVector.fromArray(SHORTS, weights, weightOffset + i))
+                    .intoArray(accumulator, offset + i);
+        }
+        for(; i < length; i++){
+            accumulator[offset + i] -= weights[weightOffset + i];
+        }
+    }
+
+    @Override
+    void clippedRelu(final short[] accumulator, final int offset, final int[] activations, final int activationOffset,
+                     final int length, final int max){
+        final int bound = SHORTS.loopBound(length);
+        int i = 0;
+        for(; i < bound; i += SHORTS.length()){
+            final ShortVector clipped = ShortVector.fromArray(SHORTS, accumulator, offset + i)
+                    .max((short) 0)
+                    .min((short) max);
+            ((IntVector) clipped.convertShape(VectorOperators.S2I, INTS, 0))
+                    .intoArray(activations, activationOffset + i);
+            ((IntVector) clipped.convertShape(VectorOperators.S2I, INTS, 1))
+                    .intoArray(activations, activationOffset + i + INTS.length());
+        }
+        for(; i < length; i++){
+            activations[activationOffset + i] = Math.max(0, Math.min(accumulator[offset + i], max));
+        }
+    }
+
+    // four rows at a time: they share the loads of the inputs, and the multiplications of one row do not
+    // wait for the additions of another
+    @Override
+    void multiply(final int[] weights, final int rows, final int columns, final int[] inputs, final int[] outputs){
+        int row = 0;
+        for(; row + 4 <= rows; row += 4){
+            final int offset0 = row * columns;
+            final int offset1 = offset0 + columns;
+            final int offset2 = offset1 + columns;
+            final int offset3 = offset2 + columns;
+            final int bound = INTS.loopBound(columns);
+            IntVector sum0 = IntVector.zero(INTS);
+            IntVector sum1 = IntVector.zero(INTS);
+            IntVector sum2 = IntVector.zero(INTS);
+            IntVector sum3 = IntVector.zero(INTS);
+            int i = 0;
+            for(; i < bound; i += INTS.length()){
+                final IntVector input = IntVector.fromArray(INTS, inputs, i);
+                sum0 = sum0.add(IntVector.fromArray(INTS, weights, offset0 + i).mul(input));
+                sum1 = sum1.add(IntVector.fromArray(INTS, weights, offset1 + i).mul(input));
+                sum2 = sum2.add(IntVector.fromArray(INTS, weights, offset2 + i).mul(input));
+                sum3 = sum3.add(IntVector.fromArray(INTS, weights, offset3 + i).mul(input));
+            }
+            int result0 = sum0.reduceLanes(VectorOperators.ADD);
+            int result1 = sum1.reduceLanes(VectorOperators.ADD);
+            int result2 = sum2.reduceLanes(VectorOperators.ADD);
+            int result3 = sum3.reduceLanes(VectorOperators.ADD);
+            for(; i < columns; i++){
+                result0 += weights[offset0 + i] * inputs[i];
+                result1 += weights[offset1 + i] * inputs[i];
+                result2 += weights[offset2 + i] * inputs[i];
+                result3 += weights[offset3 + i] * inputs[i];
+            }
+            outputs[row] = result0;
+            outputs[row + 1] = result1;
+            outputs[row + 2] = result2;
+            outputs[row + 3] = result3;
+        }
+        for(; row < rows; row++){
+            final int offset = row * columns;
+            final int bound = INTS.loopBound(columns);
+            IntVector sum = IntVector.zero(INTS);
+            int i = 0;
+            for(; i < bound; i += INTS.length()){
+                sum = sum.add(IntVector.fromArray(INTS, weights, offset + i).mul(IntVector.fromArray(INTS, inputs, i)));
+            }
+            int result = sum.reduceLanes(VectorOperators.ADD);
+            for(; i < columns; i++){
+                result += weights[offset + i] * inputs[i];
+            }
+            outputs[row] = result;
+        }
+    }
+
+    @Override
+    String getName(){
+        return "vector " + SHORTS.vectorBitSize() + " bit";
+    }
+}
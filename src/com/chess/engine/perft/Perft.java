@@ -0,0 +1,157 @@
+package com.chess.engine.perft;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.MoveList;
+import com.chess.engine.board.PackedMove;
+import com.chess.engine.board.SearchBoard;
+import com.chess.pgn.FenUtilities;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/*
+ * Perft: count the leaf nodes of the legal move tree to a fixed depth.
+ *
+ * The counts are compared against known results to validate the move generator (see PerftSuite) and
+ * the time taken gives the raw throughput of move generation in nodes per second. The tree is walked
+ * with make / unmake on a SearchBoard, every fork join task owns its own copy.
+ *
+ * usage: Perft perft <depth> [fen]
+ *        Perft divide <depth> [fen]
+ *        Perft suite [max depth]
+ */
+public final class Perft {
+
+    private Perft(){
+        throw new RuntimeException("Not Instantiable!");
+    }
+
+    // the result of a run: total nodes, the nodes below every root move and the time it took
+    public static final class PerftResult {
+
+        private final long nodes;
+        private final long nanos;
+        private final Map<String, Long> divide;
+
+        PerftResult(final long nodes, final long nanos, final Map<String, Long> divide){
+            this.nodes = nodes;
+            this.nanos = nanos;
+            this.divide = divide;
+        }
+
+        public long getNodes(){
+            return this.nodes;
+        }
+
+        public long getMillis(){
+            return this.nanos / 1_000_000L;
+        }
+
+        public long getNodesPerSecond(){
+            return this.nanos == 0 ? 0 : this.nodes * 1_000_000_000L / this.nanos;
+        }
+
+        // root move in long algebraic notation -> leaf nodes below it
+        public Map<String, Long> getDivide(){
+            return this.divide;
+        }
+
+        @Override
+        public String toString(){
+            return String.format("nodes %d time %d ms nps %d", this.nodes, getMillis(), getNodesPerSecond());
+        }
+    }
+
+    // single threaded perft
+    public static long perft(final Board board, final int depth){
+        return perft(new SearchBoard(board), depth);
+    }
+
+    public static long perft(final SearchBoard board, final int depth){
+        return perft(board, depth, MoveList.createPlyBuffers(Math.max(depth, 1)), 0);
+    }
+
+    // perft split over the pool: every root move (and every move near the root) is a fork join task
+    public static PerftResult divide(final Board board, final int depth, final ForkJoinPool pool){
+        final long start = System.nanoTime();
+        final SearchBoard searchBoard = new SearchBoard(board);
+        final MoveList moves = new MoveList();
+        searchBoard.generateMoves(moves);
+        final List<PerftTask> tasks = new ArrayList<>(moves.size());
+        for(int i = 0; i < moves.size(); i++){
+            final SearchBoard child = searchBoard.copy();
+            child.makeMove(moves.get(i));
+            tasks.add(new PerftTask(child, depth - 1));
+        }
+        for(final PerftTask task : tasks){
+            pool.execute(task);
+        }
+        final Map<String, Long> divide = new LinkedHashMap<>();
+        long nodes = 0;
+        for(int i = 0; i < moves.size(); i++){
+            final long moveNodes = tasks.get(i).join();
+            divide.put(PackedMove.toString(moves.get(i)), moveNodes);
+            nodes += moveNodes;
+        }
+        return new PerftResult(nodes, System.nanoTime() - start, Collections.unmodifiableMap(divide));
+    }
+
+    static long perft(final SearchBoard board, final int depth, final MoveList[] buffers, final int ply){
+        if(depth == 0){
+            return 1L;
+        }
+        final MoveList moves = buffers[ply];
+        moves.clear();
+        board.generateMoves(moves);
+        // every generated move is legal, the last ply only has to be counted
+        if(depth == 1){
+            return moves.size();
+        }
+        long nodes = 0;
+        for(int i = 0; i < moves.size(); i++){
+            board.makeMove(moves.get(i));
+            nodes += perft(board, depth - 1, buffers, ply + 1);
+            board.unmakeMove();
+        }
+        return nodes;
+    }
+
+    public static void main(final String[] args){
+        if(args.length == 0){
+            System.out.println("usage: Perft perft <depth> [fen] | divide <depth> [fen] | suite [max depth]");
+            return;
+        }
+        final ForkJoinPool pool = ForkJoinPool.commonPool();
+        switch(args[0]){
+            case "perft":
+            case "divide": {
+                final int depth = Integer.parseInt(args[1]);
+                final Board board = args.length > 2 ?
+                        FenUtilities.createGameFromFEN(String.join(" ", Arrays.copyOfRange(args, 2, args.length))) :
+                        Board.createStandardBoard();
+                final PerftResult result = divide(board, depth, pool);
+                if(args[0].equals("divide")){
+                    for(final Map.Entry<String, Long> entry : result.getDivide().entrySet()){
+                        System.out.println(entry.getKey() + ": " + entry.getValue());
+                    }
+                }
+                System.out.println(result);
+                break;
+            }
+            case "suite": {
+                final int maxDepth = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+                if(!PerftSuite.run(maxDepth, pool, System.out)){
+                    System.exit(1);
+                }
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Unknown perft command " + args[0]);
+        }
+    }
+}
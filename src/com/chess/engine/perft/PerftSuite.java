@@ -0,0 +1,70 @@
+package com.chess.engine.perft;
+
+import com.chess.engine.board.Board;
+import com.chess.pgn.FenUtilities;
+
+import java.io.PrintStream;
+import java.util.concurrent.ForkJoinPool;
+
+/*
+ * The standard perft reference positions with their known node counts per depth
+ * (depth 1 first), as published on the chess programming wiki, plus a few small positions
+ * around checks, pins and en passant.
+ */
+public final class PerftSuite {
+
+    private static final Object[][] POSITIONS = {
+            {"initial", "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                    new long[]{20L, 400L, 8902L, 197281L, 4865609L, 119060324L}},
+            {"kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                    new long[]{48L, 2039L, 97862L, 4085603L, 193690690L}},
+            {"position 3", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+                    new long[]{14L, 191L, 2812L, 43238L, 674624L, 11030083L}},
+            {"position 4", "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+                    new long[]{6L, 264L, 9467L, 422333L, 15833292L}},
+            {"position 4 mirrored", "r2q1rk1/pP1p2pp/Q4n2/bbp1p3/Np6/1B3NBn/pPPP1PPP/R3K2R b KQ - 0 1",
+                    new long[]{6L, 264L, 9467L, 422333L, 15833292L}},
+            {"position 5", "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+                    new long[]{44L, 1486L, 62379L, 2103487L, 89941194L}},
+            {"position 6", "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+                    new long[]{46L, 2079L, 89890L, 3894594L, 164075551L}},
+            // pins, discovered checks and en passant captures that expose the king
+            {"ep discovered 1", "3k4/3p4/8/K1P4r/8/8/8/8 b - - 0 1",
+                    new long[]{18L, 92L, 1670L, 10138L, 185429L, 1134888L}},
+            {"ep discovered 2", "8/8/4k3/8/2p5/8/B2P2K1/8 w - - 0 1",
+                    new long[]{13L, 102L, 1266L, 10276L, 135655L, 1015133L}},
+            {"ep out of check", "8/8/1k6/2b5/2pP4/8/5K2/8 b - d3 0 1",
+                    new long[]{15L, 126L, 1928L, 13931L, 206379L, 1440467L}},
+            {"knight and queen", "8/8/1P2K3/8/2n5/1q6/8/5k2 b - - 0 1",
+                    new long[]{29L, 165L, 5160L, 31961L, 1004658L}}
+    };
+
+    private PerftSuite(){
+        throw new RuntimeException("Not Instantiable!");
+    }
+
+    // run every position up to the given depth, returns false as soon as one count is wrong
+    public static boolean run(final int maxDepth, final ForkJoinPool pool, final PrintStream out){
+        long totalNodes = 0;
+        long totalMillis = 0;
+        for(final Object[] position : POSITIONS){
+            final String name = (String) position[0];
+            final Board board = FenUtilities.createGameFromFEN((String) position[1]);
+            final long[] expected = (long[]) position[2];
+            for(int depth = 1; depth <= Math.min(maxDepth, expected.length); depth++){
+                final Perft.PerftResult result = Perft.divide(board, depth, pool);
+                final boolean passed = result.getNodes() == expected[depth - 1];
+                out.printf("%-20s depth %d expected %12d %s %s%n", name, depth, expected[depth - 1],
+                        passed ? "ok  " : "FAIL", result);
+                if(!passed){
+                    return false;
+                }
+                totalNodes += result.getNodes();
+                totalMillis += result.getMillis();
+            }
+        }
+        out.printf("all passed: nodes %d time %d ms nps %d%n", totalNodes, totalMillis,
+                totalMillis == 0 ? 0 : totalNodes * 1000L / totalMillis);
+        return true;
+    }
+}
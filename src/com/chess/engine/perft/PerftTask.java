@@ -0,0 +1,46 @@
+package com.chess.engine.perft;
+
+import com.chess.engine.board.MoveList;
+import com.chess.engine.board.SearchBoard;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+
+/*
+ * Counts the leaf nodes below a board. Near the root every legal move becomes a forked subtask so the
+ * tree is spread over the fork join pool, the last SEQUENTIAL_DEPTH plies are counted in place.
+ */
+class PerftTask extends RecursiveTask<Long> {
+
+    private static final long serialVersionUID = 1L;
+    private static final int SEQUENTIAL_DEPTH = 3;
+
+    private final transient SearchBoard board;
+    private final int depth;
+
+    PerftTask(final SearchBoard board, final int depth){
+        this.board = board;
+        this.depth = depth;
+    }
+
+    @Override
+    protected Long compute(){
+        if(this.depth <= SEQUENTIAL_DEPTH){
+            return Perft.perft(this.board, this.depth);
+        }
+        final MoveList moves = new MoveList();
+        this.board.generateMoves(moves);
+        final List<PerftTask> subtasks = new ArrayList<>(moves.size());
+        for(int i = 0; i < moves.size(); i++){
+            final SearchBoard child = this.board.copy();
+            child.makeMove(moves.get(i));
+            subtasks.add(new PerftTask(child, this.depth - 1));
+        }
+        long nodes = 0;
+        for(final PerftTask subtask : invokeAll(subtasks)){
+            nodes += subtask.join();
+        }
+        return nodes;
+    }
+}
@@ -3,21 +3,34 @@ package com.chess.engine.pieces;
 import java.util.Collection;
 
 import com.chess.engine.Alliance;
+import com.chess.engine.board.BitBoards;
 import com.chess.engine.board.Board;
+import com.chess.engine.board.BoardUtils;
 import com.chess.engine.board.Move;
+import com.chess.engine.board.MoveGenerator;
+import com.chess.engine.board.MoveList;
 
 public abstract class Piece {
+
+	//pieces are immutable, so one instance per piece type, alliance and tile is all we ever need
+	//indexed by bitboard index (alliance * 6 + piece type), then tile
+	private static final Piece[][] PIECE_CACHE = createAllPossiblePieces();
+
     //Every piece has its coordinate
 	protected final int piecePosition;
 	
 	//Piece has a black or white alliance
 	protected final Alliance pieceAlliance;
 
+	//the kind of piece, also the index of its bitboard
+	protected final PieceType pieceType;
+
 	//check for the first move of the piece
 	//TODO more work to do here!!!
 	protected final boolean isFirstMove;
 	
-	Piece(final int piecePosition, final Alliance pieceAlliance){
+	Piece(final PieceType pieceType, final int piecePosition, final Alliance pieceAlliance){
+		this.pieceType = pieceType;
 		this.pieceAlliance = pieceAlliance;
 		this.piecePosition = piecePosition;
 		this.isFirstMove = false;
@@ -31,6 +44,10 @@ public abstract class Piece {
 	    return this.pieceAlliance;
     }
 
+	public PieceType getPieceType(){
+		return this.pieceType;
+	}
+
     public boolean isFirstMove(){
 		return this.isFirstMove;
 	}
@@ -38,19 +55,70 @@ public abstract class Piece {
 	//calculating the legal moves of the piece in the form
 	public abstract Collection<Move> calculatedLegalMoves(final Board board);
 
+	//the shared piece of the given type, alliance and tile, nothing is allocated
+	public static Piece createPiece(final PieceType pieceType, final Alliance pieceAlliance, final int piecePosition){
+		return PIECE_CACHE[BitBoards.index(pieceAlliance, pieceType)][piecePosition];
+	}
+
+	private static Piece[][] createAllPossiblePieces(){
+		final PieceType[] pieceTypes = PieceType.values();
+		final Piece[][] pieces = new Piece[BitBoards.WHITE_PIECES][BoardUtils.NUM_TILES];
+		for(final Alliance alliance : Alliance.values()){
+			for(final PieceType pieceType : pieceTypes){
+				for(int i = 0; i < BoardUtils.NUM_TILES; i++){
+					pieces[BitBoards.index(alliance, pieceType)][i] = newPiece(pieceType, alliance, i);
+				}
+			}
+		}
+		return pieces;
+	}
+
+	private static Piece newPiece(final PieceType pieceType, final Alliance pieceAlliance, final int piecePosition){
+		switch(pieceType){
+			case PAWN:
+				return new Pawn(pieceAlliance, piecePosition);
+			case KNIGHT:
+				return new Knight(pieceAlliance, piecePosition);
+			case BISHOP:
+				return new Bishop(pieceAlliance, piecePosition);
+			case ROOK:
+				return new Rook(pieceAlliance, piecePosition);
+			case QUEEN:
+				return new Queen(pieceAlliance, piecePosition);
+			case KING:
+				return new King(pieceAlliance, piecePosition);
+			default:
+				throw new IllegalArgumentException("Unknown piece type " + pieceType);
+		}
+	}
+
+	//generate the packed moves of this piece into a fresh buffer and only then create the Move objects
+	protected Collection<Move> createMoves(final Board board){
+		final MoveList moves = new MoveList();
+		MoveGenerator.generatePieceMoves(board, this, moves);
+		return Move.createMoves(board, moves);
+	}
+
 	public enum PieceType{
 
-		PAWN("P"),
-		KNIGHT("N"),
-		BISHOP("B"),
-		ROOK("R"),
-		QUEEN("Q"),
-		KING("K");
+		PAWN("P", 100),
+		KNIGHT("N", 300),
+		BISHOP("B", 330),
+		ROOK("R", 500),
+		QUEEN("Q", 900),
+		KING("K", 10000);
 
 		private String pieceName;
+		private int pieceValue;
 
-		PieceType(final String pieceName){
+		PieceType(final String pieceName, final int pieceValue){
 			this.pieceName = pieceName;
+			this.pieceValue = pieceValue;
+		}
+
+		//material value in centipawns
+		public int getPieceValue(){
+			return this.pieceValue;
 		}
 
 		@Override
@@ -0,0 +1,207 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.Move;
+import com.chess.engine.board.PackedMove;
+import com.chess.engine.board.SearchBoard;
+import com.chess.engine.metrics.EngineMetrics;
+import com.chess.engine.metrics.SearchEvent;
+import com.chess.engine.tablebase.Tablebases;
+
+/*
+ * Iterative deepening principal variation search.
+ *
+ * Every iteration searches one ply deeper than the last, seeded with the moves the previous iterations
+ * left in the transposition table, and from depth 4 on inside an aspiration window around the previous
+ * score. The result of the last completed iteration is the answer, so the search can be stopped at any
+ * time (see SearchLimits for the soft and hard time limits) and still return a sensible move.
+ *
+ * With more than one thread the search runs lazy SMP: helper threads search the same root on their own
+ * copies of the board at staggered depths, sharing only the transposition table. The result reported
+ * is always the main thread's, the helpers are stopped as soon as it is done.
+ */
+public final class AlphaBetaSearch implements MoveStrategy {
+
+    public static final int MAX_PLY = 128;
+    public static final int INFINITY = 32001;
+    public static final int MATE = 32000;
+    // any score beyond this is a mate, found within the search horizon or a table distance beyond it
+    public static final int MATE_BOUND = MATE - MAX_PLY - Tablebases.MAX_DISTANCE;
+    public static final int DRAW = 0;
+
+    public static final int MAX_THREADS = 256;
+
+    private static final long DEFAULT_MOVE_TIME_MILLIS = 1000;
+
+    private final TranspositionTable transpositionTable;
+    private BoardEvaluator evaluator;
+    private SearchListener listener;
+    private volatile Tablebases tablebases;
+
+    private volatile boolean stopRequested;
+    // volatile as ponderHit replaces them while the search threads read them
+    private volatile SearchLimits limits;
+    private volatile long startNanos;
+    private SearchWorker[] workers;
+    // searches and their time, the workers count everything else
+    private final long[] counters = EngineMetrics.newStripe(this);
+
+    public AlphaBetaSearch(final TranspositionTable transpositionTable, final BoardEvaluator evaluator){
+        this.transpositionTable = transpositionTable;
+        this.evaluator = evaluator;
+        setThreads(1);
+    }
+
+    public AlphaBetaSearch(){
+        this(new TranspositionTable(TranspositionTable.DEFAULT_SIZE_MB), new PositionalEvaluator());
+    }
+
+    public void setListener(final SearchListener listener){
+        this.listener = listener;
+    }
+
+    // takes effect with the next search
+    public void setThreads(final int threads){
+        if(threads < 1 || threads > MAX_THREADS){
+            throw new IllegalArgumentException("Thread count must be between 1 and " + MAX_THREADS + ", got " + threads);
+        }
+        final SearchWorker[] newWorkers = new SearchWorker[threads];
+        for(int i = 0; i < threads; i++){
+            newWorkers[i] = new SearchWorker(this, i, this.transpositionTable, this.evaluator);
+        }
+        this.workers = newWorkers;
+    }
+
+    // takes effect with the next search
+    public void setEvaluator(final BoardEvaluator evaluator){
+        this.evaluator = evaluator;
+        setThreads(getThreads());
+    }
+
+    public BoardEvaluator getEvaluator(){
+        return this.evaluator;
+    }
+
+    public int getThreads(){
+        return this.workers.length;
+    }
+
+    // endgame tables probed at every node below the root, null for none
+    public void setTablebases(final Tablebases tablebases){
+        this.tablebases = tablebases;
+    }
+
+    public Tablebases getTablebases(){
+        return this.tablebases;
+    }
+
+    public TranspositionTable getTranspositionTable(){
+        return this.transpositionTable;
+    }
+
+    @Override
+    public Move execute(final Board board){
+        return search(board, SearchLimits.moveTime(DEFAULT_MOVE_TIME_MILLIS)).getBestMove(board);
+    }
+
+    public SearchResult search(final Board board, final SearchLimits limits){
+        return search(new SearchBoard(board), limits);
+    }
+
+    // searches on copies, the given board is left as it is
+    public SearchResult search(final SearchBoard board, final SearchLimits limits){
+        final SearchWorker[] searchWorkers = this.workers;
+        final SearchEvent event = EngineMetrics.isRecorderInitialized() ? new SearchEvent() : null;
+        if(event != null){
+            event.begin();
+        }
+        this.limits = limits;
+        this.startNanos = System.nanoTime();
+        this.stopRequested = false;
+        this.transpositionTable.newSearch();
+        for(final SearchWorker worker : searchWorkers){
+            worker.prepare(board.copy());
+        }
+        final Thread[] helpers = new Thread[searchWorkers.length - 1];
+        for(int i = 0; i < helpers.length; i++){
+            final SearchWorker helper = searchWorkers[i + 1];
+            helpers[i] = new Thread(() -> helper.iterativeDeepening(limits, null), "search-helper-" + (i + 1));
+            helpers[i].setDaemon(true);
+            helpers[i].start();
+        }
+        SearchResult result = null;
+        try {
+            result = searchWorkers[0].iterativeDeepening(limits, this.listener);
+            return result;
+        } finally {
+            this.stopRequested = true;
+            joinHelpers(helpers);
+            this.counters[EngineMetrics.SEARCHES]++;
+            this.counters[EngineMetrics.SEARCH_NANOS] += System.nanoTime() - this.startNanos;
+            if(result != null && event != null && event.shouldCommit()){
+                event.fen = board.toFEN();
+                event.threads = searchWorkers.length;
+                event.depth = result.getDepth();
+                event.score = result.getScore();
+                event.bestMove = PackedMove.toString(result.getBestMove());
+                event.nodes = getNodes();
+                event.nodesPerSecond = result.getNodesPerSecond();
+                event.commit();
+            }
+        }
+    }
+
+    private static void joinHelpers(final Thread[] helpers){
+        boolean interrupted = false;
+        for(final Thread helper : helpers){
+            while(true){
+                try {
+                    helper.join();
+                    break;
+                } catch (final InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if(interrupted){
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // may be called from any thread, the running search returns its last complete iteration
+    public void stop(){
+        this.stopRequested = true;
+    }
+
+    /*
+     * Switch the running search to new limits, counted from now. Used when the opponent plays the move
+     * that was pondered: the search started without limits and goes on under the real clock.
+     */
+    public void ponderHit(final SearchLimits limits){
+        this.startNanos = System.nanoTime();
+        this.limits = limits;
+    }
+
+    // the helpers' counts are read without synchronization, so the total may lag slightly behind
+    long getNodes(){
+        long nodes = 0;
+        for(final SearchWorker worker : this.workers){
+            nodes += worker.getNodes();
+        }
+        return nodes;
+    }
+
+    long getElapsedMillis(){
+        return (System.nanoTime() - this.startNanos) / 1_000_000L;
+    }
+
+    boolean isSoftLimitReached(){
+        return this.stopRequested || getElapsedMillis() >= this.limits.getSoftTimeMillis();
+    }
+
+    boolean shouldStop(){
+        return this.stopRequested ||
+                getElapsedMillis() >= this.limits.getHardTimeMillis() ||
+                getNodes() >= this.limits.getNodes();
+    }
+}
@@ -0,0 +1,19 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.board.SearchBoard;
+
+public interface BoardEvaluator {
+
+    // static score of the position in centipawns, from the point of view of the side to move
+    int evaluate(SearchBoard board);
+
+    // the evaluator a search thread uses, evaluators with state of their own give every thread a copy
+    default BoardEvaluator forThread(){
+        return this;
+    }
+
+    // the same, with a pawn hash table of the calling thread to keep pawn structure terms in
+    default int evaluate(final SearchBoard board, final PawnHashTable pawnTable){
+        return evaluate(board);
+    }
+}
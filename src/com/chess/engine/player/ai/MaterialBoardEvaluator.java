@@ -0,0 +1,23 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.board.BitBoards;
+import com.chess.engine.board.SearchBoard;
+import com.chess.engine.pieces.Piece;
+
+// the simplest evaluation there is: count the material
+public final class MaterialBoardEvaluator implements BoardEvaluator {
+
+    private static final Piece.PieceType[] PIECE_TYPES = Piece.PieceType.values();
+
+    @Override
+    public int evaluate(final SearchBoard board){
+        int score = 0;
+        // the king is on the board for both sides, no need to count it
+        for(int pieceType = 0; pieceType < BitBoards.NUM_PIECE_TYPES - 1; pieceType++){
+            final int value = PIECE_TYPES[pieceType].getPieceValue();
+            score += value * (Long.bitCount(board.getBitboard(pieceType)) -
+                    Long.bitCount(board.getBitboard(BitBoards.NUM_PIECE_TYPES + pieceType)));
+        }
+        return board.getSideToMove() == 0 ? score : -score;
+    }
+}
@@ -0,0 +1,134 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.board.BoardUtils;
+import com.chess.engine.board.MoveList;
+import com.chess.engine.board.PackedMove;
+import com.chess.engine.pieces.Piece;
+
+import java.util.Arrays;
+
+import static com.chess.engine.board.BitBoards.NUM_PIECE_TYPES;
+import static com.chess.engine.player.ai.AlphaBetaSearch.MAX_PLY;
+
+/*
+ * The knowledge behind the order the moves of a node are searched in (see MovePicker), the better the
+ * order the sooner the cutoffs come.
+ *
+ *   - captures are scored most valuable victim first and of those the least valuable attacker first
+ *     (MVV-LVA), queen promotions as if they captured a queen
+ *   - the two killer moves of a ply: quiet moves that caused a cutoff in a sibling node
+ *   - the counter move: the quiet move that last refuted the opponent's previous move
+ *   - the other quiet moves are scored by their history: how often they caused cutoffs anywhere in the tree
+ *
+ * Every worker keeps its own tables in primitive arrays. The history is halved and the killers are
+ * cleared between searches, so old knowledge still counts but fades.
+ */
+final class MoveOrdering {
+
+    // history scores stay within +-MAX_HISTORY
+    private static final int MAX_HISTORY = 1 << 14;
+
+    private static final int PAWN = Piece.PieceType.PAWN.ordinal();
+
+    // indexed by attacker, then victim piece type
+    private static final int[][] MVV_LVA = new int[NUM_PIECE_TYPES][NUM_PIECE_TYPES];
+
+    static {
+        final Piece.PieceType[] pieceTypes = Piece.PieceType.values();
+        for(final Piece.PieceType attacker : pieceTypes){
+            for(final Piece.PieceType victim : pieceTypes){
+                MVV_LVA[attacker.ordinal()][victim.ordinal()] = victim.getPieceValue() * 100 - attacker.getPieceValue();
+            }
+        }
+    }
+
+    private final int[][] killers = new int[MAX_PLY][2];
+    // butterfly history, indexed by side and then from * 64 + to
+    private final int[][] history = new int[2][BoardUtils.NUM_TILES * BoardUtils.NUM_TILES];
+    // indexed by side to move, then piece type * 64 + destination of the opponent's last move
+    private final int[][] counterMoves = new int[2][NUM_PIECE_TYPES * BoardUtils.NUM_TILES];
+
+    // called before every search
+    void age(){
+        for(final int[] killer : this.killers){
+            Arrays.fill(killer, PackedMove.NULL_MOVE);
+        }
+        for(final int[] sideHistory : this.history){
+            for(int i = 0; i < sideHistory.length; i++){
+                sideHistory[i] /= 2;
+            }
+        }
+    }
+
+    // captures and promotions by MVV-LVA
+    void scoreCaptures(final MoveList moves, final int[] scores){
+        for(int i = 0; i < moves.size(); i++){
+            final int move = moves.get(i);
+            if(PackedMove.isCapture(move)){
+                scores[i] = MVV_LVA[PackedMove.getPiece(move)][PackedMove.getCaptured(move)] +
+                        (PackedMove.isPromotion(move) ? PackedMove.getPromotion(move) : 0);
+            }else{
+                scores[i] = MVV_LVA[PAWN][PackedMove.getPromotion(move)];
+            }
+        }
+    }
+
+    // quiet moves by their history
+    void scoreQuiets(final MoveList moves, final int[] scores, final int side){
+        final int[] sideHistory = this.history[side];
+        for(int i = 0; i < moves.size(); i++){
+            scores[i] = sideHistory[butterflyIndex(moves.get(i))];
+        }
+    }
+
+    // the first (0) or second (1) killer move of the ply, NULL_MOVE if there is none yet
+    int getKiller(final int ply, final int index){
+        return this.killers[ply][index];
+    }
+
+    /*
+     * A quiet move caused a cutoff: it becomes a killer and the counter move to the previous move, its
+     * history grows and the history of the quiet moves searched before it without success shrinks.
+     */
+    void updateQuietCutoff(final int move, final int ply, final int side, final int previousMove, final int depth,
+                           final int[] quietsSearched, final int quietCount){
+        final int[] killer = this.killers[ply];
+        if(killer[0] != move){
+            killer[1] = killer[0];
+            killer[0] = move;
+        }
+        if(previousMove != PackedMove.NULL_MOVE){
+            this.counterMoves[side][counterIndex(previousMove)] = move;
+        }
+        final int bonus = Math.min(depth * depth, MAX_HISTORY / 4);
+        final int[] sideHistory = this.history[side];
+        addHistory(sideHistory, butterflyIndex(move), bonus);
+        for(int i = 0; i < quietCount; i++){
+            addHistory(sideHistory, butterflyIndex(quietsSearched[i]), -bonus);
+        }
+    }
+
+    // quiet moves are neither captures nor promotions
+    static boolean isQuiet(final int move){
+        return !PackedMove.isCapture(move) && !PackedMove.isPromotion(move);
+    }
+
+    // the gravity term keeps the score within +-MAX_HISTORY, moves that stop working lose it quickly
+    private static void addHistory(final int[] sideHistory, final int index, final int bonus){
+        sideHistory[index] += bonus - sideHistory[index] * Math.abs(bonus) / MAX_HISTORY;
+    }
+
+    // the quiet move that last refuted the opponent's previous move, NULL_MOVE if there is none
+    int getCounterMove(final int side, final int previousMove){
+        return previousMove == PackedMove.NULL_MOVE ? PackedMove.NULL_MOVE :
+                this.counterMoves[side][counterIndex(previousMove)];
+    }
+
+    private static int butterflyIndex(final int move){
+        return PackedMove.getFrom(move) * BoardUtils.NUM_TILES + PackedMove.getTo(move);
+    }
+
+    private static int counterIndex(final int move){
+        return PackedMove.getPiece(move) * BoardUtils.NUM_TILES + PackedMove.getTo(move);
+    }
+}
@@ -0,0 +1,200 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.board.MoveGenerator;
+import com.chess.engine.board.MoveList;
+import com.chess.engine.board.PackedMove;
+import com.chess.engine.board.SearchBoard;
+import com.chess.engine.pieces.Piece;
+
+/*
+ * Hands out the moves of one node in stages, each generated only when the one before is used up:
+ *
+ *   1. the transposition table move, checked for legality but nothing generated
+ *   2. the good captures and queen promotions, MVV-LVA order, that do not lose material by static
+ *      exchange evaluation
+ *   3. the killer moves and the counter move (see MoveOrdering), again only checked for legality
+ *   4. the quiet moves by their history
+ *   5. the bad captures and under promotions, in the order they were put aside
+ *
+ * Most cut nodes fail high on the transposition table move or a capture, and then the quiet moves are
+ * never generated at all. In the quiescence search only the second stage is used.
+ *
+ * next() is a state machine whose stages fall through to the next one as soon as they have nothing
+ * (more) to give. One picker per ply and search worker, all buffers are allocated up front.
+ */
+final class MovePicker {
+
+    private static final int TRANSPOSITION_MOVE = 0;
+    private static final int GENERATE_CAPTURES = 1;
+    private static final int GOOD_CAPTURES = 2;
+    private static final int FIRST_KILLER = 3;
+    private static final int SECOND_KILLER = 4;
+    private static final int COUNTER_MOVE = 5;
+    private static final int GENERATE_QUIETS = 6;
+    private static final int QUIETS = 7;
+    private static final int BAD_CAPTURES = 8;
+    private static final int DONE = 9;
+
+    private static final int QUEEN = Piece.PieceType.QUEEN.ordinal();
+
+    private final MoveOrdering moveOrdering;
+    private final MoveList moves = new MoveList();
+    private final int[] scores = new int[MoveList.MAX_MOVES];
+    private final int[] badCaptures = new int[MoveList.MAX_MOVES];
+    // scratch space of the static exchange evaluation, shared by the pickers of a worker
+    private final int[] exchangeGains;
+
+    private SearchBoard board;
+    private int stage;
+    private int index;
+    private int badCaptureCount;
+    private boolean capturesOnly;
+    private int transpositionMove;
+    private int firstKiller;
+    private int secondKiller;
+    private int counterMove;
+    private int side;
+
+    MovePicker(final MoveOrdering moveOrdering, final int[] exchangeGains){
+        this.moveOrdering = moveOrdering;
+        this.exchangeGains = exchangeGains;
+    }
+
+    // every move of the node, transposition move first
+    void reset(final SearchBoard board, final int transpositionMove, final int ply){
+        this.board = board;
+        this.stage = TRANSPOSITION_MOVE;
+        this.capturesOnly = false;
+        this.badCaptureCount = 0;
+        this.side = board.getSideToMove();
+        this.transpositionMove = transpositionMove;
+        this.firstKiller = this.moveOrdering.getKiller(ply, 0);
+        this.secondKiller = this.moveOrdering.getKiller(ply, 1);
+        this.counterMove = this.moveOrdering.getCounterMove(this.side, board.getLastMove());
+    }
+
+    // only the good captures and queen promotions, for the quiescence search
+    void resetCaptures(final SearchBoard board){
+        this.board = board;
+        this.stage = GENERATE_CAPTURES;
+        this.capturesOnly = true;
+        this.badCaptureCount = 0;
+        this.transpositionMove = PackedMove.NULL_MOVE;
+    }
+
+    // the next move to search, NULL_MOVE once there are none left
+    @SuppressWarnings("fallthrough")
+    int next(){
+        switch(this.stage){
+            case TRANSPOSITION_MOVE:
+                this.stage = GENERATE_CAPTURES;
+                if(this.board.isLegal(this.transpositionMove)){
+                    return this.transpositionMove;
+                }
+                // fall through
+            case GENERATE_CAPTURES:
+                this.moves.clear();
+                this.board.generateMoves(this.moves, MoveGenerator.CAPTURES);
+                this.moveOrdering.scoreCaptures(this.moves, this.scores);
+                this.index = 0;
+                this.stage = GOOD_CAPTURES;
+                // fall through
+            case GOOD_CAPTURES:
+                while(this.index < this.moves.size()){
+                    final int move = pickNextMove(this.moves, this.scores, this.index++);
+                    if(move == this.transpositionMove){
+                        continue;
+                    }
+                    if(isGoodCapture(move)){
+                        return move;
+                    }
+                    this.badCaptures[this.badCaptureCount++] = move;
+                }
+                if(this.capturesOnly){
+                    this.stage = DONE;
+                    return PackedMove.NULL_MOVE;
+                }
+                this.stage = FIRST_KILLER;
+                // fall through
+            case FIRST_KILLER:
+                this.stage = SECOND_KILLER;
+                if(isRefutation(this.firstKiller)){
+                    return this.firstKiller;
+                }
+                // fall through
+            case SECOND_KILLER:
+                this.stage = COUNTER_MOVE;
+                if(this.secondKiller != this.firstKiller && isRefutation(this.secondKiller)){
+                    return this.secondKiller;
+                }
+                // fall through
+            case COUNTER_MOVE:
+                this.stage = GENERATE_QUIETS;
+                if(this.counterMove != this.firstKiller && this.counterMove != this.secondKiller &&
+                        isRefutation(this.counterMove)){
+                    return this.counterMove;
+                }
+                // fall through
+            case GENERATE_QUIETS:
+                this.moves.clear();
+                this.board.generateMoves(this.moves, MoveGenerator.QUIETS);
+                this.moveOrdering.scoreQuiets(this.moves, this.scores, this.side);
+                this.index = 0;
+                this.stage = QUIETS;
+                // fall through
+            case QUIETS:
+                while(this.index < this.moves.size()){
+                    final int move = pickNextMove(this.moves, this.scores, this.index++);
+                    if(move != this.transpositionMove && move != this.firstKiller && move != this.secondKiller &&
+                            move != this.counterMove){
+                        return move;
+                    }
+                }
+                this.index = 0;
+                this.stage = BAD_CAPTURES;
+                // fall through
+            case BAD_CAPTURES:
+                if(this.index < this.badCaptureCount){
+                    return this.badCaptures[this.index++];
+                }
+                this.stage = DONE;
+                // fall through
+            default:
+                return PackedMove.NULL_MOVE;
+        }
+    }
+
+    // under promotions are hardly ever good, captures of a piece worth at least the capturer always are
+    private boolean isGoodCapture(final int move){
+        if(PackedMove.isPromotion(move) && PackedMove.getPromotion(move) != QUEEN){
+            return false;
+        }
+        if(PackedMove.isCapture(move) && !PackedMove.isPromotion(move) &&
+                StaticExchange.value(PackedMove.getCaptured(move)) >= StaticExchange.value(PackedMove.getPiece(move))){
+            return true;
+        }
+        return StaticExchange.evaluate(this.board, move, this.exchangeGains) >= 0;
+    }
+
+    // a killer or counter move not searched yet that is still a legal quiet move here
+    private boolean isRefutation(final int move){
+        return move != PackedMove.NULL_MOVE && move != this.transpositionMove && this.board.isLegal(move);
+    }
+
+    // selection sort one step at a time, most nodes cut off after the first few moves
+    private static int pickNextMove(final MoveList moves, final int[] scores, final int index){
+        int best = index;
+        for(int i = index + 1; i < moves.size(); i++){
+            if(scores[i] > scores[best]){
+                best = i;
+            }
+        }
+        if(best != index){
+            moves.swap(index, best);
+            final int score = scores[index];
+            scores[index] = scores[best];
+            scores[best] = score;
+        }
+        return moves.get(index);
+    }
+}
@@ -0,0 +1,10 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.Move;
+
+public interface MoveStrategy {
+
+    // the move the engine plays on the board
+    Move execute(Board board);
+}
@@ -0,0 +1,82 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.metrics.EngineMetrics;
+
+import java.util.Arrays;
+
+/*
+ * The pawn structure terms of recently evaluated positions, indexed by the pawn key (see
+ * SearchBoard.getPawnKey).
+ *
+ * Pawns move rarely, so nearly every evaluation in a search finds its pawn structure here and only
+ * the other terms are left to compute. Every search worker owns a table and only its own thread touches
+ * it, so the entries are plain primitive arrays: the full key, then per alliance the packed score and the
+ * passed pawns. A new entry always replaces the old one at its index.
+ */
+public final class PawnHashTable {
+
+    // probe result when the pawn key is not in the table
+    public static final int MISS = -1;
+
+    public static final int DEFAULT_ENTRIES = 1 << 14;
+
+    private final long[] keys;
+    // indexed by entry * 2 + alliance ordinal
+    private final int[] scores;
+    private final long[] passedPawns;
+    private final int mask;
+    // PAWN_PROBES and PAWN_HITS are counted into the stripe of the owning thread
+    private final long[] counters;
+
+    // a table of (at most) the given number of entries, rounded down to a power of two
+    public PawnHashTable(final int entries, final long[] counters){
+        if(entries < 1){
+            throw new IllegalArgumentException("Pawn hash table needs at least 1 entry, got " + entries);
+        }
+        final int size = Integer.highestOneBit(entries);
+        this.keys = new long[size];
+        this.scores = new int[size * 2];
+        this.passedPawns = new long[size * 2];
+        this.mask = size - 1;
+        this.counters = counters;
+    }
+
+    // an empty entry holds key 0, the key of no pawns at all, and that is right: no pawns, no terms
+    public void clear(){
+        Arrays.fill(this.keys, 0L);
+        Arrays.fill(this.scores, 0);
+        Arrays.fill(this.passedPawns, 0L);
+    }
+
+    // the entry of the pawn key, or MISS
+    public int probe(final long pawnKey){
+        this.counters[EngineMetrics.PAWN_PROBES]++;
+        final int entry = (int) pawnKey & this.mask;
+        if(this.keys[entry] != pawnKey){
+            return MISS;
+        }
+        this.counters[EngineMetrics.PAWN_HITS]++;
+        return entry;
+    }
+
+    // store the terms of both sides, returns the entry they went to
+    public int store(final long pawnKey, final int whiteScore, final int blackScore, final long whitePassed,
+                     final long blackPassed){
+        final int entry = (int) pawnKey & this.mask;
+        this.keys[entry] = pawnKey;
+        this.scores[entry * 2] = whiteScore;
+        this.scores[entry * 2 + 1] = blackScore;
+        this.passedPawns[entry * 2] = whitePassed;
+        this.passedPawns[entry * 2 + 1] = blackPassed;
+        return entry;
+    }
+
+    // the packed pawn structure score of one alliance
+    public int getScore(final int entry, final int side){
+        return this.scores[entry * 2 + side];
+    }
+
+    public long getPassedPawns(final int entry, final int side){
+        return this.passedPawns[entry * 2 + side];
+    }
+}
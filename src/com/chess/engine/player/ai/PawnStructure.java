@@ -0,0 +1,107 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.board.BoardUtils;
+
+import static com.chess.engine.board.BitBoards.*;
+import static com.chess.engine.board.PieceSquareTable.pack;
+
+/*
+ * The pawn structure terms of the evaluation: passed, isolated, doubled and backward pawns.
+ *
+ * They depend on nothing but the pawns of both sides, so PawnHashTable can keep them under the pawn key.
+ * Scores are packed like PieceSquareTable scores, for one side.
+ */
+final class PawnStructure {
+
+    private static final int DOUBLED = pack(-11, -26);
+    private static final int ISOLATED = pack(-5, -15);
+    private static final int BACKWARD = pack(-9, -12);
+    // by rank counted from the own side, 0 is the first rank
+    private static final int[] PASSED = {0, pack(5, 10), pack(10, 17), pack(15, 25), pack(35, 50), pack(60, 90),
+            pack(100, 140), 0};
+
+    private static final int NUM_TILES = BoardUtils.NUM_TILES;
+
+    // the tiles in front of a pawn on its own column, indexed by side and tile
+    private static final long[][] FRONT_SPAN = new long[2][NUM_TILES];
+    // the tiles an enemy pawn must not stand on for a pawn to be passed: in front of it on its own and the neighbouring columns
+    private static final long[][] PASSED_SPAN = new long[2][NUM_TILES];
+    // the tiles on the neighbouring columns level with or behind a pawn, where pawns could support it
+    private static final long[][] SUPPORT_SPAN = new long[2][NUM_TILES];
+    private static final long[] NEIGHBOUR_COLUMNS = new long[BoardUtils.NUM_TILES_PER_ROW];
+
+    static {
+        for(int column = 0; column < BoardUtils.NUM_TILES_PER_ROW; column++){
+            NEIGHBOUR_COLUMNS[column] = (column > 0 ? COLUMNS[column - 1] : 0L) |
+                    (column < BoardUtils.NUM_TILES_PER_ROW - 1 ? COLUMNS[column + 1] : 0L);
+        }
+        for(int square = 0; square < NUM_TILES; square++){
+            final int column = square & 7;
+            final int row = square >>> 3;
+            // white moves towards row 0, black towards row 7
+            long whiteAhead = 0L;
+            long blackAhead = 0L;
+            for(int r = 0; r < row; r++){
+                whiteAhead |= ROWS[r];
+            }
+            for(int r = row + 1; r < BoardUtils.NUM_TILES_PER_ROW; r++){
+                blackAhead |= ROWS[r];
+            }
+            FRONT_SPAN[0][square] = whiteAhead & COLUMNS[column];
+            FRONT_SPAN[1][square] = blackAhead & COLUMNS[column];
+            PASSED_SPAN[0][square] = whiteAhead & (COLUMNS[column] | NEIGHBOUR_COLUMNS[column]);
+            PASSED_SPAN[1][square] = blackAhead & (COLUMNS[column] | NEIGHBOUR_COLUMNS[column]);
+            SUPPORT_SPAN[0][square] = ~whiteAhead & NEIGHBOUR_COLUMNS[column];
+            SUPPORT_SPAN[1][square] = ~blackAhead & NEIGHBOUR_COLUMNS[column];
+        }
+    }
+
+    private PawnStructure(){
+        throw new RuntimeException("You cannot instantiate me!");
+    }
+
+    // the packed pawn structure score of one side
+    static int evaluate(final long ownPawns, final long enemyPawns, final int side){
+        int score = 0;
+        for(long pawns = ownPawns; pawns != 0; pawns &= pawns - 1){
+            final int square = firstSquare(pawns);
+            // only the rear pawn of a doubled pair counts, the front one may still be passed
+            if((FRONT_SPAN[side][square] & ownPawns) != 0){
+                score += DOUBLED;
+            }else if((PASSED_SPAN[side][square] & enemyPawns) == 0){
+                score += PASSED[relativeRow(square, side)];
+            }
+            if((NEIGHBOUR_COLUMNS[square & 7] & ownPawns) == 0){
+                score += ISOLATED;
+            }else if((SUPPORT_SPAN[side][square] & ownPawns) == 0 &&
+                    (PAWN_ATTACKS[side][stopSquare(square, side)] & enemyPawns) != 0){
+                // no pawn can come to its help and it cannot advance without being taken
+                score += BACKWARD;
+            }
+        }
+        return score;
+    }
+
+    // the passed pawns of one side
+    static long passedPawns(final long ownPawns, final long enemyPawns, final int side){
+        long passed = 0L;
+        for(long pawns = ownPawns; pawns != 0; pawns &= pawns - 1){
+            final int square = firstSquare(pawns);
+            if((FRONT_SPAN[side][square] & ownPawns) == 0 && (PASSED_SPAN[side][square] & enemyPawns) == 0){
+                passed |= bit(square);
+            }
+        }
+        return passed;
+    }
+
+    // the tile right in front of a pawn
+    static int stopSquare(final int square, final int side){
+        return side == 0 ? square - BoardUtils.NUM_TILES_PER_ROW : square + BoardUtils.NUM_TILES_PER_ROW;
+    }
+
+    // 0 for the first rank of the side, 7 for the rank it promotes on
+    static int relativeRow(final int square, final int side){
+        final int row = square >>> 3;
+        return side == 0 ? 7 - row : row;
+    }
+}
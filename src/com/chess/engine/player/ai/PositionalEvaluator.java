@@ -0,0 +1,135 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.board.PieceSquareTable;
+import com.chess.engine.board.SearchBoard;
+
+import static com.chess.engine.board.BitBoards.*;
+
+/*
+ * Material and piece-square tables, tapered between middlegame and endgame, plus pawn structure,
+ * mobility and king safety.
+ *
+ * The material and piece-square part is not computed here at all: the board keeps it as a running
+ * total that every move updates (SearchBoard.getPieceSquareScore). The pawn structure (see PawnStructure)
+ * comes from the pawn hash table of the search worker when there is one, so only mobility, king safety
+ * and the passed pawns that can advance freely look at the pieces. Every term is packed like
+ * PieceSquareTable scores and tapered once at the end.
+ */
+public final class PositionalEvaluator implements BoardEvaluator {
+
+    private static final int KNIGHT = 1;
+    private static final int BISHOP = 2;
+    private static final int ROOK = 3;
+    private static final int QUEEN = 4;
+    private static final int KING = 5;
+
+    // per attacked tile beyond the usual number, middlegame and endgame
+    private static final int[] MOBILITY_BONUS = {0, PieceSquareTable.pack(4, 4), PieceSquareTable.pack(5, 5),
+            PieceSquareTable.pack(2, 4), PieceSquareTable.pack(1, 2), 0};
+    private static final int[] MOBILITY_BASE = {0, 4, 7, 7, 14, 0};
+
+    // how dangerous a piece attacking the tiles around the king is
+    private static final int[] KING_ATTACK_WEIGHT = {0, 2, 2, 3, 5, 0};
+    private static final int MAX_KING_ATTACK = 500;
+    private static final int PAWN_SHIELD_BONUS = 12;
+    // a passed pawn whose next tile is empty, by rank counted from the own side
+    private static final int[] FREE_PASSED_BONUS = {0, 0, PieceSquareTable.pack(0, 5), PieceSquareTable.pack(0, 10),
+            PieceSquareTable.pack(0, 20), PieceSquareTable.pack(0, 35), PieceSquareTable.pack(0, 60), 0};
+
+    @Override
+    public int evaluate(final SearchBoard board){
+        final long whitePawns = board.getBitboard(0);
+        final long blackPawns = board.getBitboard(NUM_PIECE_TYPES);
+        final int pawnScore = PawnStructure.evaluate(whitePawns, blackPawns, 0) -
+                PawnStructure.evaluate(blackPawns, whitePawns, 1);
+        return evaluate(board, pawnScore, PawnStructure.passedPawns(whitePawns, blackPawns, 0),
+                PawnStructure.passedPawns(blackPawns, whitePawns, 1));
+    }
+
+    @Override
+    public int evaluate(final SearchBoard board, final PawnHashTable pawnTable){
+        final long pawnKey = board.getPawnKey();
+        int entry = pawnTable.probe(pawnKey);
+        if(entry == PawnHashTable.MISS){
+            final long whitePawns = board.getBitboard(0);
+            final long blackPawns = board.getBitboard(NUM_PIECE_TYPES);
+            entry = pawnTable.store(pawnKey, PawnStructure.evaluate(whitePawns, blackPawns, 0),
+                    PawnStructure.evaluate(blackPawns, whitePawns, 1),
+                    PawnStructure.passedPawns(whitePawns, blackPawns, 0),
+                    PawnStructure.passedPawns(blackPawns, whitePawns, 1));
+        }
+        return evaluate(board, pawnTable.getScore(entry, 0) - pawnTable.getScore(entry, 1),
+                pawnTable.getPassedPawns(entry, 0), pawnTable.getPassedPawns(entry, 1));
+    }
+
+    private static int evaluate(final SearchBoard board, final int pawnScore, final long whitePassed,
+                                final long blackPassed){
+        int score = board.getPieceSquareScore() + pawnScore;
+        score += evaluateSide(board, 0, whitePassed) - evaluateSide(board, 1, blackPassed);
+        final int taperedScore = PieceSquareTable.taper(score, board.getGamePhase());
+        return board.getSideToMove() == 0 ? taperedScore : -taperedScore;
+    }
+
+    // mobility, king safety and free passed pawns of one side, packed
+    private static int evaluateSide(final SearchBoard board, final int side, final long passedPawns){
+        final int own = side * NUM_PIECE_TYPES;
+        final int enemy = (side ^ 1) * NUM_PIECE_TYPES;
+        final long occupancy = board.getBitboard(ALL_PIECES);
+        final long ownPieces = board.getBitboard(WHITE_PIECES + side);
+
+        // tiles an enemy pawn attacks do not count as mobility
+        long enemyPawnAttacks = 0L;
+        for(long pawns = board.getBitboard(enemy); pawns != 0; pawns &= pawns - 1){
+            enemyPawnAttacks |= PAWN_ATTACKS[side ^ 1][firstSquare(pawns)];
+        }
+        final long mobilityArea = ~ownPieces & ~enemyPawnAttacks;
+
+        final int enemyKing = firstSquare(board.getBitboard(enemy + KING));
+        final long kingZone = KING_ATTACKS[enemyKing] | bit(enemyKing);
+
+        int score = 0;
+        int attackers = 0;
+        int attackWeight = 0;
+        for(int pieceType = KNIGHT; pieceType <= QUEEN; pieceType++){
+            for(long pieces = board.getBitboard(own + pieceType); pieces != 0; pieces &= pieces - 1){
+                final long attacks = attacks(pieceType, firstSquare(pieces), occupancy);
+                score += (Long.bitCount(attacks & mobilityArea) - MOBILITY_BASE[pieceType]) * MOBILITY_BONUS[pieceType];
+                if((attacks & kingZone) != 0){
+                    attackers++;
+                    attackWeight += KING_ATTACK_WEIGHT[pieceType] * Long.bitCount(attacks & kingZone);
+                }
+            }
+        }
+        // a single attacker is rarely a threat, more of them grow dangerous fast
+        if(attackers >= 2){
+            score += PieceSquareTable.pack(Math.min(attackWeight * attackWeight / 4, MAX_KING_ATTACK), 0);
+        }
+
+        // own pawns right in front of the castled king
+        final int ownKing = firstSquare(board.getBitboard(own + KING));
+        final long shield = KING_ATTACKS[ownKing] & ~ROWS[ownKing >>> 3];
+        final long shieldPawns = shield & board.getBitboard(own) & (side == 0 ? bit(ownKing) - 1 : -(bit(ownKing) << 1));
+        score += PieceSquareTable.pack(PAWN_SHIELD_BONUS * Long.bitCount(shieldPawns), 0);
+
+        for(long passed = passedPawns; passed != 0; passed &= passed - 1){
+            final int square = firstSquare(passed);
+            if((occupancy & bit(PawnStructure.stopSquare(square, side))) == 0){
+                score += FREE_PASSED_BONUS[PawnStructure.relativeRow(square, side)];
+            }
+        }
+        return score;
+    }
+
+    private static long attacks(final int pieceType, final int square, final long occupancy){
+        switch(pieceType){
+            case KNIGHT:
+                return KNIGHT_ATTACKS[square];
+            case BISHOP:
+                return bishopAttacks(square, occupancy);
+            case ROOK:
+                return rookAttacks(square, occupancy);
+            default:
+                return queenAttacks(square, occupancy);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.chess.engine.player.ai;
+
+/*
+ * When a search has to stop.
+ *
+ * The soft time limit is checked between iterations: no new iteration is started once it has passed.
+ * The hard time limit aborts the running iteration, the result of the last complete one is returned.
+ * Unset limits are unlimited, a search without any limit runs until it is stopped.
+ */
+public final class SearchLimits {
+
+    public static final int MAX_DEPTH = 100;
+    public static final long NO_LIMIT = Long.MAX_VALUE;
+
+    // keep this much of the clock in reserve for the GUI and the transmission
+    private static final long MOVE_OVERHEAD_MILLIS = 30;
+    private static final int DEFAULT_MOVES_TO_GO = 30;
+
+    private final int depth;
+    private final long softTimeMillis;
+    private final long hardTimeMillis;
+    private final long nodes;
+
+    private SearchLimits(final Builder builder){
+        this.depth = builder.depth;
+        this.softTimeMillis = builder.softTimeMillis;
+        this.hardTimeMillis = builder.hardTimeMillis;
+        this.nodes = builder.nodes;
+    }
+
+    public static SearchLimits depth(final int depth){
+        return new Builder().setDepth(depth).build();
+    }
+
+    // think exactly this long
+    public static SearchLimits moveTime(final long millis){
+        final long budget = Math.max(1, millis - MOVE_OVERHEAD_MILLIS);
+        return new Builder().setSoftTimeMillis(budget).setHardTimeMillis(budget).build();
+    }
+
+    /*
+     * Budget a move from the clock: aim for an even share of the remaining time plus most of the
+     * increment, but allow an unstable search to run up to five times that, never more than a third
+     * of what is left.
+     */
+    public static SearchLimits clock(final long remainingMillis, final long incrementMillis, final int movesToGo){
+        final long available = Math.max(1, remainingMillis - MOVE_OVERHEAD_MILLIS);
+        final int moves = movesToGo > 0 ? Math.min(movesToGo, DEFAULT_MOVES_TO_GO) : DEFAULT_MOVES_TO_GO;
+        final long soft = Math.min(available / moves + incrementMillis * 3 / 4, available / 3);
+        final long hard = Math.min(soft * 5, available / 3);
+        return new Builder().setSoftTimeMillis(Math.max(1, soft)).setHardTimeMillis(Math.max(1, hard)).build();
+    }
+
+    public static SearchLimits infinite(){
+        return new Builder().build();
+    }
+
+    public int getDepth(){
+        return this.depth;
+    }
+
+    public long getSoftTimeMillis(){
+        return this.softTimeMillis;
+    }
+
+    public long getHardTimeMillis(){
+        return this.hardTimeMillis;
+    }
+
+    public long getNodes(){
+        return this.nodes;
+    }
+
+    public static class Builder{
+
+        int depth;
+        long softTimeMillis;
+        long hardTimeMillis;
+        long nodes;
+
+        public Builder(){
+            this.depth = MAX_DEPTH;
+            this.softTimeMillis = NO_LIMIT;
+            this.hardTimeMillis = NO_LIMIT;
+            this.nodes = NO_LIMIT;
+        }
+
+        public Builder setDepth(final int depth){
+            this.depth = Math.max(1, Math.min(depth, MAX_DEPTH));
+            return this;
+        }
+
+        public Builder setSoftTimeMillis(final long softTimeMillis){
+            this.softTimeMillis = softTimeMillis;
+            return this;
+        }
+
+        public Builder setHardTimeMillis(final long hardTimeMillis){
+            this.hardTimeMillis = hardTimeMillis;
+            return this;
+        }
+
+        public Builder setNodes(final long nodes){
+            this.nodes = nodes;
+            return this;
+        }
+
+        public SearchLimits build(){
+            return new SearchLimits(this);
+        }
+    }
+}
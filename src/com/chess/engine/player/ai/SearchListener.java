@@ -0,0 +1,7 @@
+package com.chess.engine.player.ai;
+
+public interface SearchListener {
+
+    // called by the search thread after every completed iteration
+    void onIteration(SearchResult result);
+}
@@ -0,0 +1,97 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.Move;
+import com.chess.engine.board.PackedMove;
+
+/*
+ * The outcome of a (completed iteration of a) search: the best move with its score and principal
+ * variation, plus the effort it took.
+ */
+public final class SearchResult {
+
+    private final int bestMove;
+    private final int score;
+    private final int depth;
+    private final int[] principalVariation;
+    private final long nodes;
+    private final long millis;
+
+    SearchResult(final int bestMove,
+                 final int score,
+                 final int depth,
+                 final int[] principalVariation,
+                 final long nodes,
+                 final long millis){
+        this.bestMove = bestMove;
+        this.score = score;
+        this.depth = depth;
+        this.principalVariation = principalVariation;
+        this.nodes = nodes;
+        this.millis = millis;
+    }
+
+    // the packed best move, PackedMove.NULL_MOVE if there is no legal move
+    public int getBestMove(){
+        return this.bestMove;
+    }
+
+    // the best move as a Move of the board the search was started on
+    public Move getBestMove(final Board board){
+        return this.bestMove == PackedMove.NULL_MOVE ? null : Move.createMove(board, this.bestMove);
+    }
+
+    // centipawns from the point of view of the side to move, see isMateScore
+    public int getScore(){
+        return this.score;
+    }
+
+    public boolean isMateScore(){
+        return Math.abs(this.score) >= AlphaBetaSearch.MATE_BOUND;
+    }
+
+    // moves to mate, negative when getting mated
+    public int getMateIn(){
+        final int plies = AlphaBetaSearch.MATE - Math.abs(this.score);
+        return this.score > 0 ? (plies + 1) / 2 : -(plies + 1) / 2;
+    }
+
+    public int getDepth(){
+        return this.depth;
+    }
+
+    // packed moves, starting with the best move
+    public int[] getPrincipalVariation(){
+        return this.principalVariation.clone();
+    }
+
+    public long getNodes(){
+        return this.nodes;
+    }
+
+    public long getMillis(){
+        return this.millis;
+    }
+
+    public long getNodesPerSecond(){
+        return this.millis == 0 ? this.nodes * 1000L : this.nodes * 1000L / this.millis;
+    }
+
+    public String getPrincipalVariationText(){
+        final StringBuilder builder = new StringBuilder();
+        for(final int move : this.principalVariation){
+            if(builder.length() > 0){
+                builder.append(' ');
+            }
+            builder.append(PackedMove.toString(move));
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public String toString(){
+        return String.format("depth %d score %s nodes %d nps %d time %d pv %s", this.depth,
+                isMateScore() ? "mate " + getMateIn() : "cp " + this.score, this.nodes,
+                getNodesPerSecond(), this.millis, getPrincipalVariationText());
+    }
+}
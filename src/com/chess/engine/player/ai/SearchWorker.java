@@ -0,0 +1,412 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.board.MoveList;
+import com.chess.engine.board.PackedMove;
+import com.chess.engine.board.SearchBoard;
+import com.chess.engine.metrics.EngineMetrics;
+import com.chess.engine.metrics.SearchIterationEvent;
+import com.chess.engine.tablebase.Tablebases;
+
+import java.util.Arrays;
+
+import static com.chess.engine.board.BitBoards.ALL_PIECES;
+import static com.chess.engine.metrics.EngineMetrics.*;
+import static com.chess.engine.player.ai.AlphaBetaSearch.*;
+
+/*
+ * One search thread: principal variation alpha-beta with iterative deepening and aspiration windows on
+ * its own SearchBoard. Everything it touches per node (move buffers, move scores, principal variation)
+ * is allocated once up front.
+ *
+ * With more than one thread (lazy SMP) the workers only share the transposition table. The helpers
+ * skip some of the iterations according to their id, so at any time the threads are spread over
+ * different depths and mostly fill the table with results the main thread will need next.
+ */
+final class SearchWorker {
+
+    private static final int ASPIRATION_WINDOW = 25;
+    // a capture that cannot lift the score to alpha even with this much on top is not searched in quiescence
+    private static final int DELTA_MARGIN = 200;
+    private static final int TIME_CHECK_INTERVAL = 1023;
+
+    // helper i skips the iterations where ((depth + SKIP_PHASE[j]) / SKIP_SIZE[j]) is odd, j = (i - 1) % 20
+    private static final int[] SKIP_SIZE = {1, 1, 2, 2, 2, 2, 3, 3, 3, 3, 3, 3, 4, 4, 4, 4, 4, 4, 4, 4};
+    private static final int[] SKIP_PHASE = {0, 1, 0, 1, 2, 3, 0, 1, 2, 3, 4, 5, 0, 1, 2, 3, 4, 5, 6, 7};
+
+    private final AlphaBetaSearch search;
+    private final int id;
+    private final TranspositionTable transpositionTable;
+    private final BoardEvaluator evaluator;
+
+    private final MovePicker[] movePickers;
+    // the quiet moves searched so far at every ply, their history suffers when a later one cuts off
+    private final int[][] quietsSearched;
+    private final int[][] principalVariation;
+    private final int[] principalVariationLength;
+    private final MoveOrdering moveOrdering = new MoveOrdering();
+    // this worker's EngineMetrics counters, only ever written by the thread running it
+    private final long[] counters = EngineMetrics.newStripe(this);
+    private final PawnHashTable pawnHashTable = new PawnHashTable(PawnHashTable.DEFAULT_ENTRIES, this.counters);
+
+    private SearchBoard board;
+    private long nodes;
+    private boolean stopped;
+
+    SearchWorker(final AlphaBetaSearch search,
+                 final int id,
+                 final TranspositionTable transpositionTable,
+                 final BoardEvaluator evaluator){
+        this.search = search;
+        this.id = id;
+        this.transpositionTable = transpositionTable;
+        this.evaluator = evaluator.forThread();
+        this.movePickers = new MovePicker[MAX_PLY];
+        final int[] exchangeGains = new int[StaticExchange.MAX_EXCHANGE];
+        for(int ply = 0; ply < MAX_PLY; ply++){
+            this.movePickers[ply] = new MovePicker(this.moveOrdering, exchangeGains);
+        }
+        this.quietsSearched = new int[MAX_PLY][MoveList.MAX_MOVES];
+        this.principalVariation = new int[MAX_PLY][MAX_PLY];
+        this.principalVariationLength = new int[MAX_PLY];
+    }
+
+    // every worker searches on a board of its own
+    void prepare(final SearchBoard board){
+        this.board = board;
+        this.nodes = 0;
+        this.stopped = false;
+        this.moveOrdering.age();
+    }
+
+    boolean isMainThread(){
+        return this.id == 0;
+    }
+
+    long getNodes(){
+        return this.nodes;
+    }
+
+    /*
+     * Deepen until a limit is reached, returns the result of the last complete iteration. Only the main
+     * thread watches the soft time limit, the helpers keep searching until the main thread is done.
+     */
+    SearchResult iterativeDeepening(final SearchLimits limits, final SearchListener listener){
+        SearchResult result = null;
+        int score = 0;
+        long previousIterationNodes = 0;
+        for(int depth = 1; depth <= limits.getDepth(); depth++){
+            if(!isMainThread() && depth > 1 && skipDepth(depth)){
+                continue;
+            }
+            final SearchIterationEvent event = isMainThread() && EngineMetrics.isRecorderInitialized() ?
+                    new SearchIterationEvent() : null;
+            if(event != null){
+                event.begin();
+            }
+            final long iterationStart = System.nanoTime();
+            final long nodesBefore = this.search.getNodes();
+            // the main thread never gives up before it has a move, helpers are told to stop at any time
+            final int iterationScore = aspirationSearch(depth, score, result != null || !isMainThread());
+            if(this.stopped && result != null){
+                break;
+            }
+            score = iterationScore;
+            final int bestMove = this.principalVariationLength[0] > 0 ? this.principalVariation[0][0] : PackedMove.NULL_MOVE;
+            result = new SearchResult(bestMove, score, depth,
+                    Arrays.copyOf(this.principalVariation[0], this.principalVariationLength[0]),
+                    this.search.getNodes(), this.search.getElapsedMillis());
+            if(isMainThread()){
+                final long iterationNodes = result.getNodes() - nodesBefore;
+                recordIteration(event, result, iterationNodes, previousIterationNodes, System.nanoTime() - iterationStart);
+                previousIterationNodes = iterationNodes;
+            }
+            if(listener != null){
+                listener.onIteration(result);
+            }
+            if(this.stopped || result.getBestMove() == PackedMove.NULL_MOVE ||
+                    (isMainThread() && this.search.isSoftLimitReached())){
+                break;
+            }
+            // a mate within the searched depth will not get any shorter
+            if(result.isMateScore() && MATE - Math.abs(score) <= depth){
+                break;
+            }
+        }
+        return result;
+    }
+
+    // the event is null unless a JFR recording was started
+    private void recordIteration(final SearchIterationEvent event, final SearchResult result, final long iterationNodes,
+                                 final long previousIterationNodes, final long nanos){
+        this.counters[ITERATIONS]++;
+        this.counters[ITERATION_NANOS] += nanos;
+        if(previousIterationNodes > 0){
+            this.counters[ITERATION_NODES] += iterationNodes;
+            this.counters[PREVIOUS_ITERATION_NODES] += previousIterationNodes;
+        }
+        if(event != null && event.shouldCommit()){
+            event.depth = result.getDepth();
+            event.score = result.getScore();
+            event.bestMove = PackedMove.toString(result.getBestMove());
+            event.nodes = iterationNodes;
+            event.branchingFactor = previousIterationNodes > 0 ? (double) iterationNodes / previousIterationNodes : 0;
+            event.commit();
+        }
+    }
+
+    private boolean skipDepth(final int depth){
+        final int index = (this.id - 1) % SKIP_SIZE.length;
+        return ((depth + SKIP_PHASE[index]) / SKIP_SIZE[index]) % 2 != 0;
+    }
+
+    // search with a narrow window around the previous score, widening it whenever the score falls outside
+    private int aspirationSearch(final int depth, final int previousScore, final boolean mayStop){
+        int delta = ASPIRATION_WINDOW;
+        int alpha = -INFINITY;
+        int beta = INFINITY;
+        if(depth >= 4 && Math.abs(previousScore) < MATE_BOUND){
+            alpha = Math.max(previousScore - delta, -INFINITY);
+            beta = Math.min(previousScore + delta, INFINITY);
+        }
+        while(true){
+            this.stopped = false;
+            final int score = search(depth, alpha, beta, 0, mayStop);
+            if(this.stopped){
+                return score;
+            }
+            if(score <= alpha){
+                beta = (alpha + beta) / 2;
+                alpha = Math.max(score - delta, -INFINITY);
+            }else if(score >= beta){
+                beta = Math.min(score + delta, INFINITY);
+            }else{
+                return score;
+            }
+            delta += delta;
+        }
+    }
+
+    private int search(int depth, int alpha, final int beta, final int ply, final boolean mayStop){
+        this.principalVariationLength[ply] = ply;
+        this.counters[NODES]++;
+        if((++this.nodes & TIME_CHECK_INTERVAL) == 0 && mayStop && this.search.shouldStop()){
+            this.stopped = true;
+        }
+        if(this.stopped){
+            return 0;
+        }
+
+        final boolean rootNode = ply == 0;
+        final boolean pvNode = beta - alpha > 1;
+        if(!rootNode){
+            if(this.board.isRepetition() || this.board.getHalfMoveClock() >= 100){
+                return DRAW;
+            }
+            if(ply >= MAX_PLY - 1){
+                return this.evaluator.evaluate(this.board, this.pawnHashTable);
+            }
+            // with few pieces left the endgame tables know the exact answer
+            final Tablebases tablebases = this.search.getTablebases();
+            if(tablebases != null && Long.bitCount(this.board.getBitboard(ALL_PIECES)) <= tablebases.getMaxPieces()){
+                final int code = tablebases.probe(this.board);
+                if(code != Tablebases.NOT_FOUND){
+                    return tablebaseScore(code, ply);
+                }
+            }
+        }
+
+        final boolean inCheck = this.board.isInCheck();
+        if(inCheck){
+            depth++;
+        }
+        if(depth <= 0){
+            return quiescence(alpha, beta, ply, mayStop);
+        }
+
+        final long key = this.board.getZobristKey();
+        final long entry = this.transpositionTable.probe(key);
+        this.counters[TT_PROBES]++;
+        int transpositionMove = PackedMove.NULL_MOVE;
+        if(entry != TranspositionTable.MISS){
+            this.counters[TT_HITS]++;
+            transpositionMove = TranspositionTable.getMove(entry);
+            if(!pvNode && TranspositionTable.getDepth(entry) >= depth){
+                final int score = scoreFromTable(TranspositionTable.getScore(entry), ply);
+                final int bound = TranspositionTable.getBound(entry);
+                if(bound == TranspositionTable.BOUND_EXACT ||
+                        (bound == TranspositionTable.BOUND_LOWER && score >= beta) ||
+                        (bound == TranspositionTable.BOUND_UPPER && score <= alpha)){
+                    this.counters[TT_CUTOFFS]++;
+                    return score;
+                }
+            }
+        }
+
+        final int side = this.board.getSideToMove();
+        final int previousMove = this.board.getLastMove();
+        final MovePicker picker = this.movePickers[ply];
+        picker.reset(this.board, transpositionMove, ply);
+        final int[] quiets = this.quietsSearched[ply];
+        int quietCount = 0;
+
+        final int originalAlpha = alpha;
+        int bestScore = -INFINITY;
+        int bestMove = PackedMove.NULL_MOVE;
+        int searched = 0;
+        for(int move = picker.next(); move != PackedMove.NULL_MOVE; move = picker.next()){
+            this.board.makeMove(move);
+            int score;
+            if(searched == 0){
+                score = -search(depth - 1, -beta, -alpha, ply + 1, mayStop);
+            }else{
+                // principal variation search: prove the move is worse with a null window first
+                score = -search(depth - 1, -alpha - 1, -alpha, ply + 1, mayStop);
+                if(score > alpha && score < beta){
+                    score = -search(depth - 1, -beta, -alpha, ply + 1, mayStop);
+                }
+            }
+            this.board.unmakeMove();
+            if(this.stopped){
+                return 0;
+            }
+            searched++;
+
+            if(score > bestScore){
+                bestScore = score;
+                bestMove = move;
+                if(score > alpha){
+                    alpha = score;
+                    updatePrincipalVariation(ply, move);
+                    if(alpha >= beta){
+                        if(MoveOrdering.isQuiet(move)){
+                            this.moveOrdering.updateQuietCutoff(move, ply, side, previousMove, depth, quiets, quietCount);
+                        }
+                        this.counters[BETA_CUTOFFS]++;
+                        if(searched == 1){
+                            this.counters[FIRST_MOVE_CUTOFFS]++;
+                        }
+                        break;
+                    }
+                }
+            }
+            if(MoveOrdering.isQuiet(move)){
+                quiets[quietCount++] = move;
+            }
+        }
+        if(searched == 0){
+            return inCheck ? -MATE + ply : DRAW;
+        }
+
+        final int bound = bestScore >= beta ? TranspositionTable.BOUND_LOWER :
+                bestScore > originalAlpha ? TranspositionTable.BOUND_EXACT : TranspositionTable.BOUND_UPPER;
+        this.transpositionTable.store(key, bestMove, scoreToTable(bestScore, ply), depth, bound);
+        return bestScore;
+    }
+
+    /*
+     * Quiescence search: at the horizon only captures and promotions are searched until the position is
+     * quiet, so the evaluation never sees a piece hanging halfway through an exchange.
+     *
+     * The side to move may stand pat on the static evaluation instead of capturing. Captures that cannot
+     * reach alpha even with a margin (delta pruning) or that lose material by static exchange
+     * evaluation are skipped. In check every evasion is searched and there is no standing pat.
+     */
+    private int quiescence(int alpha, final int beta, final int ply, final boolean mayStop){
+        this.principalVariationLength[ply] = ply;
+        this.counters[NODES]++;
+        this.counters[QUIESCENCE_NODES]++;
+        if((++this.nodes & TIME_CHECK_INTERVAL) == 0 && mayStop && this.search.shouldStop()){
+            this.stopped = true;
+        }
+        if(this.stopped){
+            return 0;
+        }
+        if(ply >= MAX_PLY - 1){
+            return this.evaluator.evaluate(this.board, this.pawnHashTable);
+        }
+
+        final boolean inCheck = this.board.isInCheck();
+        int bestScore = -INFINITY;
+        int standPat = 0;
+        if(!inCheck){
+            standPat = this.evaluator.evaluate(this.board, this.pawnHashTable);
+            if(standPat >= beta){
+                return standPat;
+            }
+            alpha = Math.max(alpha, standPat);
+            bestScore = standPat;
+        }
+
+        // in check every evasion, otherwise only the captures that do not lose material
+        final MovePicker picker = this.movePickers[ply];
+        if(inCheck){
+            picker.reset(this.board, PackedMove.NULL_MOVE, ply);
+        }else{
+            picker.resetCaptures(this.board);
+        }
+        for(int move = picker.next(); move != PackedMove.NULL_MOVE; move = picker.next()){
+            if(!inCheck && !PackedMove.isPromotion(move) &&
+                    standPat + StaticExchange.value(PackedMove.getCaptured(move)) + DELTA_MARGIN <= alpha){
+                continue;
+            }
+            this.board.makeMove(move);
+            final int score = -quiescence(-beta, -alpha, ply + 1, mayStop);
+            this.board.unmakeMove();
+            if(this.stopped){
+                return 0;
+            }
+            if(score > bestScore){
+                bestScore = score;
+                if(score > alpha){
+                    alpha = score;
+                    updatePrincipalVariation(ply, move);
+                    if(alpha >= beta){
+                        break;
+                    }
+                }
+            }
+        }
+        // no evasion at all is mate
+        return inCheck && bestScore == -INFINITY ? -MATE + ply : bestScore;
+    }
+
+    private void updatePrincipalVariation(final int ply, final int move){
+        final int[] line = this.principalVariation[ply];
+        line[ply] = move;
+        final int childLength = this.principalVariationLength[ply + 1];
+        System.arraycopy(this.principalVariation[ply + 1], ply + 1, line, ply + 1, childLength - ply - 1);
+        this.principalVariationLength[ply] = Math.max(childLength, ply + 1);
+    }
+
+    // a table distance to mate as a mate score from the root
+    static int tablebaseScore(final int code, final int ply){
+        if(Tablebases.isWin(code)){
+            return MATE - ply - Tablebases.getDistance(code);
+        }
+        if(Tablebases.isLoss(code)){
+            return -MATE + ply + Tablebases.getDistance(code);
+        }
+        return DRAW;
+    }
+
+    // mate scores are stored relative to the node, not the root
+    static int scoreToTable(final int score, final int ply){
+        if(score >= MATE_BOUND){
+            return score + ply;
+        }
+        if(score <= -MATE_BOUND){
+            return score - ply;
+        }
+        return score;
+    }
+
+    static int scoreFromTable(final int score, final int ply){
+        if(score >= MATE_BOUND){
+            return score - ply;
+        }
+        if(score <= -MATE_BOUND){
+            return score + ply;
+        }
+        return score;
+    }
+}
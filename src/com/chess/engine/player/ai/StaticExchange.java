@@ -0,0 +1,134 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.board.PackedMove;
+import com.chess.engine.board.SearchBoard;
+import com.chess.engine.pieces.Piece;
+
+import static com.chess.engine.board.BitBoards.*;
+
+/*
+ * Static exchange evaluation: what a capture wins or loses once every capture back and forth on its
+ * target tile has been played, each side always recapturing with its least valuable attacker and
+ * free to stop when going on would lose more.
+ *
+ * No move is made: the exchange is played out on a copy of the occupancy, removing each attacker as it
+ * captures, so sliders lined up behind it (x-rays) join in. Pins are not considered.
+ */
+final class StaticExchange {
+
+    private static final int PAWN = 0;
+    private static final int KNIGHT = 1;
+    private static final int BISHOP = 2;
+    private static final int ROOK = 3;
+    private static final int QUEEN = 4;
+    private static final int KING = 5;
+
+    // the longest exchange on one tile: every piece on the board captures once
+    static final int MAX_EXCHANGE = 33;
+
+    private static final int[] VALUES = new int[NUM_PIECE_TYPES];
+
+    static {
+        for(final Piece.PieceType pieceType : Piece.PieceType.values()){
+            VALUES[pieceType.ordinal()] = pieceType.getPieceValue();
+        }
+    }
+
+    private StaticExchange(){
+        throw new RuntimeException("You cannot instantiate me!");
+    }
+
+    // the material value of a piece type in centipawns
+    static int value(final int pieceType){
+        return VALUES[pieceType];
+    }
+
+    /*
+     * The material the side to move gains by the move in the end, negative when it loses material.
+     * gain is scratch space of MAX_EXCHANGE ints, so nothing is allocated.
+     */
+    static int evaluate(final SearchBoard board, final int move, final int[] gain){
+        final int from = PackedMove.getFrom(move);
+        final int to = PackedMove.getTo(move);
+        gain[0] = 0;
+        long occupied = board.getBitboard(ALL_PIECES);
+
+        int attackerValue = VALUES[PackedMove.getPiece(move)];
+        if(PackedMove.isCapture(move)){
+            gain[0] = VALUES[PackedMove.getCaptured(move)];
+        }
+        if(PackedMove.getFlag(move) == PackedMove.EN_PASSANT){
+            occupied ^= bit(enPassantVictim(board.getSideToMove(), to));
+        }
+        if(PackedMove.isPromotion(move)){
+            // the promoted piece is what stands on the tile afterwards
+            gain[0] += VALUES[PackedMove.getPromotion(move)] - VALUES[PAWN];
+            attackerValue = VALUES[PackedMove.getPromotion(move)];
+        }
+        occupied ^= bit(from);
+
+        long attackers = attackersTo(board, to, occupied);
+        int side = board.getSideToMove() ^ 1;
+        int depth = 0;
+        while(true){
+            final long sideAttackers = attackers & board.getBitboard(WHITE_PIECES + side) & occupied;
+            if(sideAttackers == 0){
+                break;
+            }
+            // the least valuable attacker goes first
+            int pieceType = PAWN;
+            long candidates = 0L;
+            for(; pieceType <= KING; pieceType++){
+                candidates = sideAttackers & board.getBitboard(side * NUM_PIECE_TYPES + pieceType);
+                if(candidates != 0){
+                    break;
+                }
+            }
+            depth++;
+            gain[depth] = attackerValue - gain[depth - 1];
+            // even unanswered this capture loses, so it is not made and the exchange ends before it
+            if(Math.max(-gain[depth - 1], gain[depth]) < 0){
+                depth--;
+                break;
+            }
+            if(depth == gain.length - 1){
+                break;
+            }
+            attackerValue = VALUES[pieceType];
+            occupied ^= candidates & -candidates;
+            // sliders behind the piece that just captured now see the tile
+            if(pieceType == PAWN || pieceType == BISHOP || pieceType == QUEEN){
+                attackers |= bishopAttacks(to, occupied) & diagonalSliders(board);
+            }
+            if(pieceType == ROOK || pieceType == QUEEN){
+                attackers |= rookAttacks(to, occupied) & straightSliders(board);
+            }
+            side ^= 1;
+        }
+        // back to the first capture, every side either stops or goes on, whatever is better for it
+        for(; depth > 0; depth--){
+            gain[depth - 1] = -Math.max(-gain[depth - 1], gain[depth]);
+        }
+        return gain[0];
+    }
+
+    // every piece of either side attacking the tile with the given occupancy
+    private static long attackersTo(final SearchBoard board, final int square, final long occupied){
+        return (PAWN_ATTACKS[1][square] & board.getBitboard(PAWN)) |
+                (PAWN_ATTACKS[0][square] & board.getBitboard(NUM_PIECE_TYPES + PAWN)) |
+                (KNIGHT_ATTACKS[square] & (board.getBitboard(KNIGHT) | board.getBitboard(NUM_PIECE_TYPES + KNIGHT))) |
+                (KING_ATTACKS[square] & (board.getBitboard(KING) | board.getBitboard(NUM_PIECE_TYPES + KING))) |
+                (bishopAttacks(square, occupied) & diagonalSliders(board)) |
+                (rookAttacks(square, occupied) & straightSliders(board));
+    }
+
+    private static long diagonalSliders(final SearchBoard board){
+        return board.getBitboard(BISHOP) | board.getBitboard(QUEEN) |
+                board.getBitboard(NUM_PIECE_TYPES + BISHOP) | board.getBitboard(NUM_PIECE_TYPES + QUEEN);
+    }
+
+    private static long straightSliders(final SearchBoard board){
+        return board.getBitboard(ROOK) | board.getBitboard(QUEEN) |
+                board.getBitboard(NUM_PIECE_TYPES + ROOK) | board.getBitboard(NUM_PIECE_TYPES + QUEEN);
+    }
+}
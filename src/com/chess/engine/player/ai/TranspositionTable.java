@@ -0,0 +1,187 @@
+package com.chess.engine.player.ai;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/*
+ * The transposition table shared by all search threads.
+ *
+ * The entries live off heap in direct ByteBuffers, so even a table of many gigabytes puts no pressure
+ * on the garbage collector. The table holds a power of two number of buckets of four 16 byte entries
+ * (one cache line per bucket). An entry is two longs:
+ *
+ *   word 0  key ^ data
+ *   word 1  data: move (24 bits), score (16), depth (8), bound (2), age (6)
+ *
+ * Threads read and write without any locking. A writer racing with another writer or reader can leave
+ * the two words of an entry from different stores, but then key ^ data no longer matches the probed key
+ * and the entry is simply treated as a miss (lockless hashing, Hyatt and Mann).
+ *
+ * Within a bucket the entry of the same position is replaced, otherwise the entry with the lowest
+ * depth, counting entries of older searches as much shallower.
+ */
+public final class TranspositionTable {
+
+    public static final int BOUND_NONE = 0;
+    public static final int BOUND_UPPER = 1;
+    public static final int BOUND_LOWER = 2;
+    public static final int BOUND_EXACT = 3;
+
+    // probe result when the position is not in the table, a stored entry always has a bound
+    public static final long MISS = 0L;
+
+    public static final int DEFAULT_SIZE_MB = 64;
+
+    private static final int ENTRY_BYTES = 16;
+    private static final int BUCKET_ENTRIES = 4;
+    private static final int BUCKET_BYTES = ENTRY_BYTES * BUCKET_ENTRIES;
+    // a single ByteBuffer is limited to 2GB, bigger tables are split into 1GB segments
+    private static final int SEGMENT_SHIFT = 30;
+    private static final int MAX_AGE = 64;
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private ByteBuffer[] segments;
+    private long bucketMask;
+    private int sizeMB;
+    private volatile int age;
+
+    public TranspositionTable(final int sizeMB){
+        resize(sizeMB);
+    }
+
+    // allocate a new, empty table of (at most) the given size, rounded down to a power of two
+    public void resize(final int sizeMB){
+        if(sizeMB < 1){
+            throw new IllegalArgumentException("Transposition table size must be at least 1 MB, got " + sizeMB);
+        }
+        final long bytes = Long.highestOneBit(sizeMB * (1L << 20));
+        final long segmentBytes = Math.min(bytes, 1L << SEGMENT_SHIFT);
+        final ByteBuffer[] newSegments = new ByteBuffer[(int) (bytes / segmentBytes)];
+        for(int i = 0; i < newSegments.length; i++){
+            newSegments[i] = ByteBuffer.allocateDirect((int) segmentBytes).order(ByteOrder.nativeOrder());
+        }
+        this.segments = newSegments;
+        this.bucketMask = bytes / BUCKET_BYTES - 1;
+        this.sizeMB = (int) (bytes >>> 20);
+        this.age = 0;
+    }
+
+    public int getSizeMB(){
+        return this.sizeMB;
+    }
+
+    public void clear(){
+        for(final ByteBuffer segment : this.segments){
+            for(int offset = 0; offset < segment.capacity(); offset += Long.BYTES){
+                LONGS.setOpaque(segment, offset, 0L);
+            }
+        }
+        this.age = 0;
+    }
+
+    // called once before every search, entries of older searches become the first to be replaced
+    public void newSearch(){
+        this.age = (this.age + 1) & (MAX_AGE - 1);
+    }
+
+    // the data word of the entry for the key, or MISS
+    public long probe(final long key){
+        final long bucket = bucketOffset(key);
+        for(int i = 0; i < BUCKET_ENTRIES; i++){
+            final long offset = bucket + (long) i * ENTRY_BYTES;
+            final long data = read(offset + Long.BYTES);
+            if((read(offset) ^ data) == key && getBound(data) != BOUND_NONE){
+                return data;
+            }
+        }
+        return MISS;
+    }
+
+    public void store(final long key, final int move, final int score, final int depth, final int bound){
+        final int currentAge = this.age;
+        final long bucket = bucketOffset(key);
+        long replace = bucket;
+        int replaceValue = Integer.MAX_VALUE;
+        for(int i = 0; i < BUCKET_ENTRIES; i++){
+            final long offset = bucket + (long) i * ENTRY_BYTES;
+            final long data = read(offset + Long.BYTES);
+            if((read(offset) ^ data) == key || getBound(data) == BOUND_NONE){
+                // same position: keep a deeper result of the current search unless the new one is exact
+                if(getBound(data) != BOUND_NONE && getAge(data) == currentAge && getDepth(data) > depth &&
+                        bound != BOUND_EXACT){
+                    return;
+                }
+                // and keep its move when the new result has none
+                write(offset, key, pack(move != 0 || getBound(data) == BOUND_NONE ? move : getMove(data),
+                        score, depth, bound, currentAge));
+                return;
+            }
+            final int value = getDepth(data) - 8 * ((currentAge - getAge(data)) & (MAX_AGE - 1));
+            if(value < replaceValue){
+                replaceValue = value;
+                replace = offset;
+            }
+        }
+        write(replace, key, pack(move, score, depth, bound, currentAge));
+    }
+
+    // permille of the first thousand entries used by the current search, as reported to UCI
+    public int hashfull(){
+        final int currentAge = this.age;
+        int used = 0;
+        for(int i = 0; i < 1000; i++){
+            final long data = read((long) i * ENTRY_BYTES + Long.BYTES);
+            if(getBound(data) != BOUND_NONE && getAge(data) == currentAge){
+                used++;
+            }
+        }
+        return used;
+    }
+
+    public static int getMove(final long data){
+        return (int) (data & 0xFFFFFF);
+    }
+
+    public static int getScore(final long data){
+        return (short) (data >>> 24);
+    }
+
+    public static int getDepth(final long data){
+        return (int) ((data >>> 40) & 0xFF);
+    }
+
+    public static int getBound(final long data){
+        return (int) ((data >>> 48) & 0x3);
+    }
+
+    static int getAge(final long data){
+        return (int) ((data >>> 50) & (MAX_AGE - 1));
+    }
+
+    private static long pack(final int move, final int score, final int depth, final int bound, final int age){
+        return (move & 0xFFFFFFL) |
+                ((score & 0xFFFFL) << 24) |
+                ((long) Math.max(0, Math.min(depth, 0xFF)) << 40) |
+                ((long) bound << 48) |
+                ((long) age << 50);
+    }
+
+    private long bucketOffset(final long key){
+        return (key & this.bucketMask) * BUCKET_BYTES;
+    }
+
+    private long read(final long offset){
+        return (long) LONGS.getOpaque(this.segments[(int) (offset >>> SEGMENT_SHIFT)],
+                (int) (offset & ((1L << SEGMENT_SHIFT) - 1)));
+    }
+
+    private void write(final long offset, final long key, final long data){
+        final ByteBuffer segment = this.segments[(int) (offset >>> SEGMENT_SHIFT)];
+        final int position = (int) (offset & ((1L << SEGMENT_SHIFT) - 1));
+        LONGS.setOpaque(segment, position, key ^ data);
+        LONGS.setOpaque(segment, position + Long.BYTES, data);
+    }
+}
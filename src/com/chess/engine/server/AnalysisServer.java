@@ -0,0 +1,339 @@
+package com.chess.engine.server;
+
+import com.chess.engine.board.PackedMove;
+import com.chess.engine.board.SearchBoard;
+import com.chess.engine.player.ai.AlphaBetaSearch;
+import com.chess.engine.player.ai.PositionalEvaluator;
+import com.chess.engine.player.ai.SearchLimits;
+import com.chess.engine.player.ai.SearchResult;
+import com.chess.engine.player.ai.TranspositionTable;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Batch analysis over HTTP on the loopback interface, one engine process for any number of jobs.
+ *
+ *   POST /analyse  {"fen": "...", "depth": 12}          or "movetime" (ms) / "nodes", any combination
+ *   -> {"fen": "...", "bestmove": "e2e4", "ponder": "e7e5", "score": {"cp": 31}, "depth": 12, ..., "pv": [...]}
+ *   GET  /stats    counters of the server and its cache
+ *
+ * Every request is handled on a virtual thread of its own (a cached thread pool before JDK 21), which
+ * just waits while its search runs. The searches themselves are CPU bound and run on a fixed pool of
+ * search threads, one engine each, so thousands of waiting requests never oversubscribe the cores;
+ * when too many jobs are queued the server answers 503.
+ *
+ * Identical jobs (same position hash and limits) share one search while it runs, and finished results
+ * are kept in a bounded cache.
+ */
+public final class AnalysisServer implements Closeable {
+
+    public static final int DEFAULT_PORT = 8080;
+    public static final int DEFAULT_HASH_MB = 16;
+    public static final int DEFAULT_CACHE_SIZE = 100_000;
+    public static final int DEFAULT_MAX_QUEUED = 10_000;
+
+    // jobs without any limit get this much time, no job may think longer than the maximum
+    private static final long DEFAULT_MOVE_TIME_MILLIS = 1000;
+    private static final long MAX_MOVE_TIME_MILLIS = 60_000;
+    private static final int MAX_REQUEST_BYTES = 64 * 1024;
+
+    private final HttpServer server;
+    private final ExecutorService requestExecutor;
+    private final ThreadPoolExecutor searchExecutor;
+    // every search thread keeps its engine and transposition table from job to job
+    private final ThreadLocal<AlphaBetaSearch> engines;
+
+    private final ConcurrentMap<AnalysisKey, CompletableFuture<SearchResult>> inFlight = new ConcurrentHashMap<>();
+    private final Cache<AnalysisKey, SearchResult> results;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder deduplicated = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public AnalysisServer(final int port, final int searchThreads, final int hashMB, final int cacheSize,
+                          final int maxQueued) throws IOException {
+        this.engines = ThreadLocal.withInitial(() -> new AlphaBetaSearch(new TranspositionTable(hashMB),
+                new PositionalEvaluator()));
+        final AtomicInteger threadNumber = new AtomicInteger();
+        this.searchExecutor = new ThreadPoolExecutor(searchThreads, searchThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxQueued), runnable -> {
+                    final Thread thread = new Thread(runnable, "analysis-search-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.results = CacheBuilder.newBuilder().maximumSize(cacheSize).recordStats().build();
+        this.requestExecutor = createRequestExecutor();
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.server.setExecutor(this.requestExecutor);
+        this.server.createContext("/analyse", this::handleAnalyse);
+        this.server.createContext("/stats", this::handleStats);
+    }
+
+    /*
+     * usage: AnalysisServer [port] [search threads]
+     * the search threads default to one per core
+     */
+    public static void main(final String[] args) throws IOException {
+        final int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        final int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        final AnalysisServer server = new AnalysisServer(port, threads, DEFAULT_HASH_MB, DEFAULT_CACHE_SIZE,
+                DEFAULT_MAX_QUEUED);
+        server.start();
+        System.out.println("analysis server on http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":" +
+                server.getPort() + "/analyse with " + threads + " search threads");
+    }
+
+    // one virtual thread per request on JDK 21, the project still builds for 17 so it is looked up reflectively
+    private static ExecutorService createRequestExecutor(){
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (final ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    public void start(){
+        this.server.start();
+    }
+
+    // the port actually bound, useful when the server was created with port 0
+    public int getPort(){
+        return this.server.getAddress().getPort();
+    }
+
+    @Override
+    public void close(){
+        this.server.stop(0);
+        this.searchExecutor.shutdownNow();
+        // jobs that were still queued never run, release the requests waiting for them
+        for(final CompletableFuture<SearchResult> future : this.inFlight.values()){
+            future.completeExceptionally(new RejectedExecutionException("Server closed"));
+        }
+        this.requestExecutor.shutdownNow();
+    }
+
+    // the result of the job, searched unless it is cached or already being searched
+    public SearchResult analyse(final SearchBoard board, final SearchLimits limits){
+        final AnalysisKey key = new AnalysisKey(board.getZobristKey(), limits);
+        final SearchResult cached = this.results.getIfPresent(key);
+        if(cached != null){
+            return cached;
+        }
+        final CompletableFuture<SearchResult> future = new CompletableFuture<>();
+        final CompletableFuture<SearchResult> running = this.inFlight.putIfAbsent(key, future);
+        if(running != null){
+            this.deduplicated.increment();
+            return running.join();
+        }
+        final SearchBoard position = board.copy();
+        try {
+            this.searchExecutor.execute(() -> {
+                try {
+                    this.searches.increment();
+                    final SearchResult result = this.engines.get().search(position, limits);
+                    // cached before it leaves the in-flight map, so no job in between searches again
+                    this.results.put(key, result);
+                    future.complete(result);
+                } catch (final Throwable t) {
+                    future.completeExceptionally(t);
+                } finally {
+                    this.inFlight.remove(key, future);
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            this.rejected.increment();
+            this.inFlight.remove(key, future);
+            future.completeExceptionally(e);
+        }
+        return future.join();
+    }
+
+    private void handleAnalyse(final HttpExchange exchange) throws IOException {
+        this.requests.increment();
+        try {
+            if(!exchange.getRequestMethod().equals("POST")){
+                sendError(exchange, 405, "use POST with a JSON body");
+                return;
+            }
+            final Map<String, Object> job;
+            final SearchBoard board;
+            try {
+                job = Json.parseObject(readBody(exchange));
+                final Object fen = job.get("fen");
+                if(!(fen instanceof String)){
+                    throw new IllegalArgumentException("Missing \"fen\"");
+                }
+                board = new SearchBoard((String) fen);
+            } catch (final IllegalArgumentException e) {
+                sendError(exchange, 400, e.getMessage());
+                return;
+            }
+            final SearchResult result;
+            try {
+                result = analyse(board, createLimits(job));
+            } catch (final IllegalArgumentException e) {
+                sendError(exchange, 400, e.getMessage());
+                return;
+            } catch (final CompletionException e) {
+                if(e.getCause() instanceof RejectedExecutionException){
+                    sendError(exchange, 503, "too many queued jobs");
+                }else{
+                    sendError(exchange, 500, String.valueOf(e.getCause()));
+                }
+                return;
+            }
+            send(exchange, 200, toJson((String) job.get("fen"), result));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleStats(final HttpExchange exchange) throws IOException {
+        try {
+            final CacheStats cacheStats = this.results.stats();
+            send(exchange, 200, "{\"requests\": " + this.requests.sum() +
+                    ", \"searches\": " + this.searches.sum() +
+                    ", \"deduplicated\": " + this.deduplicated.sum() +
+                    ", \"rejected\": " + this.rejected.sum() +
+                    ", \"cacheHits\": " + cacheStats.hitCount() +
+                    ", \"cacheSize\": " + this.results.size() +
+                    ", \"inFlight\": " + this.inFlight.size() +
+                    ", \"activeSearches\": " + this.searchExecutor.getActiveCount() +
+                    ", \"queuedSearches\": " + this.searchExecutor.getQueue().size() + "}");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static SearchLimits createLimits(final Map<String, Object> job){
+        final SearchLimits.Builder builder = new SearchLimits.Builder();
+        final long depth = getLong(job, "depth");
+        final long nodes = getLong(job, "nodes");
+        long moveTime = getLong(job, "movetime");
+        if(depth > 0){
+            builder.setDepth((int) Math.min(depth, SearchLimits.MAX_DEPTH));
+        }
+        if(nodes > 0){
+            builder.setNodes(nodes);
+        }
+        if(moveTime <= 0 && depth <= 0 && nodes <= 0){
+            moveTime = DEFAULT_MOVE_TIME_MILLIS;
+        }
+        // a job never runs unbounded, a deep depth or many nodes still stop at the maximum time
+        final long budget = moveTime > 0 ? Math.min(moveTime, MAX_MOVE_TIME_MILLIS) : MAX_MOVE_TIME_MILLIS;
+        return builder.setSoftTimeMillis(budget).setHardTimeMillis(budget).build();
+    }
+
+    // the number under the name, 0 when it is missing
+    private static long getLong(final Map<String, Object> job, final String name){
+        final Object value = job.get(name);
+        if(value == null){
+            return 0;
+        }
+        if(!(value instanceof Long)){
+            throw new IllegalArgumentException("\"" + name + "\" must be an integer");
+        }
+        return (Long) value;
+    }
+
+    private static String toJson(final String fen, final SearchResult result){
+        final StringBuilder json = new StringBuilder(256);
+        final int[] principalVariation = result.getPrincipalVariation();
+        json.append("{\"fen\": ").append(Json.quote(fen))
+                .append(", \"bestmove\": ").append(Json.quote(PackedMove.toString(result.getBestMove())));
+        if(principalVariation.length > 1){
+            json.append(", \"ponder\": ").append(Json.quote(PackedMove.toString(principalVariation[1])));
+        }
+        json.append(", \"score\": {").append(result.isMateScore() ? "\"mate\": " + result.getMateIn() :
+                "\"cp\": " + result.getScore()).append('}')
+                .append(", \"depth\": ").append(result.getDepth())
+                .append(", \"nodes\": ").append(result.getNodes())
+                .append(", \"nps\": ").append(result.getNodesPerSecond())
+                .append(", \"timeMillis\": ").append(result.getMillis())
+                .append(", \"pv\": [");
+        for(int i = 0; i < principalVariation.length; i++){
+            json.append(i > 0 ? ", " : "").append(Json.quote(PackedMove.toString(principalVariation[i])));
+        }
+        return json.append("]}").toString();
+    }
+
+    private static String readBody(final HttpExchange exchange) throws IOException {
+        try(InputStream in = exchange.getRequestBody()){
+            final byte[] body = in.readNBytes(MAX_REQUEST_BYTES + 1);
+            if(body.length > MAX_REQUEST_BYTES){
+                throw new IllegalArgumentException("Request larger than " + MAX_REQUEST_BYTES + " bytes");
+            }
+            return new String(body, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void sendError(final HttpExchange exchange, final int status, final String message) throws IOException {
+        send(exchange, status, "{\"error\": " + Json.quote(String.valueOf(message)) + "}");
+    }
+
+    private static void send(final HttpExchange exchange, final int status, final String json) throws IOException {
+        final byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try(OutputStream out = exchange.getResponseBody()){
+            out.write(bytes);
+        }
+    }
+
+    // a job: the position hash and the limits it is searched with
+    private static final class AnalysisKey {
+
+        private final long zobristKey;
+        private final int depth;
+        private final long nodes;
+        private final long moveTimeMillis;
+
+        AnalysisKey(final long zobristKey, final SearchLimits limits){
+            this.zobristKey = zobristKey;
+            this.depth = limits.getDepth();
+            this.nodes = limits.getNodes();
+            this.moveTimeMillis = limits.getHardTimeMillis();
+        }
+
+        @Override
+        public boolean equals(final Object other){
+            if(!(other instanceof AnalysisKey)){
+                return false;
+            }
+            final AnalysisKey key = (AnalysisKey) other;
+            return this.zobristKey == key.zobristKey && this.depth == key.depth &&
+                    this.nodes == key.nodes && this.moveTimeMillis == key.moveTimeMillis;
+        }
+
+        @Override
+        public int hashCode(){
+            return Objects.hash(this.zobristKey, this.depth, this.nodes, this.moveTimeMillis);
+        }
+    }
+}
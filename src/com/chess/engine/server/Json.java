@@ -0,0 +1,202 @@
+package com.chess.engine.server;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+ * Just enough JSON for the analysis server: a flat object of strings, numbers, booleans and nulls is
+ * parsed into a map, responses are written with a StringBuilder and quote().
+ *
+ * Numbers come back as Long when they are integral, Double otherwise.
+ */
+final class Json {
+
+    private final String text;
+    private int position;
+
+    private Json(final String text){
+        this.text = text;
+    }
+
+    static Map<String, Object> parseObject(final String text){
+        final Json json = new Json(text);
+        final Map<String, Object> object = json.readObject();
+        json.skipWhitespace();
+        if(json.position != text.length()){
+            throw json.error("end of input");
+        }
+        return object;
+    }
+
+    // the string as a JSON string literal, quotes included
+    static String quote(final String value){
+        final StringBuilder builder = new StringBuilder(value.length() + 2).append('"');
+        for(int i = 0; i < value.length(); i++){
+            final char c = value.charAt(i);
+            switch(c){
+                case '"':
+                    builder.append("\\\"");
+                    break;
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    builder.append("\\r");
+                    break;
+                case '\t':
+                    builder.append("\\t");
+                    break;
+                default:
+                    if(c < 0x20){
+                        builder.append(String.format("\\u%04x", (int) c));
+                    }else{
+                        builder.append(c);
+                    }
+            }
+        }
+        return builder.append('"').toString();
+    }
+
+    private Map<String, Object> readObject(){
+        final Map<String, Object> object = new HashMap<>();
+        expect('{');
+        skipWhitespace();
+        if(peek() == '}'){
+            this.position++;
+            return object;
+        }
+        while(true){
+            skipWhitespace();
+            final String key = readString();
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+            object.put(key, readValue());
+            skipWhitespace();
+            final char next = next();
+            if(next == '}'){
+                return object;
+            }
+            if(next != ','){
+                throw error("',' or '}'");
+            }
+        }
+    }
+
+    private Object readValue(){
+        final char c = peek();
+        if(c == '"'){
+            return readString();
+        }
+        if(c == '-' || (c >= '0' && c <= '9')){
+            return readNumber();
+        }
+        if(this.text.startsWith("true", this.position)){
+            this.position += 4;
+            return Boolean.TRUE;
+        }
+        if(this.text.startsWith("false", this.position)){
+            this.position += 5;
+            return Boolean.FALSE;
+        }
+        if(this.text.startsWith("null", this.position)){
+            this.position += 4;
+            return null;
+        }
+        throw error("a string, number, boolean or null");
+    }
+
+    private String readString(){
+        expect('"');
+        final StringBuilder builder = new StringBuilder();
+        while(true){
+            final char c = next();
+            if(c == '"'){
+                return builder.toString();
+            }
+            if(c != '\\'){
+                builder.append(c);
+                continue;
+            }
+            final char escaped = next();
+            switch(escaped){
+                case 'b':
+                    builder.append('\b');
+                    break;
+                case 'f':
+                    builder.append('\f');
+                    break;
+                case 'n':
+                    builder.append('\n');
+                    break;
+                case 'r':
+                    builder.append('\r');
+                    break;
+                case 't':
+                    builder.append('\t');
+                    break;
+                case 'u':
+                    if(this.position + 4 > this.text.length()){
+                        throw error("four hex digits");
+                    }
+                    try {
+                        builder.append((char) Integer.parseInt(this.text.substring(this.position, this.position + 4), 16));
+                    } catch (final NumberFormatException e) {
+                        throw error("four hex digits");
+                    }
+                    this.position += 4;
+                    break;
+                default:
+                    builder.append(escaped);
+            }
+        }
+    }
+
+    private Object readNumber(){
+        final int start = this.position;
+        while(this.position < this.text.length() && "+-0123456789.eE".indexOf(this.text.charAt(this.position)) >= 0){
+            this.position++;
+        }
+        final String number = this.text.substring(start, this.position);
+        try {
+            if(number.indexOf('.') < 0 && number.indexOf('e') < 0 && number.indexOf('E') < 0){
+                return Long.parseLong(number);
+            }
+            return Double.parseDouble(number);
+        } catch (final NumberFormatException e) {
+            throw error("a number");
+        }
+    }
+
+    private void skipWhitespace(){
+        while(this.position < this.text.length() && Character.isWhitespace(this.text.charAt(this.position))){
+            this.position++;
+        }
+    }
+
+    private char peek(){
+        if(this.position >= this.text.length()){
+            throw error("more input");
+        }
+        return this.text.charAt(this.position);
+    }
+
+    private char next(){
+        final char c = peek();
+        this.position++;
+        return c;
+    }
+
+    private void expect(final char c){
+        if(next() != c){
+            throw error("'" + c + "'");
+        }
+    }
+
+    private IllegalArgumentException error(final String expected){
+        return new IllegalArgumentException("Invalid JSON, expected " + expected + " at " + this.position);
+    }
+}
@@ -0,0 +1,57 @@
+package com.chess.engine.tablebase;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+ * A byte per position of a table under generation, in a memory mapped scratch file so tables far
+ * larger than the heap can be generated. The file starts zeroed and is deleted again on close.
+ *
+ * Different threads may write different bytes at the same time, a byte write never touches its neighbours.
+ */
+final class MappedBytes implements Closeable {
+
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+
+    MappedBytes(final Path path, final long size) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            this.segments = new MappedByteBuffer[(int) ((size + SEGMENT_MASK) >>> SEGMENT_SHIFT)];
+            for(int i = 0; i < this.segments.length; i++){
+                final long first = (long) i << SEGMENT_SHIFT;
+                this.segments[i] = this.channel.map(FileChannel.MapMode.READ_WRITE, first,
+                        Math.min(1L << SEGMENT_SHIFT, size - first));
+            }
+        } catch (final IOException | RuntimeException e) {
+            this.channel.close();
+            Files.deleteIfExists(path);
+            throw e;
+        }
+    }
+
+    int get(final long index){
+        return this.segments[(int) (index >>> SEGMENT_SHIFT)].get((int) (index & SEGMENT_MASK)) & 0xFF;
+    }
+
+    void put(final long index, final int value){
+        this.segments[(int) (index >>> SEGMENT_SHIFT)].put((int) (index & SEGMENT_MASK), (byte) value);
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+        Files.deleteIfExists(this.path);
+    }
+}
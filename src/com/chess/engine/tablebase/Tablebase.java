@@ -0,0 +1,109 @@
+package com.chess.engine.tablebase;
+
+import com.chess.io.MappedFile;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/*
+ * One generated endgame table, memory mapped read only.
+ *
+ * File layout, little endian: a 32 byte header
+ *
+ *   magic "CHTB", format version, bits per position, longest distance to mate, number of positions,
+ *   material signature (8 ASCII bytes, zero padded)
+ *
+ * followed by the value of every position (see TablebaseIndex) packed into bitsPerValue bits, lowest
+ * bits first. A value is 0 for a draw (and for positions that cannot occur), otherwise one more than the
+ * distance to mate in plies: odd distances are wins for the side to move, even ones losses.
+ *
+ * The values are memory mapped (see MappedFile), so a table can be probed by any number of search
+ * threads at once.
+ */
+public final class Tablebase implements Closeable {
+
+    public static final String FILE_EXTENSION = ".ctb";
+
+    static final int MAGIC = 0x42544843; // "CHTB" in little endian
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 32;
+    static final int NAME_BYTES = 8;
+    static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    private final MappedFile file;
+    private final TablebaseIndex index;
+    private final int bitsPerValue;
+    private final int maxDistance;
+
+    public Tablebase(final Path path) throws IOException {
+        this.file = new MappedFile(path, HEADER_BYTES, BYTE_ORDER);
+        try {
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(BYTE_ORDER);
+            if(!this.file.readHeader(header) || header.getInt(0) != MAGIC){
+                throw new IOException("Not a tablebase file " + path);
+            }
+            if(header.getInt(4) != VERSION){
+                throw new IOException("Unsupported tablebase version " + header.getInt(4) + " in " + path);
+            }
+            this.bitsPerValue = header.getInt(8);
+            this.maxDistance = header.getInt(12);
+            final byte[] name = new byte[NAME_BYTES];
+            header.position(24);
+            header.get(name);
+            this.index = new TablebaseIndex(new String(name, StandardCharsets.US_ASCII).trim());
+            if(header.getLong(16) != this.index.size() || this.bitsPerValue < 1 || this.bitsPerValue > 8 ||
+                    this.maxDistance < 0 || this.maxDistance > Tablebases.MAX_DISTANCE){
+                throw new IOException("Corrupt tablebase header in " + path);
+            }
+            if(this.file.size() < dataBytes(this.index.size(), this.bitsPerValue)){
+                throw new IOException("Truncated tablebase " + path);
+            }
+        } catch (final IOException | RuntimeException e) {
+            this.file.close();
+            throw e;
+        }
+    }
+
+    // the material signature, e.g. KBNK
+    public String getName(){
+        return this.index.getName();
+    }
+
+    // the longest distance to mate in plies
+    public int getMaxDistance(){
+        return this.maxDistance;
+    }
+
+    TablebaseIndex getIndex(){
+        return this.index;
+    }
+
+    // the packed value of the position with the given index
+    int probe(final long position){
+        final long bitOffset = position * this.bitsPerValue;
+        final long byteOffset = bitOffset >>> 3;
+        // a value of at most 8 bits spans at most two bytes
+        int bits = readByte(byteOffset);
+        if((bitOffset & 7) + this.bitsPerValue > 8){
+            bits |= readByte(byteOffset + 1) << 8;
+        }
+        return (bits >>> (bitOffset & 7)) & ((1 << this.bitsPerValue) - 1);
+    }
+
+    private int readByte(final long offset){
+        return this.file.get(offset) & 0xFF;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.file.close();
+    }
+
+    static long dataBytes(final long positions, final int bitsPerValue){
+        return (positions * bitsPerValue + 7) >>> 3;
+    }
+}
@@ -0,0 +1,489 @@
+package com.chess.engine.tablebase;
+
+import com.chess.engine.board.BitBoards;
+import com.chess.engine.board.BoardUtils;
+import com.chess.engine.board.KingSafety;
+import com.chess.engine.board.MoveGenerator;
+import com.chess.engine.board.MoveList;
+import com.chess.engine.board.PackedMove;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.chess.engine.board.BitBoards.*;
+
+/*
+ * Generates endgame tables by retrograde analysis, e.g.
+ *
+ *   java com.chess.engine.tablebase.TablebaseGenerator <directory> <threads> KQK KRK KPK KBNK
+ *
+ * Every position of the material gets a byte in a memory mapped scratch file. The first pass marks
+ * the positions that cannot occur, the mates and the stalemates. Then, for n = 1, 2, ... until nothing
+ * changes:
+ *
+ *   1. every position decided at distance n - 1 un-makes the moves that could have led to it and
+ *      marks the positions they come from as candidates
+ *   2. every undecided candidate looks at its moves again: it is won in n when a move reaches a
+ *      position lost in n - 1, lost in n when every move reaches a won position and the longest of
+ *      them is won in n - 1
+ *
+ * Both passes split the index range into chunks worked through by all threads. A pass only decides
+ * positions at distance n and only trusts positions decided before n, so it does not matter which
+ * thread gets to a position first. Captures and promotions leave the table, their value comes from the
+ * smaller tables, which are generated first when they are missing.
+ *
+ * Finally the values are bit packed into the table file (see Tablebase). Draws are whatever was never
+ * decided. Tables have no castling rights or en passant tiles, and ignore the fifty move rule.
+ */
+public final class TablebaseGenerator {
+
+    private static final int UNKNOWN = 0;
+    private static final int DRAW = 254;
+    private static final int ILLEGAL = 255;
+    // values 1 to MAX_VALUE are one more than the distance to mate
+    private static final int MAX_VALUE = Tablebases.MAX_DISTANCE + 1;
+
+    // decisions of the second pass
+    private static final int DROP = 0;
+    private static final int KEEP = -1;
+
+    private static final int CHUNK = 1 << 16;
+    private static final String PIECE_ORDER = "QRBNP";
+    private static final int[] PIECE_VALUES = {9, 5, 3, 3, 1};
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private final Path directory;
+    private final int threads;
+    private final Tablebases tablebases;
+
+    public TablebaseGenerator(final Path directory, final int threads) throws IOException {
+        if(threads < 1){
+            throw new IllegalArgumentException("Thread count must be at least 1, got " + threads);
+        }
+        this.directory = Files.createDirectories(directory);
+        this.threads = threads;
+        this.tablebases = new Tablebases(directory);
+    }
+
+    public static void main(final String[] args) throws IOException {
+        if(args.length < 3){
+            System.out.println("usage: TablebaseGenerator <directory> <threads> <material>...  e.g. tb 8 KQK KBNK");
+            return;
+        }
+        final TablebaseGenerator generator = new TablebaseGenerator(Path.of(args[0]), Integer.parseInt(args[1]));
+        for(int i = 2; i < args.length; i++){
+            final long start = System.nanoTime();
+            final Tablebase table = generator.generate(args[i]);
+            System.out.printf("%s  longest mate %d plies  %d ms%n", table.getName(), table.getMaxDistance(),
+                    (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    public Tablebases getTablebases(){
+        return this.tablebases;
+    }
+
+    /*
+     * The table of the material, from the directory when it is there, otherwise generated along with
+     * every smaller table it depends on.
+     */
+    public Tablebase generate(final String name) throws IOException {
+        final Path path = this.directory.resolve(name + Tablebase.FILE_EXTENSION);
+        if(!Files.exists(path)){
+            for(final String child : successorMaterials(name)){
+                if(!this.tablebases.contains(child) && !this.tablebases.contains(flip(child))){
+                    generate(child);
+                }
+            }
+            new Generation(new TablebaseIndex(name)).run(path);
+        }
+        final Tablebase table = new Tablebase(path);
+        this.tablebases.add(table);
+        return table;
+    }
+
+    // the materials a capture or a promotion leads to, lone kings and a single minor piece left out
+    static List<String> successorMaterials(final String name){
+        final int secondKing = name.indexOf('K', 1);
+        final String white = name.substring(1, secondKing);
+        final String black = name.substring(secondKing + 1);
+        final List<String> children = new ArrayList<>();
+        for(int i = 0; i < white.length(); i++){
+            addMaterial(children, remove(white, i), black);
+            if(white.charAt(i) == 'P'){
+                for(int promotion = 0; promotion < 4; promotion++){
+                    addMaterial(children, remove(white, i) + PIECE_ORDER.charAt(promotion), black);
+                }
+            }
+        }
+        for(int i = 0; i < black.length(); i++){
+            addMaterial(children, white, remove(black, i));
+            if(black.charAt(i) == 'P'){
+                for(int promotion = 0; promotion < 4; promotion++){
+                    addMaterial(children, white, remove(black, i) + PIECE_ORDER.charAt(promotion));
+                }
+            }
+        }
+        return children;
+    }
+
+    private static void addMaterial(final List<String> children, final String white, final String black){
+        final String pieces = white + black;
+        if(pieces.isEmpty() || (pieces.length() == 1 && (pieces.equals("B") || pieces.equals("N")))){
+            return;
+        }
+        // the stronger side is white, as in the tables asked for on the command line
+        final String name = value(black) > value(white) ? "K" + sortPieces(black) + "K" + sortPieces(white) :
+                "K" + sortPieces(white) + "K" + sortPieces(black);
+        if(!children.contains(name)){
+            children.add(name);
+        }
+    }
+
+    private static int value(final String pieces){
+        int value = 0;
+        for(int i = 0; i < pieces.length(); i++){
+            value += PIECE_VALUES[PIECE_ORDER.indexOf(pieces.charAt(i))];
+        }
+        return value;
+    }
+
+    private static String remove(final String pieces, final int index){
+        return pieces.substring(0, index) + pieces.substring(index + 1);
+    }
+
+    private static String sortPieces(final String pieces){
+        final StringBuilder sorted = new StringBuilder();
+        for(int i = 0; i < PIECE_ORDER.length(); i++){
+            for(int j = 0; j < pieces.length(); j++){
+                if(pieces.charAt(j) == PIECE_ORDER.charAt(i)){
+                    sorted.append(pieces.charAt(j));
+                }
+            }
+        }
+        return sorted.toString();
+    }
+
+    private static String flip(final String name){
+        final int secondKing = name.indexOf('K', 1);
+        return name.substring(secondKing) + name.substring(0, secondKing);
+    }
+
+    // the per thread buffers, nothing is allocated per position
+    private static final class Scratch {
+        final long[] bitboards = new long[NUM_BITBOARDS];
+        final long[] child = new long[NUM_BITBOARDS];
+        final MoveList moves = new MoveList();
+        final KingSafety safety = new KingSafety();
+    }
+
+    @FunctionalInterface
+    private interface ChunkTask {
+        void run(long from, long to, Scratch scratch) throws IOException;
+    }
+
+    // the generation of one table
+    private final class Generation {
+
+        private final TablebaseIndex index;
+        private MappedBytes values;
+        private MappedBytes candidates;
+
+        Generation(final TablebaseIndex index){
+            this.index = index;
+        }
+
+        void run(final Path path) throws IOException {
+            final String name = this.index.getName();
+            final ExecutorService pool = Executors.newFixedThreadPool(TablebaseGenerator.this.threads);
+            try(MappedBytes valueBytes = new MappedBytes(directory.resolve(name + ".values.tmp"), this.index.size());
+                MappedBytes candidateBytes = new MappedBytes(directory.resolve(name + ".candidates.tmp"), this.index.size())){
+                this.values = valueBytes;
+                this.candidates = candidateBytes;
+
+                forEachChunk(pool, this::initialize);
+                for(int distance = 1; ; distance++){
+                    if(distance + 1 > MAX_VALUE){
+                        throw new IllegalStateException(name + " has mates longer than " + (MAX_VALUE - 1) + " plies");
+                    }
+                    final int n = distance;
+                    forEachChunk(pool, (from, to, scratch) -> markPredecessors(from, to, n, scratch));
+                    final LongAdder decided = new LongAdder();
+                    final LongAdder pending = new LongAdder();
+                    forEachChunk(pool, (from, to, scratch) -> decide(from, to, n, decided, pending, scratch));
+                    if(decided.sum() == 0 && pending.sum() == 0){
+                        break;
+                    }
+                }
+                write(pool, path);
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+
+        // positions that cannot occur, mates and stalemates, and the positions with moves leaving the table
+        private void initialize(final long from, final long to, final Scratch scratch){
+            final long[] bitboards = scratch.bitboards;
+            for(long position = from; position < to; position++){
+                final int side = this.index.decode(position, bitboards);
+                if(side < 0 || this.index.index(bitboards, side, false) != position ||
+                        MoveGenerator.isSquareAttacked(bitboards, firstSquare(bitboards[(side ^ 1) * NUM_PIECE_TYPES + 5]), side)){
+                    this.values.put(position, ILLEGAL);
+                    continue;
+                }
+                final MoveList moves = scratch.moves;
+                moves.clear();
+                MoveGenerator.generateMoves(bitboards, side, 0, BoardUtils.NO_EN_PASSANT, scratch.safety, moves);
+                if(moves.isEmpty()){
+                    this.values.put(position, scratch.safety.isInCheck() ? 1 : DRAW);
+                    continue;
+                }
+                for(int i = 0; i < moves.size(); i++){
+                    if(leavesTable(moves.get(i))){
+                        this.candidates.put(position, 1);
+                        break;
+                    }
+                }
+            }
+        }
+
+        // un-make every move into the positions decided at distance n - 1
+        private void markPredecessors(final long from, final long to, final int n, final Scratch scratch){
+            final long[] bitboards = scratch.bitboards;
+            for(long position = from; position < to; position++){
+                if(this.values.get(position) != n){
+                    continue;
+                }
+                final int side = this.index.decode(position, bitboards);
+                final int mover = side ^ 1;
+                final long occupancy = bitboards[ALL_PIECES];
+                for(int pieceType = 0; pieceType < NUM_PIECE_TYPES; pieceType++){
+                    long pieces = bitboards[mover * NUM_PIECE_TYPES + pieceType];
+                    while(pieces != 0){
+                        final int square = firstSquare(pieces);
+                        pieces &= pieces - 1;
+                        long origins = origins(mover, pieceType, square, occupancy);
+                        while(origins != 0){
+                            final int origin = firstSquare(origins);
+                            origins &= origins - 1;
+                            final long fromTo = bit(square) | bit(origin);
+                            bitboards[mover * NUM_PIECE_TYPES + pieceType] ^= fromTo;
+                            bitboards[WHITE_PIECES + mover] ^= fromTo;
+                            bitboards[ALL_PIECES] ^= fromTo;
+                            final long predecessor = this.index.index(bitboards, mover, false);
+                            if(this.values.get(predecessor) == UNKNOWN){
+                                this.candidates.put(predecessor, 1);
+                            }
+                            bitboards[mover * NUM_PIECE_TYPES + pieceType] ^= fromTo;
+                            bitboards[WHITE_PIECES + mover] ^= fromTo;
+                            bitboards[ALL_PIECES] ^= fromTo;
+                        }
+                    }
+                }
+            }
+        }
+
+        // the tiles a piece now on the square can have come from without capturing or promoting
+        private long origins(final int side, final int pieceType, final int square, final long occupancy){
+            switch(pieceType){
+                case 0:
+                    // white pawns move towards tile 0, so they came from a higher tile
+                    final int back = side == 0 ? BoardUtils.NUM_TILES_PER_ROW : -BoardUtils.NUM_TILES_PER_ROW;
+                    final int single = square + back;
+                    if(single < 8 || single >= 56 || (occupancy & bit(single)) != 0){
+                        return 0L;
+                    }
+                    final boolean jumped = side == 0 ? square >= 32 && square < 40 : square >= 24 && square < 32;
+                    return jumped && (occupancy & bit(single + back)) == 0 ? bit(single) | bit(single + back) : bit(single);
+                case 1:
+                    return KNIGHT_ATTACKS[square] & ~occupancy;
+                case 2:
+                    return bishopAttacks(square, occupancy) & ~occupancy;
+                case 3:
+                    return rookAttacks(square, occupancy) & ~occupancy;
+                case 4:
+                    return queenAttacks(square, occupancy) & ~occupancy;
+                default:
+                    return KING_ATTACKS[square] & ~occupancy;
+            }
+        }
+
+        private void decide(final long from,
+                            final long to,
+                            final int n,
+                            final LongAdder decided,
+                            final LongAdder pending,
+                            final Scratch scratch){
+            for(long position = from; position < to; position++){
+                if(this.candidates.get(position) == 0){
+                    continue;
+                }
+                final int decision = this.values.get(position) == UNKNOWN ? evaluate(position, n, scratch) : DROP;
+                if(decision == KEEP){
+                    pending.increment();
+                    continue;
+                }
+                this.candidates.put(position, 0);
+                if(decision != DROP){
+                    this.values.put(position, decision);
+                    decided.increment();
+                }
+            }
+        }
+
+        /*
+         * The value of the position when it is decided at distance n, otherwise KEEP when it will be
+         * decided later by what is known already, or DROP when it has to wait for more of its successors.
+         */
+        private int evaluate(final long position, final int n, final Scratch scratch){
+            final long[] bitboards = scratch.bitboards;
+            final int side = this.index.decode(position, bitboards);
+            final MoveList moves = scratch.moves;
+            moves.clear();
+            MoveGenerator.generateMoves(bitboards, side, 0, BoardUtils.NO_EN_PASSANT, scratch.safety, moves);
+            int shortestWin = Integer.MAX_VALUE;
+            int longestLoss = 0;
+            boolean open = false;
+            for(int i = 0; i < moves.size(); i++){
+                final int move = moves.get(i);
+                System.arraycopy(bitboards, 0, scratch.child, 0, NUM_BITBOARDS);
+                BitBoards.applyMove(scratch.child, side, move);
+                final int distance;
+                if(leavesTable(move)){
+                    final int code = tablebases.probe(scratch.child, side ^ 1);
+                    if(code == Tablebases.NOT_FOUND){
+                        throw new IllegalStateException("No table for " + TablebaseIndex.materialName(scratch.child));
+                    }
+                    distance = code == Tablebases.DRAW ? -1 : Tablebases.getDistance(code);
+                }else{
+                    final int value = this.values.get(this.index.index(scratch.child, side ^ 1, false));
+                    // decided in this pass counts as not decided yet
+                    distance = value == UNKNOWN || value == DRAW || value > n ? -1 : value - 1;
+                }
+                if(distance < 0){
+                    open = true;
+                }else if((distance & 1) == 0){
+                    shortestWin = Math.min(shortestWin, distance + 1);
+                }else{
+                    longestLoss = Math.max(longestLoss, distance + 1);
+                }
+            }
+            if(shortestWin != Integer.MAX_VALUE){
+                return decisionAt(shortestWin, n);
+            }
+            return open ? DROP : decisionAt(longestLoss, n);
+        }
+
+        private int decisionAt(final int distance, final int n){
+            if(distance < n){
+                throw new IllegalStateException("Missed a mate in " + distance + " plies of " + this.index.getName());
+            }
+            return distance == n ? n + 1 : KEEP;
+        }
+
+        private boolean leavesTable(final int move){
+            return PackedMove.isCapture(move) || PackedMove.isPromotion(move);
+        }
+
+        // bit pack the values into the table file, written under a temporary name and then moved in place
+        private void write(final ExecutorService pool, final Path path) throws IOException {
+            final int[] longest = new int[1];
+            forEachChunk(pool, (from, to, scratch) -> {
+                int max = 0;
+                for(long position = from; position < to; position++){
+                    final int value = this.values.get(position);
+                    if(value <= MAX_VALUE){
+                        max = Math.max(max, value);
+                    }
+                }
+                synchronized(longest){
+                    longest[0] = Math.max(longest[0], max);
+                }
+            });
+            final int bitsPerValue = Math.max(1, 32 - Integer.numberOfLeadingZeros(longest[0]));
+            final long dataBytes = Tablebase.dataBytes(this.index.size(), bitsPerValue);
+            final Path temporary = directory.resolve(this.index.getName() + ".tmp");
+            try(FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)){
+                final ByteBuffer header = ByteBuffer.allocate(Tablebase.HEADER_BYTES).order(Tablebase.BYTE_ORDER);
+                header.putInt(Tablebase.MAGIC);
+                header.putInt(Tablebase.VERSION);
+                header.putInt(bitsPerValue);
+                header.putInt(Math.max(0, longest[0] - 1));
+                header.putLong(this.index.size());
+                header.put(Arrays.copyOf(this.index.getName().getBytes(StandardCharsets.US_ASCII), Tablebase.NAME_BYTES));
+                header.flip();
+                channel.write(header, 0);
+                // a chunk is a multiple of 8 positions, so every chunk fills whole bytes of its own
+                final long segmentBytes = (long) CHUNK * bitsPerValue / 8;
+                forEachChunk(pool, (from, to, scratch) -> {
+                    final long firstByte = from * bitsPerValue / 8;
+                    final MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_WRITE,
+                            Tablebase.HEADER_BYTES + firstByte, Math.min(segmentBytes, dataBytes - firstByte));
+                    long buffer = 0L;
+                    int bufferBits = 0;
+                    for(long position = from; position < to; position++){
+                        final int value = this.values.get(position);
+                        buffer |= (long) (value <= MAX_VALUE ? value : 0) << bufferBits;
+                        bufferBits += bitsPerValue;
+                        while(bufferBits >= 8){
+                            bytes.put((byte) buffer);
+                            buffer >>>= 8;
+                            bufferBits -= 8;
+                        }
+                    }
+                    if(bufferBits > 0){
+                        bytes.put((byte) buffer);
+                    }
+                });
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        private void forEachChunk(final ExecutorService pool, final ChunkTask task) throws IOException {
+            final long size = this.index.size();
+            final List<Callable<Void>> chunks = new ArrayList<>();
+            for(long from = 0; from < size; from += CHUNK){
+                final long first = from;
+                final long last = Math.min(size, from + CHUNK);
+                chunks.add(() -> {
+                    task.run(first, last, SCRATCH.get());
+                    return null;
+                });
+            }
+            try {
+                for(final Future<Void> chunk : pool.invokeAll(chunks)){
+                    chunk.get();
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Tablebase generation interrupted", e);
+            } catch (final ExecutionException e) {
+                if(e.getCause() instanceof IOException){
+                    throw (IOException) e.getCause();
+                }
+                if(e.getCause() instanceof RuntimeException){
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IOException(e.getCause());
+            }
+        }
+    }
+}
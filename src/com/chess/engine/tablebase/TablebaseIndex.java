@@ -0,0 +1,253 @@
+package com.chess.engine.tablebase;
+
+import com.chess.engine.board.BoardUtils;
+
+import static com.chess.engine.board.BitBoards.*;
+
+/*
+ * Numbers the positions of one material signature, e.g. KQK or KBNK.
+ *
+ * A table is always built with the stronger side as white, positions of the same material with the
+ * colors swapped are probed "flipped": colors exchanged and the board mirrored top to bottom.
+ *
+ * Symmetry: the white king is brought into one corner of the board by mirroring the board left to
+ * right and, without pawns, top to bottom and along the diagonal, so only 10 (32 with pawns) white king
+ * tiles are left. The index is then
+ *
+ *   ((((king index * 64 + black king) * 64 + piece 1) * 64 + piece 2) ...) * 2 + side to move
+ *
+ * with the pieces in signature order (white first) and the tiles of identical pieces in ascending order.
+ * With the white king on the diagonal both reflections keep it in the corner, the smaller index wins.
+ * Indexes whose decoded position is not in this canonical form are never probed.
+ */
+final class TablebaseIndex {
+
+    static final int MAX_PIECES = 5;
+
+    private static final int KING = 5;
+    private static final String PIECE_LETTERS = "PNBRQK";
+    private static final int MIRROR_COLUMN = 1;
+    private static final int MIRROR_ROW = 2;
+    private static final int MIRROR_DIAGONAL = 4;
+
+    // the white king tiles left after the symmetry reduction and their index
+    private static final int[] PAWNLESS_KING_TILES = new int[10];
+    private static final int[] PAWN_KING_TILES = new int[32];
+    private static final int[] PAWNLESS_KING_INDEX = new int[BoardUtils.NUM_TILES];
+    private static final int[] PAWN_KING_INDEX = new int[BoardUtils.NUM_TILES];
+
+    static {
+        int pawnless = 0;
+        int pawns = 0;
+        for(int tile = 0; tile < BoardUtils.NUM_TILES; tile++){
+            final int column = tile & 7;
+            final int row = tile >>> 3;
+            PAWNLESS_KING_INDEX[tile] = -1;
+            PAWN_KING_INDEX[tile] = -1;
+            if(column <= row && row < 4){
+                PAWNLESS_KING_INDEX[tile] = pawnless;
+                PAWNLESS_KING_TILES[pawnless++] = tile;
+            }
+            if(column < 4){
+                PAWN_KING_INDEX[tile] = pawns;
+                PAWN_KING_TILES[pawns++] = tile;
+            }
+        }
+    }
+
+    private final String name;
+    // bitboard index (alliance * 6 + piece type) of every non king piece, white first, identical pieces together
+    private final int[] pieces;
+    private final boolean hasPawns;
+    private final long size;
+    private final long materialKey;
+
+    TablebaseIndex(final String name){
+        final int secondKing = name.indexOf('K', 1);
+        if(!name.startsWith("K") || secondKing < 0 || name.length() > MAX_PIECES){
+            throw new IllegalArgumentException("Not a material signature of at most " + MAX_PIECES + " pieces " + name);
+        }
+        this.name = name;
+        this.pieces = new int[name.length() - 2];
+        int count = 0;
+        boolean pawns = false;
+        for(int i = 1; i < name.length(); i++){
+            if(i == secondKing){
+                continue;
+            }
+            final int pieceType = PIECE_LETTERS.indexOf(name.charAt(i));
+            if(pieceType < 0 || pieceType == KING){
+                throw new IllegalArgumentException("Unknown piece " + name.charAt(i) + " in " + name);
+            }
+            this.pieces[count++] = (i < secondKing ? 0 : NUM_PIECE_TYPES) + pieceType;
+            pawns |= pieceType == 0;
+        }
+        // identical pieces must be next to each other, which sorting within each side guarantees
+        for(int i = 1; i < this.pieces.length; i++){
+            if(this.pieces[i] / NUM_PIECE_TYPES == this.pieces[i - 1] / NUM_PIECE_TYPES &&
+                    this.pieces[i] > this.pieces[i - 1]){
+                throw new IllegalArgumentException("Pieces must be listed from queen down to pawn " + name);
+            }
+        }
+        this.hasPawns = pawns;
+        long positions = 2L * (pawns ? PAWN_KING_TILES.length : PAWNLESS_KING_TILES.length) * BoardUtils.NUM_TILES;
+        for(int i = 0; i < this.pieces.length; i++){
+            positions *= BoardUtils.NUM_TILES;
+        }
+        this.size = positions;
+        long key = 0L;
+        for(final int piece : this.pieces){
+            key += 1L << materialShift(piece);
+        }
+        this.materialKey = key;
+    }
+
+    String getName(){
+        return this.name;
+    }
+
+    long size(){
+        return this.size;
+    }
+
+    long getMaterialKey(){
+        return this.materialKey;
+    }
+
+    /*
+     * The material of a position in the same form as getMaterialKey: four bits per piece count.
+     * Flipped, the colors are swapped.
+     */
+    static long materialKey(final long[] bitboards, final boolean flip){
+        long key = 0L;
+        for(int piece = 0; piece < WHITE_PIECES; piece++){
+            if(piece % NUM_PIECE_TYPES != KING){
+                final int tablePiece = flip ? (piece + NUM_PIECE_TYPES) % WHITE_PIECES : piece;
+                key += (long) Long.bitCount(bitboards[piece]) << materialShift(tablePiece);
+            }
+        }
+        return key;
+    }
+
+    // the name of the material of a position, white first, e.g. KRPKR
+    static String materialName(final long[] bitboards){
+        final StringBuilder name = new StringBuilder();
+        for(int side = 0; side < 2; side++){
+            name.append('K');
+            for(int pieceType = KING - 1; pieceType >= 0; pieceType--){
+                for(int i = Long.bitCount(bitboards[side * NUM_PIECE_TYPES + pieceType]); i > 0; i--){
+                    name.append(PIECE_LETTERS.charAt(pieceType));
+                }
+            }
+        }
+        return name.toString();
+    }
+
+    private static int materialShift(final int piece){
+        return 4 * ((piece / NUM_PIECE_TYPES) * KING + piece % NUM_PIECE_TYPES);
+    }
+
+    /*
+     * The index of a position with this material, the side is an alliance ordinal. Flipped, black is
+     * the side this table calls white.
+     */
+    long index(final long[] bitboards, final int side, final boolean flip){
+        final int whiteKing = firstSquare(bitboards[(flip ? NUM_PIECE_TYPES : 0) + KING]) ^ (flip ? 56 : 0);
+        int symmetry = 0;
+        if((whiteKing & 7) > 3){
+            symmetry |= MIRROR_COLUMN;
+        }
+        if(this.hasPawns){
+            return index(bitboards, side, flip, symmetry);
+        }
+        if((whiteKing >>> 3) > 3){
+            symmetry |= MIRROR_ROW;
+        }
+        final int mirrored = transform(whiteKing, symmetry);
+        if((mirrored & 7) > (mirrored >>> 3)){
+            symmetry |= MIRROR_DIAGONAL;
+        }else if((mirrored & 7) == (mirrored >>> 3)){
+            // a king on the diagonal stays there either way, the smaller index of the two is the one
+            return Math.min(index(bitboards, side, flip, symmetry), index(bitboards, side, flip, symmetry | MIRROR_DIAGONAL));
+        }
+        return index(bitboards, side, flip, symmetry);
+    }
+
+    private long index(final long[] bitboards, final int side, final boolean flip, final int symmetry){
+        final int colorSwap = flip ? NUM_PIECE_TYPES : 0;
+        final int rowSwap = flip ? 56 : 0;
+        final int[] kingIndex = this.hasPawns ? PAWN_KING_INDEX : PAWNLESS_KING_INDEX;
+        long index = kingIndex[transform(firstSquare(bitboards[colorSwap + KING]) ^ rowSwap, symmetry)];
+        index = index * BoardUtils.NUM_TILES +
+                transform(firstSquare(bitboards[(NUM_PIECE_TYPES ^ colorSwap) + KING]) ^ rowSwap, symmetry);
+        int i = 0;
+        while(i < this.pieces.length){
+            // identical pieces go in ascending order of their transformed tiles
+            final int piece = this.pieces[i];
+            long tiles = 0L;
+            long squares = bitboards[(piece + colorSwap) % WHITE_PIECES];
+            while(squares != 0){
+                tiles |= bit(transform(firstSquare(squares) ^ rowSwap, symmetry));
+                squares &= squares - 1;
+            }
+            while(i < this.pieces.length && this.pieces[i] == piece){
+                index = index * BoardUtils.NUM_TILES + firstSquare(tiles);
+                tiles &= tiles - 1;
+                i++;
+            }
+        }
+        return index * 2 + (flip ? side ^ 1 : side);
+    }
+
+    /*
+     * Fill the bitboards with the position of the index and return the side to move, or -1 when the
+     * index is no position at all: pieces on the same tile or pawns on the first or last row.
+     */
+    int decode(long index, final long[] bitboards){
+        final int side = (int) (index & 1);
+        index >>>= 1;
+        for(int i = 0; i < NUM_BITBOARDS; i++){
+            bitboards[i] = 0L;
+        }
+        for(int i = this.pieces.length - 1; i >= 0; i--){
+            final int tile = (int) (index % BoardUtils.NUM_TILES);
+            index /= BoardUtils.NUM_TILES;
+            if(this.pieces[i] % NUM_PIECE_TYPES == 0 && (tile < 8 || tile >= 56)){
+                return -1;
+            }
+            if(!place(bitboards, this.pieces[i], tile)){
+                return -1;
+            }
+        }
+        final int blackKing = (int) (index % BoardUtils.NUM_TILES);
+        index /= BoardUtils.NUM_TILES;
+        final int whiteKing = (this.hasPawns ? PAWN_KING_TILES : PAWNLESS_KING_TILES)[(int) index];
+        if(!place(bitboards, NUM_PIECE_TYPES + KING, blackKing) || !place(bitboards, KING, whiteKing)){
+            return -1;
+        }
+        return side;
+    }
+
+    private static boolean place(final long[] bitboards, final int piece, final int tile){
+        if((bitboards[ALL_PIECES] & bit(tile)) != 0){
+            return false;
+        }
+        bitboards[piece] |= bit(tile);
+        bitboards[WHITE_PIECES + piece / NUM_PIECE_TYPES] |= bit(tile);
+        bitboards[ALL_PIECES] |= bit(tile);
+        return true;
+    }
+
+    private static int transform(int tile, final int symmetry){
+        if((symmetry & MIRROR_COLUMN) != 0){
+            tile ^= 7;
+        }
+        if((symmetry & MIRROR_ROW) != 0){
+            tile ^= 56;
+        }
+        if((symmetry & MIRROR_DIAGONAL) != 0){
+            tile = ((tile & 7) << 3) | (tile >>> 3);
+        }
+        return tile;
+    }
+}
@@ -0,0 +1,134 @@
+package com.chess.engine.tablebase;
+
+import com.chess.engine.board.BoardUtils;
+import com.chess.engine.board.SearchBoard;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.chess.engine.board.BitBoards.*;
+
+/*
+ * All endgame tables of a directory, probed by the material on the board.
+ *
+ * probe answers with a code: NOT_FOUND when no table covers the position, DRAW, or one more than the
+ * distance to mate in plies (see isWin, getDistance). Positions with castling rights or a possible en
+ * passant capture are never in a table. Lone kings and a king with a single minor piece against a lone king are
+ * draws without any table.
+ *
+ * The tables are loaded once and only read afterwards, so probing is thread safe.
+ */
+public final class Tablebases implements Closeable {
+
+    public static final int NOT_FOUND = -1;
+    public static final int DRAW = 0;
+    // the longest distance to mate in plies a table can hold
+    public static final int MAX_DISTANCE = 252;
+
+    private static final int KNIGHT = 1;
+    private static final int BISHOP = 2;
+
+    // probes copy the bitboards of the board here instead of allocating
+    private static final ThreadLocal<long[]> SCRATCH = ThreadLocal.withInitial(() -> new long[NUM_BITBOARDS]);
+
+    private final Map<Long, Tablebase> tables = new HashMap<>();
+    private int maxPieces;
+
+    // every table file of the directory
+    public Tablebases(final Path directory) throws IOException {
+        if(Files.isDirectory(directory)){
+            try(DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + Tablebase.FILE_EXTENSION)){
+                for(final Path file : files){
+                    add(new Tablebase(file));
+                }
+            }
+        }
+    }
+
+    void add(final Tablebase table){
+        this.tables.put(table.getIndex().getMaterialKey(), table);
+        this.maxPieces = Math.max(this.maxPieces, table.getName().length());
+    }
+
+    boolean contains(final String name){
+        return this.tables.containsKey(new TablebaseIndex(name).getMaterialKey());
+    }
+
+    // the most pieces (kings included) of any table, a position with more is never found
+    public int getMaxPieces(){
+        return this.maxPieces;
+    }
+
+    public int size(){
+        return this.tables.size();
+    }
+
+    public int probe(final SearchBoard board){
+        final int enPassantSquare = board.getEnPassantSquare();
+        if(board.getCastlingRights() != 0 || (enPassantSquare != BoardUtils.NO_EN_PASSANT &&
+                (PAWN_ATTACKS[board.getSideToMove() ^ 1][enPassantSquare] & board.getBitboard(board.getSideToMove() * NUM_PIECE_TYPES)) != 0)){
+            return NOT_FOUND;
+        }
+        final long[] bitboards = SCRATCH.get();
+        for(int i = 0; i < NUM_BITBOARDS; i++){
+            bitboards[i] = board.getBitboard(i);
+        }
+        return probe(bitboards, board.getSideToMove());
+    }
+
+    // the side is an alliance ordinal
+    int probe(final long[] bitboards, final int side){
+        if(isInsufficientMaterial(bitboards)){
+            return DRAW;
+        }
+        if(Long.bitCount(bitboards[ALL_PIECES]) > this.maxPieces){
+            return NOT_FOUND;
+        }
+        Tablebase table = this.tables.get(TablebaseIndex.materialKey(bitboards, false));
+        if(table != null){
+            return table.probe(table.getIndex().index(bitboards, side, false));
+        }
+        table = this.tables.get(TablebaseIndex.materialKey(bitboards, true));
+        if(table != null){
+            return table.probe(table.getIndex().index(bitboards, side, true));
+        }
+        return NOT_FOUND;
+    }
+
+    // nothing but the kings and at most one knight or bishop
+    static boolean isInsufficientMaterial(final long[] bitboards){
+        final long kings = bitboards[NUM_PIECE_TYPES - 1] | bitboards[WHITE_PIECES - 1];
+        final long rest = bitboards[ALL_PIECES] & ~kings;
+        if(rest == 0){
+            return true;
+        }
+        final long minors = bitboards[KNIGHT] | bitboards[BISHOP] |
+                bitboards[NUM_PIECE_TYPES + KNIGHT] | bitboards[NUM_PIECE_TYPES + BISHOP];
+        return (rest & (rest - 1)) == 0 && (rest & minors) != 0;
+    }
+
+    public static boolean isWin(final int code){
+        return code > 0 && (getDistance(code) & 1) == 1;
+    }
+
+    public static boolean isLoss(final int code){
+        return code > 0 && (getDistance(code) & 1) == 0;
+    }
+
+    // the distance to mate in plies of a won or lost position, 0 when the side to move is mated
+    public static int getDistance(final int code){
+        return code - 1;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for(final Tablebase table : this.tables.values()){
+            table.close();
+        }
+    }
+}
@@ -0,0 +1,488 @@
+package com.chess.engine.uci;
+
+import com.chess.engine.board.MoveList;
+import com.chess.engine.board.PackedMove;
+import com.chess.engine.board.SearchBoard;
+import com.chess.engine.book.PolyglotBook;
+import com.chess.engine.nnue.Network;
+import com.chess.engine.nnue.NnueEvaluator;
+import com.chess.engine.player.ai.AlphaBetaSearch;
+import com.chess.engine.player.ai.PositionalEvaluator;
+import com.chess.engine.player.ai.SearchLimits;
+import com.chess.engine.player.ai.SearchListener;
+import com.chess.engine.player.ai.SearchResult;
+import com.chess.engine.player.ai.TranspositionTable;
+import com.chess.engine.tablebase.Tablebases;
+import com.chess.pgn.FenUtilities;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/*
+ * The Universal Chess Interface: the engine driven by a GUI or tournament manager over stdin / stdout.
+ *
+ * The calling thread only reads commands, every search runs on one dedicated search thread, so stop,
+ * ponderhit and isready are answered while a search is running. stop and the time limits are checked by
+ * the search every 1024 nodes, a fraction of a millisecond.
+ *
+ * With go infinite and go ponder the best move is held back until stop (or ponderhit) arrives, even
+ * when the search ends on its own, as the protocol demands.
+ *
+ * The EvalFile option switches to the neural network evaluation of the given network file, an empty
+ * value back to the classical evaluation. TablebasePath loads the endgame tables of a directory (see
+ * TablebaseGenerator) for the search to probe. BookFile opens a Polyglot book: while the position is in
+ * it, go answers with a book move at once (weighted at random), go infinite and go ponder still search.
+ */
+public final class UciEngine implements SearchListener {
+
+    private static final String NAME = "JChess";
+    private static final String AUTHOR = "the JChess authors";
+
+    private static final int MIN_HASH_MB = 1;
+    private static final int MAX_HASH_MB = 65536;
+    // the default of the string options, no file
+    private static final String NO_FILE = "<empty>";
+    // the thinking time when go only gives the clock of the side not to move
+    private static final long DEFAULT_MOVE_TIME_MILLIS = 1000;
+
+    private final BufferedReader in;
+    private final PrintStream out;
+    private final AlphaBetaSearch search;
+    private final ExecutorService searchThread;
+
+    // the position of the last valid position command, the next one is set up on the spare board
+    private SearchBoard board = new SearchBoard(FenUtilities.STANDARD_FEN);
+    private SearchBoard spareBoard = new SearchBoard(FenUtilities.STANDARD_FEN);
+    private Future<?> runningSearch;
+    private PolyglotBook book;
+
+    // guarded by this: the state of the running search that commands from the input thread change
+    private boolean waitingForStop;
+    private boolean stopReceived;
+    // the limits a ponder search gets on ponderhit, and once it got them
+    private SearchLimits ponderLimits;
+    private SearchLimits hitLimits;
+
+    public UciEngine(final BufferedReader in, final PrintStream out){
+        this.in = in;
+        this.out = out;
+        this.search = new AlphaBetaSearch();
+        this.search.setListener(this);
+        this.searchThread = Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "uci-search");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static void main(final String[] args) throws IOException {
+        new UciEngine(new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)), System.out).run();
+    }
+
+    // read and handle commands until quit or the end of the input
+    public void run() throws IOException {
+        try {
+            String line;
+            while((line = this.in.readLine()) != null){
+                if(!handle(line.trim())){
+                    break;
+                }
+            }
+        } finally {
+            stopAndWait();
+            this.searchThread.shutdownNow();
+            if(this.book != null){
+                this.book.close();
+            }
+        }
+    }
+
+    // false once the engine should quit
+    private boolean handle(final String line){
+        final String[] tokens = line.split("\\s+");
+        switch(tokens[0]){
+            case "uci":
+                send("id name " + NAME);
+                send("id author " + AUTHOR);
+                send("option name Hash type spin default " + TranspositionTable.DEFAULT_SIZE_MB +
+                        " min " + MIN_HASH_MB + " max " + MAX_HASH_MB);
+                send("option name Threads type spin default 1 min 1 max " + AlphaBetaSearch.MAX_THREADS);
+                send("option name Ponder type check default false");
+                send("option name EvalFile type string default " + NO_FILE);
+                send("option name TablebasePath type string default " + NO_FILE);
+                send("option name BookFile type string default " + NO_FILE);
+                send("uciok");
+                break;
+            case "isready":
+                send("readyok");
+                break;
+            case "ucinewgame":
+                stopAndWait();
+                this.search.getTranspositionTable().clear();
+                break;
+            case "setoption":
+                stopAndWait();
+                setOption(tokens);
+                break;
+            case "position":
+                stopAndWait();
+                setPosition(tokens);
+                break;
+            case "go":
+                stopAndWait();
+                go(tokens);
+                break;
+            case "stop":
+                stop();
+                break;
+            case "ponderhit":
+                ponderHit();
+                break;
+            case "quit":
+                return false;
+            default:
+                // unknown commands are ignored, as the protocol asks
+                break;
+        }
+        return true;
+    }
+
+    private void setOption(final String[] tokens){
+        final String name = join(tokens, "name", "value");
+        final String value = join(tokens, "value", null);
+        try {
+            if(name.equalsIgnoreCase("Hash")){
+                this.search.getTranspositionTable().resize(
+                        Math.max(MIN_HASH_MB, Math.min(Integer.parseInt(value), MAX_HASH_MB)));
+            }else if(name.equalsIgnoreCase("Threads")){
+                this.search.setThreads(Math.max(1, Math.min(Integer.parseInt(value), AlphaBetaSearch.MAX_THREADS)));
+            }else if(name.equalsIgnoreCase("EvalFile")){
+                setEvalFile(value);
+            }else if(name.equalsIgnoreCase("TablebasePath")){
+                setTablebasePath(value);
+            }else if(name.equalsIgnoreCase("BookFile")){
+                setBookFile(value);
+            }
+        } catch (final NumberFormatException e) {
+            send("info string invalid value " + value + " for option " + name);
+        }
+    }
+
+    private void setEvalFile(final String value){
+        if(value.isEmpty() || value.equals(NO_FILE)){
+            this.search.setEvaluator(new PositionalEvaluator());
+            return;
+        }
+        try {
+            final Network network = Network.load(Path.of(value));
+            this.search.setEvaluator(new NnueEvaluator(network));
+            send("info string network " + value + " " + network.getHiddenSize() + "x" + network.getDenseSize() +
+                    " with " + NnueEvaluator.getKernelName() + " kernels");
+        } catch (final IOException | IllegalArgumentException e) {
+            send("info string cannot load network " + value + ": " + e.getMessage());
+        }
+    }
+
+    // no search is running here, so the tables in use can be closed
+    private void setTablebasePath(final String value){
+        final Tablebases previous = this.search.getTablebases();
+        this.search.setTablebases(null);
+        try {
+            if(previous != null){
+                previous.close();
+            }
+            if(value.isEmpty() || value.equals(NO_FILE)){
+                return;
+            }
+            final Tablebases tablebases = new Tablebases(Path.of(value));
+            this.search.setTablebases(tablebases);
+            send("info string " + tablebases.size() + " tables of up to " + tablebases.getMaxPieces() + " pieces in " + value);
+        } catch (final IOException | IllegalArgumentException e) {
+            send("info string cannot load tables from " + value + ": " + e.getMessage());
+        }
+    }
+
+    // no search is running here either, the book is only probed by go
+    private void setBookFile(final String value){
+        final PolyglotBook previous = this.book;
+        this.book = null;
+        try {
+            if(previous != null){
+                previous.close();
+            }
+            if(value.isEmpty() || value.equals(NO_FILE)){
+                return;
+            }
+            this.book = new PolyglotBook(Path.of(value));
+            send("info string book " + value + " with " + this.book.size() + " entries");
+        } catch (final IOException | IllegalArgumentException e) {
+            send("info string cannot load book " + value + ": " + e.getMessage());
+        }
+    }
+
+    // the words after the key up to the end key (or the end of the line)
+    private static String join(final String[] tokens, final String key, final String endKey){
+        final StringBuilder builder = new StringBuilder();
+        boolean inside = false;
+        for(final String token : tokens){
+            if(token.equals(key)){
+                inside = true;
+            }else if(token.equals(endKey)){
+                inside = false;
+            }else if(inside){
+                if(builder.length() > 0){
+                    builder.append(' ');
+                }
+                builder.append(token);
+            }
+        }
+        return builder.toString();
+    }
+
+    /*
+     * The position is set up on the spare board and only swapped in once the FEN and every move have
+     * been accepted, so an invalid command leaves the previous position as it was.
+     */
+    private void setPosition(final String[] tokens){
+        final SearchBoard position = this.spareBoard;
+        int index = 1;
+        if(index < tokens.length && tokens[index].equals("startpos")){
+            position.setFEN(FenUtilities.STANDARD_FEN);
+            index++;
+        }else if(index < tokens.length && tokens[index].equals("fen")){
+            final StringBuilder fen = new StringBuilder();
+            index++;
+            while(index < tokens.length && !tokens[index].equals("moves")){
+                fen.append(tokens[index++]).append(' ');
+            }
+            try {
+                position.setFEN(fen.toString().trim());
+            } catch (final IllegalArgumentException e) {
+                send("info string invalid fen " + fen.toString().trim());
+                return;
+            }
+        }else{
+            send("info string position needs startpos or fen");
+            return;
+        }
+        if(index < tokens.length && tokens[index].equals("moves")){
+            final MoveList moves = new MoveList();
+            for(index++; index < tokens.length; index++){
+                final int move = findMove(position, moves, tokens[index]);
+                if(move == PackedMove.NULL_MOVE){
+                    send("info string illegal move " + tokens[index]);
+                    return;
+                }
+                position.makeMove(move);
+            }
+        }
+        this.spareBoard = this.board;
+        this.board = position;
+    }
+
+    // the legal move of the position in coordinate notation, e.g. e7e8q
+    private static int findMove(final SearchBoard position, final MoveList moves, final String text){
+        moves.clear();
+        position.generateMoves(moves);
+        for(int i = 0; i < moves.size(); i++){
+            if(PackedMove.toString(moves.get(i)).equals(text)){
+                return moves.get(i);
+            }
+        }
+        return PackedMove.NULL_MOVE;
+    }
+
+    private void go(final String[] tokens){
+        final boolean white = this.board.getSideToMove() == 0;
+        long time = -1;
+        long increment = 0;
+        int movesToGo = 0;
+        long moveTime = -1;
+        boolean clockGiven = false;
+        boolean infinite = false;
+        boolean ponder = false;
+        final SearchLimits.Builder builder = new SearchLimits.Builder();
+        for(int i = 1; i < tokens.length; i++){
+            final String value = i + 1 < tokens.length ? tokens[i + 1] : "0";
+            try {
+                switch(tokens[i]){
+                    // a flagged clock can arrive negative, it still means no time left rather than no limit
+                    case "wtime":
+                        time = white ? Math.max(0, Long.parseLong(value)) : time;
+                        clockGiven = true;
+                        break;
+                    case "btime":
+                        time = white ? time : Math.max(0, Long.parseLong(value));
+                        clockGiven = true;
+                        break;
+                    case "winc":
+                        increment = white ? Long.parseLong(value) : increment;
+                        break;
+                    case "binc":
+                        increment = white ? increment : Long.parseLong(value);
+                        break;
+                    case "movestogo":
+                        movesToGo = Integer.parseInt(value);
+                        break;
+                    case "movetime":
+                        moveTime = Math.max(0, Long.parseLong(value));
+                        break;
+                    case "depth":
+                        builder.setDepth(Integer.parseInt(value));
+                        break;
+                    case "nodes":
+                        builder.setNodes(Long.parseLong(value));
+                        break;
+                    case "infinite":
+                        infinite = true;
+                        break;
+                    case "ponder":
+                        ponder = true;
+                        break;
+                    default:
+                        break;
+                }
+            } catch (final NumberFormatException e) {
+                send("info string invalid value " + value + " for " + tokens[i]);
+            }
+        }
+        if(this.book != null && !infinite && !ponder){
+            final int bookMove = this.book.getWeightedMove(this.board);
+            if(bookMove != PackedMove.NULL_MOVE){
+                send("bestmove " + PackedMove.toString(bookMove));
+                return;
+            }
+        }
+        final SearchLimits limits;
+        if(moveTime >= 0){
+            limits = copyTime(builder, SearchLimits.moveTime(moveTime));
+        }else if(time >= 0 && !infinite){
+            limits = copyTime(builder, SearchLimits.clock(time, increment, movesToGo));
+        }else if(clockGiven && !infinite){
+            // a clock game without our own clock is an error of the GUI, but not a reason to think forever
+            send("info string no clock for the side to move, searching " + DEFAULT_MOVE_TIME_MILLIS + " ms");
+            limits = copyTime(builder, SearchLimits.moveTime(DEFAULT_MOVE_TIME_MILLIS));
+        }else{
+            limits = builder.build();
+        }
+        synchronized(this){
+            this.waitingForStop = infinite || ponder;
+            this.stopReceived = false;
+            // a ponder search runs without limits until ponderhit hands it the real ones
+            this.ponderLimits = ponder ? limits : null;
+            this.hitLimits = null;
+        }
+        final SearchBoard position = this.board.copy();
+        final SearchLimits searchLimits = ponder ? SearchLimits.infinite() : limits;
+        this.runningSearch = this.searchThread.submit(() -> runSearch(position, searchLimits));
+    }
+
+    private static SearchLimits copyTime(final SearchLimits.Builder builder, final SearchLimits timeLimits){
+        return builder.setSoftTimeMillis(timeLimits.getSoftTimeMillis())
+                .setHardTimeMillis(timeLimits.getHardTimeMillis())
+                .build();
+    }
+
+    // on the search thread
+    private void runSearch(final SearchBoard position, final SearchLimits limits){
+        final SearchResult result = this.search.search(position, limits);
+        synchronized(this){
+            // go infinite and go ponder may not answer before they are told to
+            while(this.waitingForStop && !this.stopReceived){
+                try {
+                    wait();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        final int[] principalVariation = result == null ? new int[0] : result.getPrincipalVariation();
+        final StringBuilder bestMove = new StringBuilder("bestmove ")
+                .append(PackedMove.toString(principalVariation.length > 0 ? principalVariation[0] : PackedMove.NULL_MOVE));
+        if(principalVariation.length > 1){
+            bestMove.append(" ponder ").append(PackedMove.toString(principalVariation[1]));
+        }
+        send(bestMove.toString());
+    }
+
+    /*
+     * After every iteration, on the search thread: report it, and catch up on a stop or ponderhit that
+     * arrived before the search had started and reset its state.
+     */
+    @Override
+    public void onIteration(final SearchResult result){
+        final StringBuilder info = new StringBuilder("info depth ").append(result.getDepth()).append(" score ");
+        if(result.isMateScore()){
+            info.append("mate ").append(result.getMateIn());
+        }else{
+            info.append("cp ").append(result.getScore());
+        }
+        info.append(" nodes ").append(result.getNodes())
+                .append(" nps ").append(result.getNodesPerSecond())
+                .append(" time ").append(result.getMillis())
+                .append(" hashfull ").append(this.search.getTranspositionTable().hashfull())
+                .append(" pv ").append(result.getPrincipalVariationText());
+        send(info.toString());
+        if(result.getDepth() == 1){
+            synchronized(this){
+                if(this.stopReceived){
+                    this.search.stop();
+                }else if(this.hitLimits != null){
+                    this.search.ponderHit(this.hitLimits);
+                }
+            }
+        }
+    }
+
+    private void stop(){
+        synchronized(this){
+            this.stopReceived = true;
+            notifyAll();
+        }
+        this.search.stop();
+    }
+
+    // the opponent played the expected move: keep searching, now under the real limits
+    private void ponderHit(){
+        synchronized(this){
+            if(this.ponderLimits == null){
+                return;
+            }
+            this.search.ponderHit(this.ponderLimits);
+            this.hitLimits = this.ponderLimits;
+            this.ponderLimits = null;
+            this.waitingForStop = false;
+            notifyAll();
+        }
+    }
+
+    private void stopAndWait(){
+        if(this.runningSearch == null){
+            return;
+        }
+        stop();
+        try {
+            this.runningSearch.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (final ExecutionException e) {
+            send("info string search failed " + e.getCause());
+        }
+        this.runningSearch = null;
+    }
+
+    // both threads write here, one whole line at a time
+    private synchronized void send(final String line){
+        this.out.println(line);
+        this.out.flush();
+    }
+}
@@ -0,0 +1,93 @@
+package com.chess.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+ * A file memory mapped read only, for the file formats that are read in place: position files, opening
+ * books and endgame tables.
+ *
+ * Everything after the header is mapped, a header is read once through readHeader. A single mapping is
+ * limited to 2GB, so the data is mapped in 1GB segments and read by long offsets counted from the end of
+ * the header. A value never spans two segments as long as its offset is a multiple of its size, which the
+ * fixed size records of these formats are.
+ *
+ * Reads never move a buffer position, so one MappedFile can be read by any number of threads at once.
+ * The pages live in the operating system's page cache and are shared by every process mapping the file.
+ */
+public final class MappedFile implements Closeable {
+
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+    private final long size;
+
+    // map the file after the first headerBytes bytes, a shorter file maps as empty
+    public MappedFile(final Path path, final int headerBytes, final ByteOrder order) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            this.size = Math.max(0, this.channel.size() - headerBytes);
+            this.segments = new MappedByteBuffer[(int) ((this.size + SEGMENT_MASK) >>> SEGMENT_SHIFT)];
+            for(int i = 0; i < this.segments.length; i++){
+                final long first = (long) i << SEGMENT_SHIFT;
+                this.segments[i] = this.channel.map(FileChannel.MapMode.READ_ONLY, headerBytes + first,
+                        Math.min(1L << SEGMENT_SHIFT, this.size - first));
+                this.segments[i].order(order);
+            }
+        } catch (final IOException | RuntimeException e) {
+            this.channel.close();
+            throw e;
+        }
+    }
+
+    // the number of bytes mapped, those after the header
+    public long size(){
+        return this.size;
+    }
+
+    // read the start of the file into the header buffer, returns false when the file is shorter
+    public boolean readHeader(final ByteBuffer header) throws IOException {
+        final int length = header.remaining();
+        return this.channel.read(header, 0) == length;
+    }
+
+    public int get(final long offset){
+        return segment(offset).get(position(offset));
+    }
+
+    public short getShort(final long offset){
+        return segment(offset).getShort(position(offset));
+    }
+
+    public int getInt(final long offset){
+        return segment(offset).getInt(position(offset));
+    }
+
+    public long getLong(final long offset){
+        return segment(offset).getLong(position(offset));
+    }
+
+    // the segment holding the byte at the offset, for decoders that read a whole record from a buffer
+    public ByteBuffer segment(final long offset){
+        return this.segments[(int) (offset >>> SEGMENT_SHIFT)];
+    }
+
+    // the position of the offset within its segment
+    public static int position(final long offset){
+        return (int) (offset & SEGMENT_MASK);
+    }
+
+    // the mapping stays valid until it is garbage collected, closing only releases the file handle
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+}
@@ -0,0 +1,43 @@
+package com.chess.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+
+/*
+ * The position file format: a 16 byte header followed by fixed width records of
+ * BoardCodec.ENCODED_BYTES each, all little endian.
+ *
+ *   header  magic "CHSP", format version, record size, reserved
+ *
+ * The number of positions follows from the file size, so a writer can stream positions without
+ * knowing how many there will be, and position i always starts at HEADER_BYTES + i * record size.
+ */
+final class PositionFile {
+
+    static final int MAGIC = 0x50534843; // "CHSP" in little endian
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    private PositionFile(){
+        throw new RuntimeException("Not Instantiable!");
+    }
+
+    static void writeHeader(final ByteBuffer buffer, final int recordBytes){
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(recordBytes);
+        buffer.putInt(0);
+    }
+
+    static void checkHeader(final ByteBuffer header, final int recordBytes, final Path path) throws IOException {
+        if(header.getInt(0) != MAGIC){
+            throw new IOException("Not a position file " + path);
+        }
+        if(header.getInt(4) != VERSION || header.getInt(8) != recordBytes){
+            throw new IOException("Unsupported position file version " + header.getInt(4) + " in " + path);
+        }
+    }
+}
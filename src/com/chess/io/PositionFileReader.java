@@ -0,0 +1,73 @@
+package com.chess.io;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.BoardCodec;
+import com.chess.engine.board.SearchBoard;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/*
+ * Random access to the positions of a position file (see PositionFile).
+ *
+ * The file is memory mapped (see MappedFile) and a position is only decoded when it is asked for, so
+ * opening even a huge file is instant and nothing is copied onto the heap. One reader can be shared by
+ * any number of threads, e.g. each working through its own range of indexes.
+ */
+public final class PositionFileReader implements Closeable {
+
+    private static final int RECORD_SHIFT = Integer.numberOfTrailingZeros(BoardCodec.ENCODED_BYTES);
+
+    private final MappedFile file;
+    private final long size;
+
+    public PositionFileReader(final Path path) throws IOException {
+        this.file = new MappedFile(path, PositionFile.HEADER_BYTES, PositionFile.BYTE_ORDER);
+        try {
+            final ByteBuffer header = ByteBuffer.allocate(PositionFile.HEADER_BYTES).order(PositionFile.BYTE_ORDER);
+            if(!this.file.readHeader(header)){
+                throw new IOException("Not a position file " + path);
+            }
+            PositionFile.checkHeader(header, BoardCodec.ENCODED_BYTES, path);
+            this.size = this.file.size() >> RECORD_SHIFT;
+        } catch (final IOException | RuntimeException e) {
+            this.file.close();
+            throw e;
+        }
+    }
+
+    // the number of positions in the file
+    public long size(){
+        return this.size;
+    }
+
+    public Board getBoard(final long index){
+        checkIndex(index);
+        final long offset = offset(index);
+        return BoardCodec.decode(this.file.segment(offset), MappedFile.position(offset));
+    }
+
+    // decode the position into an existing SearchBoard, nothing is allocated
+    public void load(final long index, final SearchBoard board){
+        checkIndex(index);
+        final long offset = offset(index);
+        BoardCodec.decode(this.file.segment(offset), MappedFile.position(offset), board);
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.file.close();
+    }
+
+    private void checkIndex(final long index){
+        if(index < 0 || index >= this.size){
+            throw new IndexOutOfBoundsException("Position " + index + " of " + this.size);
+        }
+    }
+
+    private static long offset(final long index){
+        return index << RECORD_SHIFT;
+    }
+}
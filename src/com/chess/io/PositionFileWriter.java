@@ -0,0 +1,80 @@
+package com.chess.io;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.BoardCodec;
+import com.chess.engine.board.SearchBoard;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+ * Streams positions into a new position file (see PositionFile). Positions are encoded into a direct
+ * buffer that is written out whenever it is full, so memory use does not depend on the file size.
+ *
+ * Not thread safe, every writing thread needs a writer (and file) of its own.
+ */
+public final class PositionFileWriter implements Closeable {
+
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private long count;
+
+    public PositionFileWriter(final Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(PositionFile.BYTE_ORDER);
+        PositionFile.writeHeader(this.buffer, BoardCodec.ENCODED_BYTES);
+        this.count = 0;
+    }
+
+    public void write(final Board board) throws IOException {
+        ensureCapacity();
+        BoardCodec.encode(board, this.buffer, this.buffer.position());
+        advance();
+    }
+
+    public void write(final SearchBoard board) throws IOException {
+        ensureCapacity();
+        BoardCodec.encode(board, this.buffer, this.buffer.position());
+        advance();
+    }
+
+    // the number of positions written so far
+    public long getCount(){
+        return this.count;
+    }
+
+    public void flush() throws IOException {
+        this.buffer.flip();
+        while(this.buffer.hasRemaining()){
+            this.channel.write(this.buffer);
+        }
+        this.buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            this.channel.close();
+        }
+    }
+
+    private void ensureCapacity() throws IOException {
+        if(this.buffer.remaining() < BoardCodec.ENCODED_BYTES){
+            flush();
+        }
+    }
+
+    private void advance(){
+        this.buffer.position(this.buffer.position() + BoardCodec.ENCODED_BYTES);
+        this.count++;
+    }
+}
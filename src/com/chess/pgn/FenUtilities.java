@@ -0,0 +1,21 @@
+package com.chess.pgn;
+
+import com.chess.engine.board.Board;
+
+public class FenUtilities {
+
+    public static final String STANDARD_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private FenUtilities(){
+        throw new RuntimeException("Not Instantiable!");
+    }
+
+    // create a board from a FEN string like "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1"
+    public static Board createGameFromFEN(final String fenString){
+        return Board.fromFEN(fenString);
+    }
+
+    public static String createFENFromGame(final Board board){
+        return board.toFEN();
+    }
+}
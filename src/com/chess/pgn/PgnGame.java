@@ -0,0 +1,80 @@
+package com.chess.pgn;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * One game of a PGN file: its tag pairs, the packed moves as resolved on the engine's boards and the
+ * result. The moves start from the FEN tag when there is one, from the standard position otherwise.
+ */
+public final class PgnGame {
+
+    public static final String UNKNOWN_RESULT = "*";
+
+    private final Map<String, String> tags;
+    private int[] moves;
+    private int moveCount;
+    private String result;
+
+    PgnGame(){
+        this.tags = new LinkedHashMap<>();
+        this.moves = new int[128];
+        this.moveCount = 0;
+        this.result = UNKNOWN_RESULT;
+    }
+
+    void putTag(final String name, final String value){
+        this.tags.put(name, value);
+        if(name.equals("Result")){
+            this.result = value;
+        }
+    }
+
+    void addMove(final int move){
+        if(this.moveCount == this.moves.length){
+            this.moves = Arrays.copyOf(this.moves, this.moves.length * 2);
+        }
+        this.moves[this.moveCount++] = move;
+    }
+
+    void setResult(final String result){
+        this.result = result;
+    }
+
+    public Map<String, String> getTags(){
+        return Collections.unmodifiableMap(this.tags);
+    }
+
+    // the value of a tag, null if the game does not have it
+    public String getTag(final String name){
+        return this.tags.get(name);
+    }
+
+    // the FEN the moves start from
+    public String getStartFEN(){
+        final String fen = this.tags.get("FEN");
+        return fen != null ? fen : FenUtilities.STANDARD_FEN;
+    }
+
+    // the packed moves (see PackedMove) played so far
+    public int[] getMoves(){
+        return Arrays.copyOf(this.moves, this.moveCount);
+    }
+
+    public int getMoveCount(){
+        return this.moveCount;
+    }
+
+    // "1-0", "0-1", "1/2-1/2" or "*"
+    public String getResult(){
+        return this.result;
+    }
+
+    @Override
+    public String toString(){
+        return this.tags.getOrDefault("White", "?") + " - " + this.tags.getOrDefault("Black", "?") + " " +
+                this.result + " (" + this.moveCount + " plies)";
+    }
+}
@@ -0,0 +1,22 @@
+package com.chess.pgn;
+
+import com.chess.engine.board.SearchBoard;
+
+/*
+ * Receives the games of a PgnReader. All methods are called on the worker threads, for many games at
+ * once, so implementations have to be thread safe.
+ */
+public interface PgnGameHandler {
+
+    // every position of a game, after the move leading to it (the start position first); the board
+    // belongs to the worker and must be neither kept nor changed
+    default void onPosition(PgnGame game, SearchBoard board){
+    }
+
+    // the game has been replayed completely
+    void onGame(PgnGame game);
+
+    // the game could not be replayed, the reader goes on with the next one
+    default void onError(PgnGame game, Exception exception){
+    }
+}
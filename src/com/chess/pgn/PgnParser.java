@@ -0,0 +1,331 @@
+package com.chess.pgn;
+
+import com.chess.engine.board.MoveList;
+import com.chess.engine.board.PackedMove;
+import com.chess.engine.board.SearchBoard;
+import com.chess.engine.pieces.Piece;
+
+import java.nio.charset.StandardCharsets;
+
+/*
+ * Parses and replays the games of a block of PGN text, one instance per worker thread.
+ *
+ * The text is read straight from the bytes. Every SAN move is resolved by generating the legal moves
+ * of the position and picking the single one matching the piece, destination, disambiguation and
+ * promotion of the SAN, then played on the worker's SearchBoard.
+ */
+final class PgnParser {
+
+    private static final int PAWN = Piece.PieceType.PAWN.ordinal();
+    private static final int KING = Piece.PieceType.KING.ordinal();
+
+    private final PgnGameHandler handler;
+    private final SearchBoard board;
+    private final MoveList moves;
+
+    private byte[] text;
+    private int position;
+    private int end;
+    private boolean lineStart;
+
+    PgnParser(final PgnGameHandler handler){
+        this.handler = handler;
+        this.board = new SearchBoard(FenUtilities.STANDARD_FEN);
+        this.moves = new MoveList();
+    }
+
+    // replay all games in text[start, end), which holds whole games only; returns the number of games
+    int parseGames(final byte[] text, final int start, final int end){
+        this.text = text;
+        this.position = start;
+        this.end = end;
+        this.lineStart = true;
+        int games = 0;
+        while(skipWhitespace()){
+            parseGame();
+            games++;
+        }
+        this.text = null;
+        return games;
+    }
+
+    private void parseGame(){
+        final PgnGame game = new PgnGame();
+        while(this.position < this.end && this.lineStart && this.text[this.position] == '['){
+            parseTag(game);
+            skipWhitespace();
+        }
+        Exception error = null;
+        try {
+            final String fen = game.getTag("FEN");
+            this.board.setFEN(fen != null ? fen : FenUtilities.STANDARD_FEN);
+            this.handler.onPosition(game, this.board);
+        } catch (final IllegalArgumentException e) {
+            error = e;
+        }
+        // the movetext runs up to the next tag at the start of a line
+        while(skipWhitespace() && !(this.lineStart && this.text[this.position] == '[')){
+            final byte c = this.text[this.position];
+            this.lineStart = false;
+            if(c == '{'){
+                skipPast('}');
+            }else if(c == ';' || c == '%'){
+                skipPast('\n');
+                this.lineStart = true;
+            }else if(c == '('){
+                skipVariation();
+            }else if(c == ')'){
+                this.position++;
+            }else if(c == '$'){
+                this.position++;
+                skipToken();
+            }else{
+                final int tokenStart = this.position;
+                skipToken();
+                if(error == null){
+                    try {
+                        parseToken(game, tokenStart, this.position);
+                    } catch (final IllegalArgumentException | IllegalStateException e) {
+                        error = e;
+                    }
+                }
+            }
+        }
+        if(error == null){
+            this.handler.onGame(game);
+        }else{
+            this.handler.onError(game, error);
+        }
+    }
+
+    // [Name "Value"]
+    private void parseTag(final PgnGame game){
+        this.position++;
+        final int nameStart = this.position;
+        while(this.position < this.end && this.text[this.position] > ' ' && this.text[this.position] != '"'){
+            this.position++;
+        }
+        final String name = new String(this.text, nameStart, this.position - nameStart, StandardCharsets.US_ASCII);
+        while(this.position < this.end && this.text[this.position] != '"' && this.text[this.position] != '\n'){
+            this.position++;
+        }
+        String value = "";
+        if(this.position < this.end && this.text[this.position] == '"'){
+            final int valueStart = ++this.position;
+            boolean escaped = false;
+            while(this.position < this.end && this.text[this.position] != '\n' &&
+                    (this.text[this.position] != '"' || this.text[this.position - 1] == '\\')){
+                escaped |= this.text[this.position] == '\\';
+                this.position++;
+            }
+            value = new String(this.text, valueStart, this.position - valueStart, StandardCharsets.UTF_8);
+            if(escaped){
+                value = value.replace("\\\"", "\"").replace("\\\\", "\\");
+            }
+        }
+        skipPast('\n');
+        this.lineStart = true;
+        game.putTag(name, value);
+    }
+
+    private void parseToken(final PgnGame game, int start, final int end){
+        final byte first = this.text[start];
+        if(isResult(start, end)){
+            game.setResult(new String(this.text, start, end - start, StandardCharsets.US_ASCII));
+            return;
+        }
+        if(first >= '1' && first <= '9' || first == '.'){
+            // a move number, possibly glued to the move as in "12.Nf3"
+            while(start < end && (isDigit(this.text[start]) || this.text[start] == '.')){
+                start++;
+            }
+            if(start == end){
+                return;
+            }
+        }
+        final int move = resolveSan(start, end);
+        if(this.board.getHistorySize() >= SearchBoard.MAX_HISTORY - 1){
+            throw new IllegalStateException("Game longer than " + SearchBoard.MAX_HISTORY + " plies");
+        }
+        game.addMove(move);
+        this.board.makeMove(move);
+        this.handler.onPosition(game, this.board);
+    }
+
+    // the legal move of the board the SAN in text[start, end) stands for
+    private int resolveSan(final int start, int end){
+        // annotations and check marks carry no information for finding the move
+        while(end > start && (this.text[end - 1] == '+' || this.text[end - 1] == '#' ||
+                this.text[end - 1] == '!' || this.text[end - 1] == '?')){
+            end--;
+        }
+        this.moves.clear();
+        this.board.generateMoves(this.moves);
+
+        final byte first = this.text[start];
+        if(first == 'O' || first == '0'){
+            final int flag = end - start >= 5 ? PackedMove.QUEEN_SIDE_CASTLE : PackedMove.KING_SIDE_CASTLE;
+            for(int i = 0; i < this.moves.size(); i++){
+                if(PackedMove.getFlag(this.moves.get(i)) == flag){
+                    return this.moves.get(i);
+                }
+            }
+            throw illegal(start, end);
+        }
+
+        int promotion = PackedMove.NO_PIECE;
+        if(end - start > 2 && pieceType(this.text[end - 1]) > PAWN){
+            promotion = pieceType(this.text[end - 1]);
+            end--;
+            if(this.text[end - 1] == '='){
+                end--;
+            }
+        }
+        if(end - start < 2){
+            throw illegal(start, end);
+        }
+        final int fileTo = this.text[end - 2] - 'a';
+        final int rankTo = this.text[end - 1] - '1';
+        if(fileTo < 0 || fileTo > 7 || rankTo < 0 || rankTo > 7){
+            throw illegal(start, end);
+        }
+        final int to = (7 - rankTo) * 8 + fileTo;
+
+        int i = start;
+        int piece = PAWN;
+        if(pieceType(first) >= 0){
+            piece = pieceType(first);
+            i++;
+        }
+        int fromFile = -1;
+        int fromRank = -1;
+        for(; i < end - 2; i++){
+            final byte c = this.text[i];
+            if(c >= 'a' && c <= 'h'){
+                fromFile = c - 'a';
+            }else if(c >= '1' && c <= '8'){
+                fromRank = c - '1';
+            }else if(c != 'x' && c != ':' && c != '-'){
+                throw illegal(start, end);
+            }
+        }
+
+        int found = PackedMove.NULL_MOVE;
+        for(int m = 0; m < this.moves.size(); m++){
+            final int move = this.moves.get(m);
+            final int from = PackedMove.getFrom(move);
+            if(PackedMove.getTo(move) == to &&
+                    PackedMove.getPiece(move) == piece &&
+                    PackedMove.getPromotion(move) == promotion &&
+                    (fromFile < 0 || from % 8 == fromFile) &&
+                    (fromRank < 0 || 7 - from / 8 == fromRank) &&
+                    PackedMove.getFlag(move) != PackedMove.KING_SIDE_CASTLE &&
+                    PackedMove.getFlag(move) != PackedMove.QUEEN_SIDE_CASTLE){
+                if(found != PackedMove.NULL_MOVE){
+                    throw new IllegalArgumentException("Ambiguous move " + text(start, end) + " in " + this.board.toFEN());
+                }
+                found = move;
+            }
+        }
+        if(found == PackedMove.NULL_MOVE){
+            throw illegal(start, end);
+        }
+        return found;
+    }
+
+    private IllegalArgumentException illegal(final int start, final int end){
+        return new IllegalArgumentException("Illegal move " + text(start, end) + " in " + this.board.toFEN());
+    }
+
+    private String text(final int start, final int end){
+        return new String(this.text, start, end - start, StandardCharsets.US_ASCII);
+    }
+
+    // the piece type ordinal of a SAN piece letter, -1 for anything else
+    private static int pieceType(final byte c){
+        switch(c){
+            case 'P':
+                return PAWN;
+            case 'N':
+                return Piece.PieceType.KNIGHT.ordinal();
+            case 'B':
+                return Piece.PieceType.BISHOP.ordinal();
+            case 'R':
+                return Piece.PieceType.ROOK.ordinal();
+            case 'Q':
+                return Piece.PieceType.QUEEN.ordinal();
+            case 'K':
+                return KING;
+            default:
+                return -1;
+        }
+    }
+
+    private boolean isResult(final int start, final int end){
+        final int length = end - start;
+        return (length == 1 && this.text[start] == '*') ||
+                (length == 3 && (matches(start, "1-0") || matches(start, "0-1"))) ||
+                (length == 7 && matches(start, "1/2-1/2"));
+    }
+
+    private boolean matches(final int start, final String expected){
+        for(int i = 0; i < expected.length(); i++){
+            if(this.text[start + i] != expected.charAt(i)){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDigit(final byte c){
+        return c >= '0' && c <= '9';
+    }
+
+    // skips spaces and line breaks, remembering whether the next character starts a line; false at the end
+    private boolean skipWhitespace(){
+        while(this.position < this.end){
+            final byte c = this.text[this.position];
+            if(c == '\n'){
+                this.lineStart = true;
+            }else if(c != ' ' && c != '\t' && c != '\r'){
+                return true;
+            }
+            this.position++;
+        }
+        return false;
+    }
+
+    private void skipToken(){
+        while(this.position < this.end){
+            final byte c = this.text[this.position];
+            if(c <= ' ' || c == '{' || c == '}' || c == '(' || c == ')' || c == ';' || c == '$'){
+                return;
+            }
+            this.position++;
+        }
+    }
+
+    private void skipPast(final char c){
+        while(this.position < this.end && this.text[this.position] != c){
+            this.position++;
+        }
+        this.position = Math.min(this.position + 1, this.end);
+    }
+
+    // a variation with everything nested in it, comments may contain parentheses
+    private void skipVariation(){
+        int depth = 0;
+        while(this.position < this.end){
+            final byte c = this.text[this.position++];
+            if(c == '('){
+                depth++;
+            }else if(c == ')'){
+                if(--depth == 0){
+                    return;
+                }
+            }else if(c == '{'){
+                skipPast('}');
+            }
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.chess.pgn;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Reads PGN archives of any size and replays every game on a pool of worker threads.
+ *
+ * The channel is read in chunks. Each chunk is scanned once for game boundaries (a tag at the start
+ * of a line after movetext, outside of a comment) and everything up to the last boundary is handed to
+ * the workers as one block of whole games, the rest is carried over to the next chunk. The work queue
+ * is bounded and when it is full the reading thread parses the next block itself, so reading never
+ * gets ahead of the workers by more than a few chunks and memory use stays bounded whatever the
+ * size of the input. Only a single game larger than a chunk makes the chunk grow.
+ *
+ * Games are handed to the PgnGameHandler on the worker threads, not in file order.
+ */
+public final class PgnReader {
+
+    public static final int DEFAULT_CHUNK_BYTES = 1 << 20;
+
+    private final PgnGameHandler handler;
+    private final int threads;
+    private final int chunkBytes;
+
+    public PgnReader(final PgnGameHandler handler, final int threads, final int chunkBytes){
+        if(threads < 1){
+            throw new IllegalArgumentException("Thread count must be at least 1, got " + threads);
+        }
+        this.handler = handler;
+        this.threads = threads;
+        this.chunkBytes = Math.max(chunkBytes, 1 << 10);
+    }
+
+    public PgnReader(final PgnGameHandler handler, final int threads){
+        this(handler, threads, DEFAULT_CHUNK_BYTES);
+    }
+
+    public PgnReader(final PgnGameHandler handler){
+        this(handler, Runtime.getRuntime().availableProcessors());
+    }
+
+    public long read(final Path path) throws IOException {
+        try(final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)){
+            return read(channel);
+        }
+    }
+
+    // read and replay every game, returns once all of them are handled with the number of games read
+    public long read(final ReadableByteChannel channel) throws IOException {
+        final LongAdder games = new LongAdder();
+        final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        final ThreadLocal<PgnParser> parsers = ThreadLocal.withInitial(() -> new PgnParser(this.handler));
+        final ThreadPoolExecutor workers = new ThreadPoolExecutor(this.threads, this.threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(2 * this.threads), runnable -> {
+                    final Thread thread = new Thread(runnable, "pgn-worker");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        try {
+            final BoundaryScanner scanner = new BoundaryScanner();
+            byte[] chunk = new byte[this.chunkBytes];
+            int filled = 0;
+            while(true){
+                final int read = channel.read(ByteBuffer.wrap(chunk, filled, chunk.length - filled));
+                if(read < 0){
+                    break;
+                }
+                filled += read;
+                scanner.scan(chunk, filled);
+                if(filled < chunk.length){
+                    continue;
+                }
+                final int boundary = scanner.lastBoundary;
+                if(boundary == 0){
+                    // a single game fills the whole chunk
+                    chunk = Arrays.copyOf(chunk, chunk.length * 2);
+                    continue;
+                }
+                submit(workers, Arrays.copyOf(chunk, boundary), parsers, games, failure);
+                System.arraycopy(chunk, boundary, chunk, 0, filled - boundary);
+                filled -= boundary;
+                scanner.shift(boundary);
+                if(chunk.length > this.chunkBytes && filled < this.chunkBytes / 2){
+                    chunk = Arrays.copyOf(chunk, this.chunkBytes);
+                }
+            }
+            if(filled > 0){
+                submit(workers, Arrays.copyOf(chunk, filled), parsers, games, failure);
+            }
+        } finally {
+            workers.shutdown();
+            awaitTermination(workers);
+        }
+        if(failure.get() != null){
+            throw failure.get();
+        }
+        return games.sum();
+    }
+
+    private static void submit(final ThreadPoolExecutor workers,
+                               final byte[] block,
+                               final ThreadLocal<PgnParser> parsers,
+                               final LongAdder games,
+                               final AtomicReference<RuntimeException> failure){
+        workers.execute(() -> {
+            if(failure.get() != null){
+                return;
+            }
+            try {
+                games.add(parsers.get().parseGames(block, 0, block.length));
+            } catch (final RuntimeException e) {
+                failure.compareAndSet(null, e);
+            }
+        });
+    }
+
+    private static void awaitTermination(final ThreadPoolExecutor workers) throws InterruptedIOException {
+        try {
+            while(!workers.awaitTermination(1, TimeUnit.SECONDS)){
+                // keep waiting for the queued blocks
+            }
+        } catch (final InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while replaying PGN games");
+        }
+    }
+
+    /*
+     * Finds the offsets where games start. The state carries over from one read to the next, so every
+     * byte is looked at exactly once however the input is split into reads.
+     */
+    private static final class BoundaryScanner {
+
+        private int scanned;
+        private int lastBoundary;
+        private boolean lineStart = true;
+        private boolean inMovetext;
+        private boolean inComment;
+
+        void scan(final byte[] bytes, final int filled){
+            for(; this.scanned < filled; this.scanned++){
+                final byte c = bytes[this.scanned];
+                if(c == '\n'){
+                    this.lineStart = true;
+                }else if(this.inComment){
+                    this.inComment = c != '}';
+                    this.lineStart &= c == ' ' || c == '\t' || c == '\r';
+                }else if(c != ' ' && c != '\t' && c != '\r'){
+                    if(this.lineStart){
+                        this.lineStart = false;
+                        if(c == '['){
+                            if(this.inMovetext){
+                                this.lastBoundary = this.scanned;
+                                this.inMovetext = false;
+                            }
+                            continue;
+                        }
+                        this.inMovetext |= c != '%';
+                    }
+                    this.inComment = this.inMovetext && c == '{';
+                }
+            }
+        }
+
+        // the bytes before the offset have been handed out
+        void shift(final int offset){
+            this.scanned -= offset;
+            this.lastBoundary = 0;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.chess.engine.board;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FenTest {
+
+    private static final String[] VALID = {
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+            "4k3/8/8/8/8/8/8/4K3 b - - 65535 2147483647"
+    };
+
+    private static final String[] INVALID = {
+            // kings
+            "8/8/8/8/8/8/8/K7 w - - 0 1",
+            "k7/8/8/8/8/8/8/8 w - - 0 1",
+            "kk6/8/8/8/8/8/8/K7 w - - 0 1",
+            "k7/8/8/8/8/8/8/KK6 w - - 0 1",
+            // ranks
+            "k7/8/8/8/8/8/8/K8 w - - 0 1",
+            "k8/8/8/8/8/8/8/K7 w - - 0 1",
+            "k7/45/8/8/8/8/8/K7 w - - 0 1",
+            "k7/8p/8/8/8/8/8/K7 w - - 0 1",
+            "k6/8/8/8/8/8/8/K7 w - - 0 1",
+            "k7/8/8/8/8/8/8/K7/8 w - - 0 1",
+            "k7/8/8/8/8/8/8 w - - 0 1",
+            // the other fields
+            "k7/8/8/8/8/8/8/K7 x - - 0 1",
+            "k7/8/8/8/8/8/8/K7 w X - 0 1",
+            "k7/8/8/8/8/8/8/K7 w - e4 0 1",
+            "k7/8/8/8/8/8/8/K7 w - - 65536 1",
+            "k7/8/8/8/8/8/8/K7 w - - 99999999999 1",
+            "k7/8/8/8/8/8/8/K7 w - - 0 2147483648",
+            "k7/8/8/8/8/8/8/K7 w - - 0 99999999999",
+            "k7/8/8/8/8/8/8/K7 w - - 0 0"
+    };
+
+    // castling rights and en passant tiles the pieces contradict, and what is left of them
+    private static final String[][] CONTRADICTED = {
+            {"4k3/8/8/8/8/8/8/4K3 w K - 0 1", "4k3/8/8/8/8/8/8/4K3 w - - 0 1"},
+            {"r3k3/8/8/8/8/8/8/R3K1R1 w KQkq - 0 1", "r3k3/8/8/8/8/8/8/R3K1R1 w Qq - 0 1"},
+            {"4k3/8/8/8/8/8/3P4/4K3 w - e3 0 1", "4k3/8/8/8/8/8/3P4/4K3 w - - 0 1"},
+            {"4k3/8/8/8/4P3/8/8/4K3 w - e3 0 1", "4k3/8/8/8/4P3/8/8/4K3 w - - 0 1"},
+            {"4k3/8/8/3pP3/8/8/8/4K3 w - d3 0 1", "4k3/8/8/3pP3/8/8/8/4K3 w - - 0 1"},
+            {"4k3/8/8/3pP3/8/8/8/4K3 w - c6 0 1", "4k3/8/8/3pP3/8/8/8/4K3 w - - 0 1"}
+    };
+
+    @Test
+    void validFensRoundTrip(){
+        for(final String fen : VALID){
+            assertEquals(fen, new SearchBoard(fen).toFEN());
+            assertEquals(fen, Board.fromFEN(fen).toFEN());
+            final SearchBoard board = new SearchBoard(VALID[0]);
+            final byte[] bytes = fen.getBytes(StandardCharsets.US_ASCII);
+            board.setFEN(bytes, 0, bytes.length);
+            assertEquals(fen, board.toFEN());
+        }
+    }
+
+    @Test
+    void clocksMayBeLeftOut(){
+        assertEquals("4k3/8/8/8/8/8/8/4K3 w - - 0 1", new SearchBoard("4k3/8/8/8/8/8/8/4K3 w - -").toFEN());
+    }
+
+    @Test
+    void invalidFensAreRejected(){
+        for(final String fen : INVALID){
+            assertThrows(IllegalArgumentException.class, () -> new SearchBoard(VALID[0]).setFEN(fen), fen);
+            assertThrows(IllegalArgumentException.class, () -> Board.fromFEN(fen), fen);
+        }
+    }
+
+    @Test
+    void contradictedStateIsDropped(){
+        for(final String[] fens : CONTRADICTED){
+            assertEquals(fens[1], new SearchBoard(fens[0]).toFEN(), fens[0]);
+            assertEquals(fens[1], Board.fromFEN(fens[0]).toFEN(), fens[0]);
+            // a position file written by other code can hold every right and any en passant tile, e3 here
+            final SearchBoard unchecked = new SearchBoard(fens[1]);
+            unchecked.setPosition(unchecked.getSideToMove(), BoardUtils.ALL_CASTLING_RIGHTS, 44, 0, 1);
+            final ByteBuffer buffer = ByteBuffer.allocate(BoardCodec.ENCODED_BYTES);
+            BoardCodec.encode(unchecked, buffer, 0);
+            assertEquals(fens[1], BoardCodec.decode(buffer, 0).toFEN(), fens[0]);
+        }
+    }
+
+    @Test
+    void castlingNeedsTheRook(){
+        final long[] bitboards = new SearchBoard("4k3/8/8/8/8/8/8/4K3 w - - 0 1").getBitboards().clone();
+        final Board board = Board.createBuilder(bitboards).setCastlingRights(BoardUtils.ALL_CASTLING_RIGHTS).build();
+        final MoveList moves = new MoveList();
+        MoveGenerator.generateMoves(board, board.getMoveMaker(), moves);
+        assertEquals(5, moves.size());
+    }
+}
@@ -0,0 +1,29 @@
+package com.chess.engine.board;
+
+import com.chess.engine.player.ai.AlphaBetaSearch;
+import org.junit.jupiter.api.Test;
+
+import static com.chess.engine.board.BitBoards.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SearchBoardTest {
+
+    private static final int WHITE_KING = 5;
+    private static final int BLACK_KING = NUM_PIECE_TYPES + 5;
+
+    // a Board built without the FEN checks, as Board.Builder can
+    private static Board boardWithout(final int piece){
+        final long[] bitboards = new SearchBoard("4k3/8/8/8/8/8/4P3/4K3 w - - 0 1").getBitboards().clone();
+        bitboards[WHITE_PIECES + piece / NUM_PIECE_TYPES] &= ~bitboards[piece];
+        bitboards[ALL_PIECES] &= ~bitboards[piece];
+        bitboards[piece] = 0L;
+        return Board.createBuilder(bitboards).build();
+    }
+
+    @Test
+    void boardsWithoutBothKingsAreRejected(){
+        assertThrows(IllegalArgumentException.class, () -> new SearchBoard(boardWithout(WHITE_KING)));
+        assertThrows(IllegalArgumentException.class, () -> new SearchBoard(boardWithout(BLACK_KING)));
+        assertThrows(IllegalArgumentException.class, () -> new AlphaBetaSearch().execute(boardWithout(BLACK_KING)));
+    }
+}
@@ -0,0 +1,88 @@
+package com.chess.engine.board;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/*
+ * The keys a SearchBoard updates move by move must always be the keys computed from scratch, also after
+ * taking moves back: castling, en passant, promotions and captures all touch them.
+ */
+class ZobristTest {
+
+    private static final String[] POSITIONS = {
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+            "8/8/1k6/2b5/2pP4/8/5K2/8 b - d3 0 1"
+    };
+
+    @Test
+    void incrementalKeysMatchKeysFromScratch(){
+        final Random random = new Random(42);
+        final MoveList moves = new MoveList();
+        for(final String fen : POSITIONS){
+            final SearchBoard board = new SearchBoard(fen);
+            final long startKey = board.getZobristKey();
+            final long startPawnKey = board.getPawnKey();
+            for(int game = 0; game < 50; game++){
+                int played = 0;
+                for(; played < 60; played++){
+                    moves.clear();
+                    board.generateMoves(moves);
+                    if(moves.isEmpty()){
+                        break;
+                    }
+                    board.makeMove(moves.get(random.nextInt(moves.size())));
+                    assertKeys(board);
+                }
+                for(; played > 0; played--){
+                    board.unmakeMove();
+                    assertKeys(board);
+                }
+                assertEquals(startKey, board.getZobristKey(), fen);
+                assertEquals(startPawnKey, board.getPawnKey(), fen);
+            }
+        }
+    }
+
+    @Test
+    void sameKeyAfterTransposition(){
+        final SearchBoard knightsFirst = new SearchBoard("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1");
+        final SearchBoard pawnsFirst = knightsFirst.copy();
+        play(knightsFirst, "g1f3", "g8f6", "e2e4", "e7e5");
+        play(pawnsFirst, "e2e4", "e7e5", "g1f3", "g8f6");
+        assertEquals(pawnsFirst.getZobristKey(), knightsFirst.getZobristKey());
+        assertEquals(new SearchBoard(knightsFirst.toFEN()).getZobristKey(), knightsFirst.getZobristKey());
+    }
+
+    private static void assertKeys(final SearchBoard board){
+        final long[] bitboards = new long[BitBoards.ALL_PIECES + 1];
+        for(int i = 0; i < bitboards.length; i++){
+            bitboards[i] = board.getBitboard(i);
+        }
+        assertEquals(Zobrist.computeKey(bitboards, board.getSideToMove(), board.getCastlingRights(),
+                board.getEnPassantSquare()), board.getZobristKey(), board.toFEN());
+        assertEquals(Zobrist.computePawnKey(bitboards), board.getPawnKey(), board.toFEN());
+    }
+
+    static void play(final SearchBoard board, final String... moves){
+        final MoveList legalMoves = new MoveList();
+        for(final String text : moves){
+            legalMoves.clear();
+            board.generateMoves(legalMoves);
+            int move = PackedMove.NULL_MOVE;
+            for(int i = 0; i < legalMoves.size(); i++){
+                if(PackedMove.toString(legalMoves.get(i)).equals(text)){
+                    move = legalMoves.get(i);
+                }
+            }
+            if(move == PackedMove.NULL_MOVE){
+                throw new IllegalArgumentException(text + " is not legal in " + board.toFEN());
+            }
+            board.makeMove(move);
+        }
+    }
+}
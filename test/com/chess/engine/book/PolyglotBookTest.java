@@ -0,0 +1,53 @@
+package com.chess.engine.book;
+
+import com.chess.engine.board.PackedMove;
+import com.chess.engine.board.SearchBoard;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PolyglotBookTest {
+
+    private static final SearchBoard START = new SearchBoard("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1");
+
+    // Polyglot move encoding, squares count a1 = 0 ... h8 = 63
+    private static int bookMove(final int from, final int to){
+        return (from << 6) | to;
+    }
+
+    private static Path writeBook(final Path directory, final int[][] entries) throws IOException {
+        final long key = PolyglotKey.compute(START);
+        final ByteBuffer buffer = ByteBuffer.allocate(entries.length * 16);
+        for(final int[] entry : entries){
+            buffer.putLong(key).putShort((short) entry[0]).putShort((short) entry[1]).putInt(0);
+        }
+        return Files.write(directory.resolve("book.bin"), buffer.array());
+    }
+
+    @Test
+    void illegalEntriesAreNeverPicked(@TempDir final Path directory) throws IOException {
+        // e1e5 is illegal and outweighs e2e4 by far
+        final Path path = writeBook(directory, new int[][] {{bookMove(4, 36), 60000}, {bookMove(12, 28), 1}});
+        try(final PolyglotBook book = new PolyglotBook(path)){
+            assertEquals(2, book.countMoves(START));
+            assertEquals("e2e4", PackedMove.toString(book.getBestMove(START)));
+            for(int i = 0; i < 100; i++){
+                assertEquals("e2e4", PackedMove.toString(book.getWeightedMove(START)));
+            }
+        }
+    }
+
+    @Test
+    void onlyIllegalEntries(@TempDir final Path directory) throws IOException {
+        final Path path = writeBook(directory, new int[][] {{bookMove(4, 36), 10}});
+        try(final PolyglotBook book = new PolyglotBook(path)){
+            assertEquals(PackedMove.NULL_MOVE, book.getWeightedMove(START));
+        }
+    }
+}
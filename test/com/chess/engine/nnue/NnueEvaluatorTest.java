@@ -0,0 +1,58 @@
+package com.chess.engine.nnue;
+
+import com.chess.engine.board.MoveList;
+import com.chess.engine.board.SearchBoard;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NnueEvaluatorTest {
+
+    private static final Network NETWORK = Network.random(32, 8, 7);
+
+    // castling, en passant, promotions and king moves across buckets all come up on these walks
+    private static final String[] STARTS = {
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3",
+            "r3k2r/pppppppp/8/8/8/8/PPPPPPPP/R3K2R w KQkq - 0 1",
+            "8/2P3k1/8/8/8/8/1p3K2/8 w - - 0 1"
+    };
+
+    /*
+     * A random walk of moves and take backs, evaluated at some of the positions only: the accumulators
+     * then come from several moves back, from positions refilled after a take back, or from scratch.
+     * Each must give what a fresh evaluator computes from the pieces alone.
+     */
+    @Test
+    void incrementalUpdatesMatchARefresh(){
+        final Random random = new Random(1);
+        final Set<Integer> scores = new HashSet<>();
+        for(final String fen : STARTS){
+            final NnueEvaluator evaluator = new NnueEvaluator(NETWORK);
+            final SearchBoard board = new SearchBoard(fen);
+            final MoveList moves = new MoveList();
+            for(int step = 0; step < 2000; step++){
+                moves.clear();
+                board.generateMoves(moves);
+                if(board.getHistorySize() > 0 && (moves.size() == 0 || random.nextInt(3) == 0)){
+                    board.unmakeMove();
+                }else if(moves.size() > 0){
+                    board.makeMove(moves.get(random.nextInt(moves.size())));
+                }
+                if(random.nextBoolean()){
+                    final int score = evaluator.evaluate(board);
+                    assertEquals(new NnueEvaluator(NETWORK).evaluate(board.copy()), score, board.toFEN());
+                    scores.add(score);
+                }
+            }
+        }
+        // the network tells the positions apart, so equal scores are no accident
+        assertTrue(scores.size() > 100, scores.toString());
+    }
+}
@@ -0,0 +1,27 @@
+package com.chess.engine.perft;
+
+import com.chess.engine.board.SearchBoard;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// the node counts of the perft reference positions, at depths that run in a few seconds
+class PerftTest {
+
+    private static final Object[][] POSITIONS = {
+            {"rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1", 4, 197281L},
+            {"r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", 4, 4085603L},
+            {"8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", 5, 674624L},
+            {"r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1", 3, 9467L},
+            {"rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8", 3, 62379L},
+            {"8/8/1k6/2b5/2pP4/8/5K2/8 b - d3 0 1", 4, 13931L}
+    };
+
+    @Test
+    void referenceNodeCounts(){
+        for(final Object[] position : POSITIONS){
+            final String fen = (String) position[0];
+            assertEquals((long) position[2], Perft.perft(new SearchBoard(fen), (int) position[1]), fen);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.tablebase.Tablebases;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// table wins found deep in the tree must still be mate scores
+class MateScoreTest {
+
+    private static final int PLY = AlphaBetaSearch.MAX_PLY - 1;
+
+    @Test
+    void longestTableWinIsAMate(){
+        // codes are one more than the distance, wins have an odd distance (251) and losses an even one (252)
+        final int win = SearchWorker.tablebaseScore(Tablebases.MAX_DISTANCE, PLY);
+        final int loss = SearchWorker.tablebaseScore(Tablebases.MAX_DISTANCE + 1, PLY);
+        assertTrue(win >= AlphaBetaSearch.MATE_BOUND);
+        assertTrue(loss <= -AlphaBetaSearch.MATE_BOUND);
+        assertEquals(189, new SearchResult(0, win, 1, new int[0], 0, 0).getMateIn());
+        assertEquals(-190, new SearchResult(0, loss, 1, new int[0], 0, 0).getMateIn());
+    }
+
+    @Test
+    void tableWinsKeepTheirDistanceThroughTheTable(){
+        final int score = SearchWorker.tablebaseScore(Tablebases.MAX_DISTANCE, PLY);
+        final int stored = SearchWorker.scoreToTable(score, PLY);
+        assertEquals(score + 2, SearchWorker.scoreFromTable(stored, PLY - 2));
+    }
+}
@@ -0,0 +1,65 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.board.MoveList;
+import com.chess.engine.board.PackedMove;
+import com.chess.engine.board.SearchBoard;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StaticExchangeTest {
+
+    private static final int PAWN = 100;
+    private static final int KNIGHT = 300;
+    private static final int BISHOP = 330;
+    private static final int ROOK = 500;
+    private static final int QUEEN = 900;
+
+    @Test
+    void undefendedPieceIsWonOutright(){
+        assertEquals(ROOK, see("4k3/8/8/3r4/8/8/8/3QK3 w - - 0 1", "d1d5"));
+    }
+
+    @Test
+    void defendedPawnTakenByRook(){
+        assertEquals(PAWN, see("1k1r4/1pp4p/p7/4p3/8/P5P1/1PP4P/2K1R3 w - - 0 1", "e1e5"));
+    }
+
+    @Test
+    void knightForPawnLosesTheDifference(){
+        assertEquals(PAWN - KNIGHT, see("1k1r3q/1ppn3p/p4b2/4p3/8/P2N2P1/1PP1R1BP/2K1Q3 w - - 0 1", "d3e5"));
+    }
+
+    @Test
+    void queenTakingDefendedPawn(){
+        assertEquals(PAWN - QUEEN, see("4k3/8/2p5/3p4/8/8/8/3QK3 w - - 0 1", "d1d5"));
+    }
+
+    @Test
+    void xrayRookBehindRookWinsTheExchange(){
+        // the second white rook joins once the first has captured
+        assertEquals(ROOK, see("3rk3/8/8/3r4/8/8/3R4/3RK3 w - - 0 1", "d2d5"));
+    }
+
+    @Test
+    void quietMoveOntoAttackedTile(){
+        assertEquals(-BISHOP, see("4k3/8/8/1p6/8/8/8/4KB2 w - - 0 1", "f1c4"));
+    }
+
+    @Test
+    void enPassantWinsAPawn(){
+        assertEquals(PAWN, see("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1", "e5d6"));
+    }
+
+    private static int see(final String fen, final String text){
+        final SearchBoard board = new SearchBoard(fen);
+        final MoveList moves = new MoveList();
+        board.generateMoves(moves);
+        for(int i = 0; i < moves.size(); i++){
+            if(PackedMove.toString(moves.get(i)).equals(text)){
+                return StaticExchange.evaluate(board, moves.get(i), new int[StaticExchange.MAX_EXCHANGE]);
+            }
+        }
+        throw new IllegalArgumentException(text + " is not legal in " + fen);
+    }
+}
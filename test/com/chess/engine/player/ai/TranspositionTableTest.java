@@ -0,0 +1,75 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.board.PackedMove;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TranspositionTableTest {
+
+    private static final int MOVE = PackedMove.create(52, 36, 0, PackedMove.NO_PIECE, PackedMove.DOUBLE_PAWN_PUSH);
+
+    @Test
+    void storedEntryIsFoundWithAllFields(){
+        final TranspositionTable table = new TranspositionTable(1);
+        final long key = 0x123456789ABCDEFL;
+        table.store(key, MOVE, -31500, 17, TranspositionTable.BOUND_LOWER);
+        final long data = table.probe(key);
+        assertEquals(MOVE, TranspositionTable.getMove(data));
+        assertEquals(-31500, TranspositionTable.getScore(data));
+        assertEquals(17, TranspositionTable.getDepth(data));
+        assertEquals(TranspositionTable.BOUND_LOWER, TranspositionTable.getBound(data));
+    }
+
+    @Test
+    void otherKeyOfTheSameBucketIsAMiss(){
+        final TranspositionTable table = new TranspositionTable(1);
+        final long key = 0x42L;
+        table.store(key, MOVE, 10, 5, TranspositionTable.BOUND_EXACT);
+        // same low bits, so the same bucket, but the verification of the full key fails
+        assertEquals(TranspositionTable.MISS, table.probe(key ^ (1L << 63)));
+        assertEquals(TranspositionTable.MISS, new TranspositionTable(1).probe(key));
+    }
+
+    @Test
+    void newResultOfTheSamePositionKeepsTheMove(){
+        final TranspositionTable table = new TranspositionTable(1);
+        final long key = 0x77L;
+        table.store(key, MOVE, 10, 5, TranspositionTable.BOUND_EXACT);
+        table.store(key, PackedMove.NULL_MOVE, -20, 6, TranspositionTable.BOUND_UPPER);
+        final long data = table.probe(key);
+        assertEquals(MOVE, TranspositionTable.getMove(data));
+        assertEquals(-20, TranspositionTable.getScore(data));
+        assertEquals(TranspositionTable.BOUND_UPPER, TranspositionTable.getBound(data));
+    }
+
+    @Test
+    void shallowerBoundDoesNotReplaceDeeperResult(){
+        final TranspositionTable table = new TranspositionTable(1);
+        final long key = 0x99L;
+        table.store(key, MOVE, 10, 8, TranspositionTable.BOUND_LOWER);
+        table.store(key, MOVE, 50, 3, TranspositionTable.BOUND_LOWER);
+        assertEquals(8, TranspositionTable.getDepth(table.probe(key)));
+    }
+
+    @Test
+    void fullBucketReplacesTheShallowestEntry(){
+        final TranspositionTable table = new TranspositionTable(1);
+        // five keys of one bucket, four entries fit
+        for(int i = 0; i < 5; i++){
+            table.store(0x5L | ((long) (i + 1) << 40), MOVE, i, 10 - i, TranspositionTable.BOUND_EXACT);
+        }
+        assertEquals(TranspositionTable.MISS, table.probe(0x5L | (4L << 40)));
+        for(final int i : new int[]{0, 1, 2, 4}){
+            assertEquals(i, TranspositionTable.getScore(table.probe(0x5L | ((long) (i + 1) << 40))));
+        }
+    }
+
+    @Test
+    void clearRemovesEverything(){
+        final TranspositionTable table = new TranspositionTable(1);
+        table.store(0x1234L, MOVE, 1, 1, TranspositionTable.BOUND_EXACT);
+        table.clear();
+        assertEquals(TranspositionTable.MISS, table.probe(0x1234L));
+    }
+}
@@ -0,0 +1,61 @@
+package com.chess.engine.tablebase;
+
+import com.chess.engine.board.SearchBoard;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// the longest mates are the known values for these endings
+class TablebaseGeneratorTest {
+
+    @TempDir
+    static Path directory;
+
+    private static Tablebases tablebases;
+
+    @BeforeAll
+    static void generate() throws IOException {
+        final TablebaseGenerator generator = new TablebaseGenerator(directory, 2);
+        assertEquals(20, generator.generate("KQK").getMaxDistance());
+        assertEquals(32, generator.generate("KRK").getMaxDistance());
+        assertEquals(56, generator.generate("KPK").getMaxDistance());
+        tablebases = new Tablebases(directory);
+    }
+
+    private static int probe(final String fen){
+        return tablebases.probe(new SearchBoard(fen));
+    }
+
+    @Test
+    void tablesAreLoadedFromTheDirectory(){
+        assertTrue(tablebases.size() >= 3);
+        assertEquals(3, tablebases.getMaxPieces());
+    }
+
+    @Test
+    void mateInOne(){
+        final int code = probe("k7/8/1K6/8/8/8/7Q/8 w - - 0 1");
+        assertTrue(Tablebases.isWin(code));
+        assertEquals(1, Tablebases.getDistance(code));
+    }
+
+    @Test
+    void mated(){
+        final int code = probe("k6Q/8/1K6/8/8/8/8/8 b - - 0 1");
+        assertTrue(Tablebases.isLoss(code));
+        assertEquals(0, Tablebases.getDistance(code));
+    }
+
+    @Test
+    void draws(){
+        // stalemate, and the king in front of a rook pawn
+        assertEquals(Tablebases.DRAW, probe("4k3/4P3/4K3/8/8/8/8/8 b - - 0 1"));
+        assertEquals(Tablebases.DRAW, probe("k7/8/8/8/8/8/P7/K7 w - - 0 1"));
+    }
+}
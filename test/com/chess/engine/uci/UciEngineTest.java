@@ -0,0 +1,88 @@
+package com.chess.engine.uci;
+
+import com.chess.engine.board.SearchBoard;
+import com.chess.engine.book.PolyglotKey;
+import com.chess.engine.tablebase.TablebaseGenerator;
+import com.chess.pgn.FenUtilities;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UciEngineTest {
+
+    // the output lines of the engine for the commands, one per line
+    private static List<String> run(final String... commands) throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final String input = String.join("\n", commands) + "\nquit\n";
+        new UciEngine(new BufferedReader(new StringReader(input)),
+                new PrintStream(output, true, StandardCharsets.UTF_8)).run();
+        return Arrays.asList(output.toString(StandardCharsets.UTF_8).split("\n"));
+    }
+
+    private static String bestMove(final List<String> lines){
+        return lines.stream().filter(line -> line.startsWith("bestmove")).reduce((first, second) -> second)
+                .orElseThrow().split(" ")[1];
+    }
+
+    @Test
+    void anIllegalMoveLeavesThePreviousPosition() throws IOException {
+        final List<String> lines = run("position startpos moves e2e4", "position startpos moves e2e4 e2e4",
+                "go depth 1", "isready");
+        assertTrue(lines.contains("info string illegal move e2e4"));
+        // still black to move after 1. e4
+        final char fromRank = bestMove(lines).charAt(1);
+        assertTrue(fromRank == '7' || fromRank == '8', bestMove(lines));
+    }
+
+    @Test
+    void malformedValuesAreIgnored() throws IOException {
+        final List<String> lines = run("position startpos", "go depth x nodes 2000", "isready");
+        assertTrue(lines.contains("info string invalid value x for depth"));
+        assertEquals(4, bestMove(lines).length());
+    }
+
+    @Test
+    void onlyTheOtherClockSearchesAFixedTime() throws IOException {
+        final List<String> lines = run("position startpos", "go btime 60000 binc 1000", "isready");
+        assertTrue(lines.contains("info string no clock for the side to move, searching 1000 ms"));
+        assertEquals(4, bestMove(lines).length());
+    }
+
+    @Test
+    void tablesFindTheMateAtOnce(@TempDir final Path directory) throws IOException {
+        new TablebaseGenerator(directory, 2).generate("KQK");
+        final List<String> lines = run("setoption name TablebasePath value " + directory,
+                "position fen 8/8/8/3k4/8/8/8/KQ6 w - - 0 1", "go depth 1", "isready");
+        assertTrue(lines.stream().anyMatch(line -> line.startsWith("info string") && line.contains("tables of up to 3 pieces")));
+        // a depth 1 search alone sees no mate
+        assertTrue(lines.stream().anyMatch(line -> line.contains("score mate")));
+    }
+
+    @Test
+    void aBookMoveIsPlayedWithoutSearching(@TempDir final Path directory) throws IOException {
+        // a2a3 alone for the start position, a move no search would pick (Polyglot squares count a1 = 0)
+        final ByteBuffer entry = ByteBuffer.allocate(16).putLong(PolyglotKey.compute(new SearchBoard(FenUtilities.STANDARD_FEN)))
+                .putShort((short) ((8 << 6) | 16)).putShort((short) 1).putInt(0);
+        final Path book = Files.write(directory.resolve("book.bin"), entry.array());
+        final List<String> lines = run("setoption name BookFile value " + book, "position startpos", "go depth 1",
+                "position startpos moves e2e4", "go depth 1", "isready");
+        assertEquals("a2a3", lines.stream().filter(line -> line.startsWith("bestmove")).findFirst().orElseThrow().split(" ")[1]);
+        // out of the book the engine searches again
+        final char fromRank = bestMove(lines).charAt(1);
+        assertTrue(fromRank == '7' || fromRank == '8', bestMove(lines));
+    }
+}
@@ -0,0 +1,81 @@
+package com.chess.pgn;
+
+import com.chess.engine.board.SearchBoard;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PgnReaderTest {
+
+    // the smallest chunk the reader takes, the long comment alone does not fit in it
+    private static final int CHUNK_BYTES = 1 << 10;
+    private static final int COPIES = 20;
+
+    // movetext, plies and the final position of each game
+    private static final String[][] GAMES = {
+            // castling on both sides, a variation and a comment with a tag at the start of a line
+            {"1. e4 e5 2. Nf3 Nc6 3. Bb5 a6 {" + "the Ruy Lopez\n[Event \"not a tag\"]\n".repeat(40) + "} " +
+                    "4. Ba4 Nf6 5. O-O Be7 (5... b5 6. Bb3) 6. Re1 b5 7. Bb3 d6 8. c3 O-O 1/2-1/2",
+                    "16", "r1bq1rk1/2p1bppp/p1np1n2/1p2p3/4P3/1BP2N2/PP1P1PPP/RNBQR1K1 w - - 1 9"},
+            // a knight move that needs its file and an en passant capture
+            {"1. d4 Nf6 2. Nf3 e6 3. Nbd2 c5 4. e4 cxd4 5. e5 d5 6. exd6 Bxd6 *",
+                    "12", "rnbqk2r/pp3ppp/3bpn2/8/3p4/5N2/PPPN1PPP/R1BQKB1R w KQkq - 0 7"},
+            // promotion with check and an under promotion, from a FEN tag
+            {"1. a8=Q+ Ke7 2. Kf2 h1=N+ 3. Kg1 1/2-1/2",
+                    "5", "Q7/4k3/8/8/8/8/8/6Kn b - - 1 3"}
+    };
+    private static final String PROMOTION_FEN = "4k3/P7/8/8/8/8/7p/4K3 w - - 0 1";
+
+    @Test
+    void everyGameIsReplayed() throws IOException {
+        final StringBuilder pgn = new StringBuilder();
+        for(int i = 0; i < COPIES * GAMES.length; i++){
+            pgn.append("[Event \"").append(i).append("\"]\n");
+            if(i % GAMES.length == 2){
+                pgn.append("[SetUp \"1\"]\n[FEN \"").append(PROMOTION_FEN).append("\"]\n");
+            }
+            pgn.append('\n').append(GAMES[i % GAMES.length][0]).append("\n\n");
+        }
+        assertTrue(pgn.length() > 10 * CHUNK_BYTES);
+        final Map<PgnGame, String> lastPositions = new ConcurrentHashMap<>();
+        final Queue<PgnGame> games = new ConcurrentLinkedQueue<>();
+        final Queue<Exception> errors = new ConcurrentLinkedQueue<>();
+        final PgnGameHandler handler = new PgnGameHandler() {
+            @Override
+            public void onPosition(final PgnGame game, final SearchBoard board){
+                lastPositions.put(game, board.toFEN());
+            }
+
+            @Override
+            public void onGame(final PgnGame game){
+                games.add(game);
+            }
+
+            @Override
+            public void onError(final PgnGame game, final Exception exception){
+                errors.add(exception);
+            }
+        };
+        final long read = new PgnReader(handler, 2, CHUNK_BYTES)
+                .read(Channels.newChannel(new ByteArrayInputStream(pgn.toString().getBytes(StandardCharsets.US_ASCII))));
+        assertTrue(errors.isEmpty(), errors.toString());
+        assertEquals(COPIES * GAMES.length, read);
+        assertEquals(COPIES * GAMES.length, games.size());
+        for(final PgnGame game : games){
+            final String[] expected = GAMES[Integer.parseInt(game.getTag("Event")) % GAMES.length];
+            assertEquals(Integer.parseInt(expected[1]), game.getMoveCount(), game.toString());
+            assertEquals(expected[2], lastPositions.get(game), game.toString());
+            assertEquals(expected[0].substring(expected[0].lastIndexOf(' ') + 1), game.getResult(), game.toString());
+        }
+    }
+}